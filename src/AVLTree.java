@@ -1,7 +1,15 @@
 /**********************************************************************************************
  * @file : AVLTree.java
  * @description : AVL Tree class, including a root, left, right, and height variables.
- *                Public methods are insert(), contains(), remove(), and printTree();
+ *                Public methods are insert(), bulkLoad(), contains(), remove(), and printTree(),
+ *                plus join(), split() and union(), which combine or divide whole trees in
+ *                logarithmic time and let bulkLoad() build subtrees in parallel. Each node
+ *                keeps the size of its subtree, so select(), rank() and countInRange() run
+ *                in logarithmic time as well. The tree is Iterable, and subSet(), headSet()
+ *                and tailSet() give lazy, splittable views of ranges of it. enableMetrics()
+ *                turns on counters of compares, rotations and search depths (see TreeMetrics).
+ *                save() and load() write and read a binary snapshot (see TreeSnapshot) that
+ *                restores the exact shape, without a comparison per level or a rotation.
  * @author : Ella Shipman
  * @date : October 18, 2025
  * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
@@ -11,27 +19,75 @@
 // CONSTRUCTION: with no initializer
 //
 // ******************PUBLIC OPERATIONS*********************
-// void insert( x )       --> Insert x
-// void remove( x )       --> Remove x (unimplemented)
-// boolean remove( x )    --> Return true if x was present
+// boolean insert( x )    --> Insert x; return false if already present
+// Comparable upsert( x ) --> Insert or replace x; return the replaced item
+// int bulkLoad( items )  --> Insert a List or Iterator of items; return the number inserted
+// int bulkLoad( items, pool ) --> Same, sorting and building in parallel on a ForkJoinPool
+// void join( right )     --> Append the items of a tree of greater items; empty it
+// void join( x, right )  --> Append x, then the items of a tree of greater items; empty it
+// AVLTree split( x )     --> Move the items >= x into a new tree and return it
+// void union( other )    --> Add the items of another tree; empty it
+// int insertAll( items ) --> Insert a batch of items; return the number inserted
+// int removeAll( items ) --> Remove a batch of items; return the number removed
+// boolean remove( x )    --> Remove x; return true if x was present
 // boolean contains( x )  --> Return true if x is present
 // Comparable findMin( )  --> Return smallest item
 // Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// Comparable select( k ) --> Return the item of rank k (the k+1-th smallest)
+// int rank( x )          --> Return the number of items less than x
+// int countInRange( lo, hi ) --> Return the number of items from lo to hi, inclusive
+// Iterator iterator( )   --> Return a lazy iterator over the items in sorted order
+// Spliterator spliterator( ) --> Return a spliterator that splits on subtrees
+// Collection subSet( lo, hi ) --> Return a view of the items from lo to hi, exclusive
+// Collection headSet( hi ) --> Return a view of the items less than hi
+// Collection tailSet( lo ) --> Return a view of the items from lo up
+// void save( file, codec ) --> Write the tree, shape and all, to a snapshot file
+// AVLTree load( file, codec ) --> Read a tree written by save, with the same shape
+// TreeMetrics enableMetrics( ) --> Start counting compares, rotations and searches
+// void disableMetrics( ) --> Stop counting and drop the counters
+// TreeMetrics getMetrics( ) --> Return the counters, or null if metrics are off
 // boolean isEmpty( )     --> Return true if empty; else false
 // void makeEmpty( )      --> Remove all items
 // void printTree( )      --> Print tree in sorted order
 // ******************ERRORS********************************
-// Throws UnderflowException as appropriate
+// Throws UnderflowException as appropriate; save and load throw IOException
 
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
 
 /**
  * Implements an AVL tree.
  * Note that all "matching" is based on the compareTo method.
  */
-public class AVLTree<AnyType extends Comparable<? super AnyType>> {
+public class AVLTree<AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
     /** The tree root. */
     private AvlNode<AnyType> root;
 
+    /** The equal item found by the last insert, upsert or remove, or null if there was none. */
+    private AnyType existing;
+
+    /** The number of batch items found in the tree by the last insertAll or removeAll. */
+    private int matched;
+
+    /** Counters for the hot paths, or null (the default) when metrics are off. */
+    private TreeMetrics metrics;
+
+    /** Ranges of at most this many items are built by one thread in a parallel bulk load. */
+    private static final int PARALLEL_THRESHOLD = 4096;
+
     /**
      * Construct the tree.
      */
@@ -41,53 +97,507 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
 
     /**
      * Insert into the tree; duplicates are ignored.
+     * Duplicates are detected on the way down, so x is compared once per node on its path.
      * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
      */
-    public void insert( AnyType x ) {
-        if (contains(x)) {      //if x is already in the tree, ignore insert
-            System.out.println("AVLTree.java: insert - Node already exists in tree");
-        } else {        //x is not in the tree, proceed with insert
-            root = insert( x, root );
-        }
+    @Override
+    public boolean insert( AnyType x ) {
+        existing = null;
+        root = insert( x, root, false );
+        return existing == null;
+    }
+
+    /**
+     * Insert into the tree, replacing the payload of an equal item if there is one.
+     * @param x the item to insert.
+     * @return the item that x replaced, or null if x was not present.
+     */
+    public AnyType upsert( AnyType x ) {
+        existing = null;
+        root = insert( x, root, true );
+        return existing;
     }
 
     /**
      * Internal method to insert into a subtree.
+     * Sets existing to the equal item when x is already present.
      * @param x the item to insert.
      * @param t the node that roots the subtree.
+     * @param replace whether an equal item is replaced by x.
      * @return the new root of the subtree.
      */
-    private AvlNode<AnyType> insert( AnyType x, AvlNode<AnyType> t ) {
+    private AvlNode<AnyType> insert( AnyType x, AvlNode<AnyType> t, boolean replace ) {
         // Traverse through the tree until an empty spot for x is found, insert x into tree, then update heights
         // for all nodes in the path from the root to x
         if (t == null) {        // Root is null, assign new root
             t = new AvlNode<AnyType>(x);
             return t;
         }
-        if (t.getElement().compareTo(x) > 0) {       // root is greater than x -> left subtree
-             t.setLeft(insert(x, t.getLeft()));
-        } else if (t.getElement().compareTo(x) < 0){     // root is less than x -> right subtree
-             t.setRight(insert(x, t.getRight()));
+        int cmp = compare(t.getElement(), x);
+        if (cmp > 0) {       // root is greater than x -> left subtree
+             t.setLeft(insert(x, t.getLeft(), replace));
+        } else if (cmp < 0) {     // root is less than x -> right subtree
+             t.setRight(insert(x, t.getRight(), replace));
+        } else {       // x is already in the tree
+            existing = t.getElement();
+            if (replace) {
+                t.setElement(x);
+            }
+            return t;
         }
         return balance(t);       // Return root of tree after balancing
     }
 
 
+    /**
+     * Insert many items at once; items already present are ignored. Rather than inserting
+     * one at a time, the items are sorted (skipped if they already are), merged with the
+     * tree's contents, and linked into a perfectly balanced tree in linear time, with no
+     * rotations.
+     * @param items the items to insert, in any order.
+     * @return the number of items inserted.
+     */
+    public int bulkLoad( List<? extends AnyType> items ) {
+        return bulkLoad( items, false );
+    }
+
+    /**
+     * Insert many items at once, as bulkLoad( List ) does, but sort the items and build the
+     * tree in parallel on a pool. The sorted range is split in halves until the pieces are
+     * small; the pieces are built concurrently and joined back together with join().
+     * @param items the items to insert, in any order.
+     * @param pool the pool that runs the sort and the build.
+     * @return the number of items inserted.
+     */
+    public int bulkLoad( List<? extends AnyType> items, ForkJoinPool pool ) {
+        return pool.submit(() -> bulkLoad( items, true )).join();
+    }
+
+    /**
+     * Internal method to insert many items at once.
+     * @param items the items to insert, in any order.
+     * @param parallel whether to sort and build in parallel, on the pool of the calling thread.
+     * @return the number of items inserted.
+     */
+    private int bulkLoad( List<? extends AnyType> items, boolean parallel ) {
+        Object[] loaded = sortedDistinct(items.toArray(), parallel);
+        List<AnyType> current = new ArrayList<>();
+        collect(root, current);
+
+        // merge the two sorted runs; an item equal to one in the tree is dropped
+        Object[] merged = new Object[current.size() + loaded.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < current.size() && j < loaded.length) {
+            int cmp = current.get(i).compareTo(element(loaded, j));
+            if (cmp < 0) {
+                merged[n++] = current.get(i++);
+            } else if (cmp > 0) {
+                merged[n++] = loaded[j++];
+            } else {
+                merged[n++] = current.get(i++);
+                j++;
+            }
+        }
+        while (i < current.size()) {
+            merged[n++] = current.get(i++);
+        }
+        while (j < loaded.length) {
+            merged[n++] = loaded[j++];
+        }
+
+        root = parallel ? new BuildTask(merged, 0, n - 1).invoke() : build(merged, 0, n - 1);
+        return n - current.size();
+    }
+
+    /**
+     * Insert many items at once; see bulkLoad( List ).
+     * @param items the items to insert, in any order.
+     * @return the number of items inserted.
+     */
+    public int bulkLoad( Iterator<? extends AnyType> items ) {
+        List<AnyType> list = new ArrayList<>();
+        while (items.hasNext()) {
+            list.add(items.next());
+        }
+        return bulkLoad(list);
+    }
+
+    /**
+     * Sort items in place unless they are already in ascending order, then drop
+     * duplicates, keeping the first of each run of equal items.
+     * @param parallel whether to sort in parallel, on the pool of the calling thread.
+     * @return the distinct items in ascending order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object[] sortedDistinct( Object[] items, boolean parallel ) {
+        for (int i = 1; i < items.length; i++) {
+            if (((Comparable) items[i - 1]).compareTo(items[i]) >= 0) {
+                // both sorts are stable, so the first of equal items stays first
+                if (parallel) {
+                    Arrays.parallelSort(items, (a, b) -> ((Comparable) a).compareTo(b));
+                } else {
+                    Arrays.sort(items);
+                }
+                break;
+            }
+        }
+        int n = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (n == 0 || ((Comparable) items[n - 1]).compareTo(items[i]) != 0) {
+                items[n++] = items[i];
+            }
+        }
+        return n == items.length ? items : Arrays.copyOf(items, n);
+    }
+
+    /**
+     * Internal method to build a perfectly balanced subtree from items[lo..hi], which are
+     * sorted and distinct. Both halves differ in size by at most one, so the heights are
+     * set bottom up without any rebalancing.
+     * @return the root of the subtree, or null if the range is empty.
+     */
+    private AvlNode<AnyType> build( Object[] items, int lo, int hi ) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        AvlNode<AnyType> t = new AvlNode<AnyType>(element(items, mid),
+                build(items, lo, mid - 1), build(items, mid + 1, hi));
+        t.setHeight(1 + Math.max(height(t.getLeft()), height(t.getRight())));
+        t.setSize(1 + size(t.getLeft()) + size(t.getRight()));
+        return t;
+    }
+
+    /**
+     * Internal method to append the items of a subtree to a list, in sorted order.
+     */
+    private void collect( AvlNode<AnyType> t, List<AnyType> items ) {
+        if (t == null) {
+            return;
+        }
+        collect(t.getLeft(), items);
+        items.add(t.getElement());
+        collect(t.getRight(), items);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnyType element( Object[] items, int i ) {
+        return (AnyType) items[i];
+    }
+
+    /**
+     * Builds a balanced subtree from a range of sorted, distinct items. Large ranges are split
+     * at the middle item; the two halves are built in parallel and joined around it.
+     */
+    private class BuildTask extends RecursiveTask<AvlNode<AnyType>> {
+        private static final long serialVersionUID = 1L;
+        private final Object[] items;
+        private final int lo, hi;
+
+        BuildTask( Object[] items, int lo, int hi ) {
+            this.items = items;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected AvlNode<AnyType> compute( ) {
+            if (hi - lo < PARALLEL_THRESHOLD) {
+                return build(items, lo, hi);
+            }
+            int mid = (lo + hi) >>> 1;
+            BuildTask left = new BuildTask(items, lo, mid - 1);
+            left.fork();
+            AvlNode<AnyType> right = new BuildTask(items, mid + 1, hi).compute();
+            return AVLTree.this.join(left.join(), new AvlNode<AnyType>(element(items, mid)), right);
+        }
+    }
+
+    /**
+     * Append the items of another tree, all of which must be greater than the items of this
+     * tree, and leave the other tree empty. Takes O(log n) time.
+     * @param right the tree of greater items.
+     * @throws IllegalArgumentException if an item of right is not greater than every item here.
+     */
+    public void join( AVLTree<AnyType> right ) {
+        if (right == this) {
+            throw new IllegalArgumentException("join: cannot join a tree to itself");
+        }
+        if (!isEmpty() && !right.isEmpty() && findMax().compareTo(right.findMin()) >= 0) {
+            throw new IllegalArgumentException("join: the items of the trees overlap");
+        }
+        root = join2(root, right.root);
+        right.root = null;
+    }
+
+    /**
+     * Append x and then the items of another tree, which must all be greater than x, which
+     * must be greater than the items of this tree. The other tree is left empty. Takes
+     * O(log n) time.
+     * @param x the item between the two trees.
+     * @param right the tree of greater items.
+     * @throws IllegalArgumentException if the items are not in that order.
+     */
+    public void join( AnyType x, AVLTree<AnyType> right ) {
+        if (right == this) {
+            throw new IllegalArgumentException("join: cannot join a tree to itself");
+        }
+        if ((!isEmpty() && findMax().compareTo(x) >= 0) || (!right.isEmpty() && x.compareTo(right.findMin()) >= 0)) {
+            throw new IllegalArgumentException("join: the items are not in order (" + x + ")");
+        }
+        root = join(root, new AvlNode<AnyType>(x), right.root);
+        right.root = null;
+    }
+
+    /**
+     * Move the items greater than or equal to x into a new tree. The items less than x stay
+     * in this tree. Takes O(log n) time.
+     * @param x the item to split at; it need not be in the tree.
+     * @return the tree of items greater than or equal to x.
+     */
+    public AVLTree<AnyType> split( AnyType x ) {
+        Split<AnyType> s = split(root, x);
+        root = s.less;
+        AVLTree<AnyType> greater = new AVLTree<>();
+        greater.root = s.equal == null ? s.greater : join(null, s.equal, s.greater);
+        return greater;
+    }
+
+    /**
+     * Add the items of another tree, and leave the other tree empty. Where both trees hold
+     * equal items, this tree's item is kept, as with insert(). For trees of sizes m <= n this
+     * takes O(m log(n / m + 1)) time, so a small tree is merged into a large one without
+     * visiting every node of the large one.
+     * @param other the tree to take the items of.
+     */
+    public void union( AVLTree<AnyType> other ) {
+        if (other == this) {
+            return;
+        }
+        root = union(root, other.root);
+        other.root = null;
+    }
+
+    /**
+     * Insert a batch of items; items already present are ignored. Rather than descending
+     * from the root once per item, the batch is sorted and applied in one coordinated
+     * descent: at each node the batch range is cut in two around the node's item, each part
+     * goes down into the matching subtree, and subtrees no part reaches are left untouched.
+     * Paths the items share are walked once, and rebalancing is deferred to one join per
+     * visited node on the way back up.
+     * @param items the items to insert, in any order.
+     * @return the number of items inserted.
+     */
+    public int insertAll( List<? extends AnyType> items ) {
+        Object[] batch = sortedDistinct(items.toArray(), false);
+        matched = 0;
+        root = insertAll(root, batch, 0, batch.length - 1);
+        return batch.length - matched;
+    }
+
+    /**
+     * Remove a batch of items; items not in the tree are ignored. Like insertAll, the
+     * batch is sorted and applied in one coordinated descent.
+     * @param items the items to remove, in any order.
+     * @return the number of items removed.
+     */
+    public int removeAll( List<? extends AnyType> items ) {
+        Object[] batch = sortedDistinct(items.toArray(), false);
+        matched = 0;
+        root = removeAll(root, batch, 0, batch.length - 1);
+        return matched;
+    }
+
+    /**
+     * Internal method to insert the sorted, distinct items batch[lo..hi] into a subtree.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> insertAll( AvlNode<AnyType> t, Object[] batch, int lo, int hi ) {
+        if (lo > hi) {
+            return t;       // no batch item belongs here
+        }
+        if (t == null) {
+            return build(batch, lo, hi);
+        }
+        int i = search(batch, lo, hi, t.getElement());
+        int next = i;
+        if (i >= 0) {
+            matched++;      // already present; the tree's item is kept, as with insert()
+            next = i + 1;
+        } else {
+            i = -(i + 1);
+            next = i;
+        }
+        AvlNode<AnyType> l = insertAll(t.getLeft(), batch, lo, i - 1);
+        AvlNode<AnyType> r = insertAll(t.getRight(), batch, next, hi);
+        return join(l, t, r);
+    }
+
+    /**
+     * Internal method to remove the sorted, distinct items batch[lo..hi] from a subtree.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> removeAll( AvlNode<AnyType> t, Object[] batch, int lo, int hi ) {
+        if (lo > hi || t == null) {
+            return t;
+        }
+        int i = search(batch, lo, hi, t.getElement());
+        boolean found = i >= 0;
+        if (!found) {
+            i = -(i + 1);
+        }
+        AvlNode<AnyType> l = removeAll(t.getLeft(), batch, lo, i - 1);
+        AvlNode<AnyType> r = removeAll(t.getRight(), batch, found ? i + 1 : i, hi);
+        if (found) {
+            matched++;
+            return join2(l, r);
+        }
+        return join(l, t, r);
+    }
+
+    /**
+     * Binary search the sorted, distinct items[lo..hi] for x, comparing once per step.
+     * @return the index of x if it is there; otherwise -(i + 1), where i is the index of
+     *         the first item greater than x (or hi + 1), as with Arrays.binarySearch.
+     */
+    private int search( Object[] items, int lo, int hi, AnyType x ) {
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = x.compareTo(element(items, mid));
+            if (cmp > 0) {
+                lo = mid + 1;
+            } else if (cmp < 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * The result of splitting a subtree at an item: the subtrees of smaller and greater
+     * items, and the node holding an equal item, if there was one.
+     */
+    private static class Split<AnyType> {
+        AvlNode<AnyType> less;
+        AvlNode<AnyType> equal;
+        AvlNode<AnyType> greater;
+    }
+
+    /**
+     * Internal method to join two subtrees around a node, where every item of l is less
+     * than m's item and every item of r is greater. The shorter subtree is hung from the
+     * spine of the taller one, at the first node no more than one taller than it, and the
+     * spine is rebalanced on the way back up. Takes O(|height(l) - height(r)|) time.
+     * @param l the subtree of smaller items.
+     * @param m the node to join them around; its children are replaced.
+     * @param r the subtree of greater items.
+     * @return the root of the joined subtree.
+     */
+    private AvlNode<AnyType> join( AvlNode<AnyType> l, AvlNode<AnyType> m, AvlNode<AnyType> r ) {
+        if (height(l) > height(r) + ALLOWED_IMBALANCE) {
+            l.setRight(join(l.getRight(), m, r));
+            return balance(l);
+        }
+        if (height(r) > height(l) + ALLOWED_IMBALANCE) {
+            r.setLeft(join(l, m, r.getLeft()));
+            return balance(r);
+        }
+        m.setLeft(l);
+        m.setRight(r);
+        m.setHeight(1 + Math.max(height(l), height(r)));
+        m.setSize(1 + size(l) + size(r));
+        return m;
+    }
+
+    /**
+     * Internal method to join two subtrees, where every item of l is less than every item
+     * of r. The smallest node of r is unlinked and becomes the node they are joined around.
+     * @return the root of the joined subtree.
+     */
+    private AvlNode<AnyType> join2( AvlNode<AnyType> l, AvlNode<AnyType> r ) {
+        if (r == null) {
+            return l;
+        }
+        AvlNode<AnyType> min = findMin(r);
+        return join(l, min, removeMin(r));
+    }
+
+    /**
+     * Internal method to split a subtree at x. The subtree's nodes are reused.
+     * Takes O(log n) time: each level down adds one join, and the joins telescope.
+     * @param t the node that roots the subtree.
+     * @param x the item to split at.
+     * @return the subtrees of items less than and greater than x, and the node equal to x.
+     */
+    private Split<AnyType> split( AvlNode<AnyType> t, AnyType x ) {
+        if (t == null) {
+            return new Split<>();
+        }
+        int cmp = t.getElement().compareTo(x);
+        Split<AnyType> s;
+        if (cmp > 0) {      // t and its right subtree are greater than x
+            s = split(t.getLeft(), x);
+            s.greater = join(s.greater, t, t.getRight());
+        } else if (cmp < 0) {       // t and its left subtree are less than x
+            s = split(t.getRight(), x);
+            s.less = join(t.getLeft(), t, s.less);
+        } else {
+            s = new Split<>();
+            s.less = t.getLeft();
+            s.greater = t.getRight();
+            s.equal = t;
+        }
+        return s;
+    }
+
+    /**
+     * Internal method to unite two subtrees: split t2 at the root item of t1, unite the
+     * halves with t1's subtrees, and join the results around t1's root.
+     * @return the root of the united subtree.
+     */
+    private AvlNode<AnyType> union( AvlNode<AnyType> t1, AvlNode<AnyType> t2 ) {
+        if (t1 == null) {
+            return t2;
+        }
+        if (t2 == null) {
+            return t1;
+        }
+        Split<AnyType> s = split(t2, t1.getElement());      // an item equal to t1's is dropped
+        AvlNode<AnyType> l = union(t1.getLeft(), s.less);
+        AvlNode<AnyType> r = union(t1.getRight(), s.greater);
+        return join(l, t1, r);
+    }
+
     /**
      * Remove from the tree. Nothing is done if x is not found.
+     * A miss is detected on the way down, so x is compared once per node on its path.
      * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
      */
-    public void remove( AnyType x ) {
-        if (contains(x)) {      // check that x is in tree, if so -> remove
-            root = remove(x, root);
-        } else {        // if not in tree, ignore remove
+    @Override
+    public boolean remove( AnyType x ) {
+        existing = null;
+        root = remove(x, root);
+        if (existing == null) {        // if not in tree, ignore remove
             System.out.println("remove: cannot remove an element that is not in the tree (" + x + ")");
+            return false;
+        }
+        existing = null;        // do not keep the removed item reachable
+        if (metrics != null) {
+            metrics.removes++;
         }
+        return true;
     }
 
 
     /**
      * Internal method to remove from a subtree.
+     * Sets existing to the removed item when x is found.
      * @param x the item to remove.
      * @param t the node that roots the subtree.
      * @return the new root of the subtree.
@@ -96,35 +606,57 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
         if (t == null) {        // end of path, return null
             return t;
         }
+        int cmp = compare(t.getElement(), x);
         // x found in tree!
-        if (t.getElement().compareTo(x) == 0) {
+        if (cmp == 0) {
+            existing = t.getElement();
             // case: leaf and case: one child
             if (t.getLeft() == null) {
                 return t.getRight();
             } else if (t.getRight() == null) {
                 return t.getLeft();
             }
-            // case: both children
+            // case: both children: the successor node takes t's place, so no element moves
             AvlNode<AnyType> min = findMin(t.getRight());      // find minimum of right subtree
-            t.setElement(min.getElement());     // replace root's element with min in right subtree
-            t.setRight(remove(min.getElement(), t.getRight()));     // remove min from root's right subtree
+            min.setRight(removeMin(t.getRight()));     // unlink min from root's right subtree
+            min.setLeft(t.getLeft());
+            t = min;
         // root is greater than x -> left subtree
-        } else if (t.getElement().compareTo(x) > 0) {
+        } else if (cmp > 0) {
             t.setLeft(remove(x, t.getLeft()));
         // root is less than x -> right subtree
-        } else if (t.getElement().compareTo(x) < 0) {
+        } else {
             t.setRight(remove(x, t.getRight()));
         }
+        if (existing == null) {     // x is not in the tree, so nothing below t changed
+            return t;
+        }
         //Update height for all nodes in the path from x to the root in order to gauge AVLTree's balance
         t.setHeight(1 + Math.max(height(t.getLeft()), height(t.getRight())));
+        t.setSize(1 + size(t.getLeft()) + size(t.getRight()));
         if (t.isLeaf()) { return t ; }
         return balance(t);
     }
 
+    /**
+     * Internal method to unlink the smallest node of a subtree, by following left links
+     * rather than comparing.
+     * @param t the node that roots the subtree; not null.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> removeMin( AvlNode<AnyType> t ) {
+        if (t.getLeft() == null) {
+            return t.getRight();
+        }
+        t.setLeft(removeMin(t.getLeft()));
+        return balance(t);
+    }
+
     /**
      * Find the smallest item in the tree.
      * @return smallest item or null if empty.
      */
+    @Override
     public AnyType findMin( ) {
         if( isEmpty( ) )
             throw new UnderflowException( );
@@ -148,6 +680,7 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
      * Find the largest item in the tree.
      * @return the largest item of null if empty.
      */
+    @Override
     public AnyType findMax( ) {
         if( isEmpty( ) )
             throw new UnderflowException( );
@@ -171,13 +704,423 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
      * @param x the item to search for.
      * @return true if x is found.
      */
+    @Override
     public boolean contains( AnyType x ) {
-        return contains( x, root );
+        AvlNode<AnyType> t = root;
+        int depth = 0;
+        while (t != null) {
+            depth++;
+            int cmp = compare(t.getElement(), x);
+            if (cmp == 0) {      //found x in tree!
+                break;
+            }
+            t = cmp > 0 ? t.getLeft() : t.getRight();       //root is greater than x -> left subtree
+        }
+        if (metrics != null) {
+            metrics.search(depth);
+        }
+        return t != null;
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    @Override
+    public int size( ) {
+        return size( root );
+    }
+
+    /**
+     * Find the item of rank k, the one with exactly k smaller items in the tree.
+     * Takes O(log n) time, using the subtree sizes on the way down.
+     * @param k the rank, from 0 (the smallest item) to size() - 1 (the largest).
+     * @return the item of rank k.
+     * @throws IndexOutOfBoundsException if k is out of range.
+     */
+    public AnyType select( int k ) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("select: rank " + k + " out of range for size " + size());
+        }
+        AvlNode<AnyType> t = root;
+        while (true) {
+            int leftSize = size(t.getLeft());
+            if (k < leftSize) {
+                t = t.getLeft();
+            } else if (k > leftSize) {
+                k -= leftSize + 1;      // skip the left subtree and t itself
+                t = t.getRight();
+            } else {
+                return t.getElement();
+            }
+        }
+    }
+
+    /**
+     * Return the number of items less than x; x need not be in the tree. If it is, this is
+     * its rank, so select( rank( x ) ) is x. Takes O(log n) time.
+     * @param x the item to rank.
+     */
+    public int rank( AnyType x ) {
+        return countBelow( x, false );
+    }
+
+    /**
+     * Return the number of items from lo to hi, inclusive. Takes O(log n) time.
+     * @param lo the smallest item to count.
+     * @param hi the largest item to count.
+     */
+    public int countInRange( AnyType lo, AnyType hi ) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        }
+        return countBelow( hi, true ) - countBelow( lo, false );
+    }
+
+    /**
+     * Internal method to count the items less than x, or less than or equal to x.
+     * Every step right passes a node and its whole left subtree.
+     * @param x the item to count below.
+     * @param inclusive whether an item equal to x is counted.
+     */
+    private int countBelow( AnyType x, boolean inclusive ) {
+        int count = 0;
+        AvlNode<AnyType> t = root;
+        while (t != null) {
+            int cmp = t.getElement().compareTo(x);
+            if (cmp > 0) {
+                t = t.getLeft();
+            } else if (cmp < 0) {
+                count += size(t.getLeft()) + 1;
+                t = t.getRight();
+            } else {
+                return count + size(t.getLeft()) + (inclusive ? 1 : 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return an iterator over the items in sorted order. Items are produced lazily from an
+     * explicit stack, one path at a time, so nothing is copied up front. The tree must not
+     * be changed while it is being iterated.
+     */
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        return new RangeIterator( null, null );
+    }
+
+    /**
+     * Return a spliterator over the items in sorted order. It splits at the root of the
+     * remaining range, so each half is a subtree and parallel streams get even shares.
+     */
+    @Override
+    public Spliterator<AnyType> spliterator( ) {
+        return new RangeSpliterator( null, null );
+    }
+
+    /**
+     * Return a view of the items from lo, inclusive, to hi, exclusive. The view is not
+     * copied: iterating it takes O(log n + k) time for k items, and size() takes O(log n).
+     * @param lo the smallest item of the view.
+     * @param hi the item the view stops before.
+     * @throws IllegalArgumentException if lo is greater than hi.
+     */
+    public Collection<AnyType> subSet( AnyType lo, AnyType hi ) {
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("subSet: lo is greater than hi (" + lo + ", " + hi + ")");
+        }
+        return new Range( lo, hi );
+    }
+
+    /**
+     * Return a view of the items less than hi; see subSet().
+     * @param hi the item the view stops before.
+     */
+    public Collection<AnyType> headSet( AnyType hi ) {
+        return new Range( null, hi );
+    }
+
+    /**
+     * Return a view of the items greater than or equal to lo; see subSet().
+     * @param lo the smallest item of the view.
+     */
+    public Collection<AnyType> tailSet( AnyType lo ) {
+        return new Range( lo, null );
+    }
+
+    /**
+     * Internal method to count the items from lo, inclusive, to hi, exclusive.
+     * A null bound leaves that end of the range open.
+     */
+    private int countRange( AnyType lo, AnyType hi ) {
+        int below = lo == null ? 0 : countBelow( lo, false );
+        int upTo = hi == null ? size() : countBelow( hi, false );
+        return Math.max(0, upTo - below);
+    }
+
+    /**
+     * Internal method to test whether x lies from lo, inclusive, to hi, exclusive.
+     * A null bound leaves that end of the range open.
+     */
+    private static <T extends Comparable<? super T>> boolean inRange( T x, T lo, T hi ) {
+        return (lo == null || x.compareTo(lo) >= 0) && (hi == null || x.compareTo(hi) < 0);
+    }
+
+    /**
+     * A view of the items from lo, inclusive, to hi, exclusive, backed by the tree.
+     */
+    private class Range extends AbstractCollection<AnyType> {
+        private final AnyType lo, hi;       // null for an open end
+
+        Range( AnyType lo, AnyType hi ) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public Iterator<AnyType> iterator( ) {
+            return new RangeIterator( lo, hi );
+        }
+
+        @Override
+        public Spliterator<AnyType> spliterator( ) {
+            return new RangeSpliterator( lo, hi );
+        }
+
+        @Override
+        public int size( ) {
+            return countRange( lo, hi );
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains( Object o ) {
+            AnyType x = (AnyType) o;
+            return inRange( x, lo, hi ) && AVLTree.this.contains( x );
+        }
+    }
+
+    /**
+     * An in-order iterator over the items from lo, inclusive, to hi, exclusive. The stack
+     * holds the nodes whose items are still to come and whose right subtrees are not yet
+     * visited; it never holds more than one path of the tree.
+     */
+    private class RangeIterator implements Iterator<AnyType> {
+        private final ArrayDeque<AvlNode<AnyType>> stack = new ArrayDeque<>();
+        private final AnyType hi;
+
+        RangeIterator( AnyType lo, AnyType hi ) {
+            this.hi = hi;
+            // push the path to lo, skipping the nodes (and their left subtrees) below it
+            AvlNode<AnyType> t = root;
+            while (t != null) {
+                if (lo != null && t.getElement().compareTo(lo) < 0) {
+                    t = t.getRight();
+                } else {
+                    stack.push(t);
+                    t = t.getLeft();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext( ) {
+            return !stack.isEmpty() && (hi == null || stack.peek().getElement().compareTo(hi) < 0);
+        }
+
+        @Override
+        public AnyType next( ) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AvlNode<AnyType> t = stack.pop();
+            for (AvlNode<AnyType> p = t.getRight(); p != null; p = p.getLeft()) {
+                stack.push(p);
+            }
+            return t.getElement();
+        }
+    }
+
+    /**
+     * A spliterator over the items from lo, inclusive, to hi, exclusive. Until it starts
+     * traversing, trySplit() finds the highest node m strictly inside the range and hands
+     * off the items before it, so the prefix is m's left subtree and this keeps m and its
+     * right subtree. Sizes are exact, from the subtree sizes.
+     */
+    private class RangeSpliterator implements Spliterator<AnyType> {
+        private AnyType lo;
+        private final AnyType hi;
+        private int remaining;
+        private RangeIterator it;       // created on the first traversal; no splits after that
+
+        RangeSpliterator( AnyType lo, AnyType hi ) {
+            this.lo = lo;
+            this.hi = hi;
+            this.remaining = countRange( lo, hi );
+        }
+
+        @Override
+        public Spliterator<AnyType> trySplit( ) {
+            if (it != null || remaining < 2) {
+                return null;
+            }
+            AvlNode<AnyType> t = root;
+            while (t != null) {
+                if (lo != null && t.getElement().compareTo(lo) <= 0) {
+                    t = t.getRight();
+                } else if (hi != null && t.getElement().compareTo(hi) >= 0) {
+                    t = t.getLeft();
+                } else {
+                    break;
+                }
+            }
+            if (t == null) {
+                return null;
+            }
+            RangeSpliterator prefix = new RangeSpliterator( lo, t.getElement() );
+            lo = t.getElement();
+            remaining -= prefix.remaining;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance( Consumer<? super AnyType> action ) {
+            if (it == null) {
+                it = new RangeIterator( lo, hi );
+            }
+            if (!it.hasNext()) {
+                return false;
+            }
+            remaining--;
+            action.accept(it.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining( Consumer<? super AnyType> action ) {
+            if (it == null) {
+                it = new RangeIterator( lo, hi );
+            }
+            while (it.hasNext()) {
+                remaining--;
+                action.accept(it.next());
+            }
+        }
+
+        @Override
+        public long estimateSize( ) {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics( ) {
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super AnyType> getComparator( ) {
+            return null;        // natural ordering
+        }
+    }
+
+    /**
+     * Write the tree to a snapshot file (see TreeSnapshot): its nodes in pre-order, so
+     * load() can rebuild exactly this shape.
+     * @param file the path of the snapshot; an earlier snapshot there is replaced.
+     * @param codec writes the elements.
+     */
+    public void save( String file, TreeSnapshot.Codec<? super AnyType> codec ) throws IOException {
+        try (TreeSnapshot.Writer out = TreeSnapshot.Writer.create(file, size())) {
+            ArrayDeque<AvlNode<AnyType>> stack = new ArrayDeque<>();
+            if (root != null) {
+                stack.push(root);
+            }
+            while (!stack.isEmpty()) {
+                AvlNode<AnyType> t = stack.pop();
+                out.node((t.getLeft() != null ? TreeSnapshot.LEFT : 0) | (t.getRight() != null ? TreeSnapshot.RIGHT : 0));
+                codec.write(t.getElement(), out);
+                if (t.getRight() != null) {
+                    stack.push(t.getRight());
+                }
+                if (t.getLeft() != null) {
+                    stack.push(t.getLeft());
+                }
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Read a tree from a snapshot written by save(), in one pass over the file. The saved
+     * shape is rebuilt as it is, with no rotations, and heights and sizes are set on the
+     * way back up; the only comparisons are one per item, checking the order.
+     * @param file the path of the snapshot.
+     * @param codec reads the elements.
+     * @return the tree.
+     * @throws IOException if the file cannot be read or is damaged, if its items are out of
+     *         order under their compareTo, or if its shape is not AVL-balanced.
+     */
+    public static <T extends Comparable<? super T>> AVLTree<T> load( String file, TreeSnapshot.Codec<? extends T> codec )
+            throws IOException {
+        AVLTree<T> tree = new AVLTree<>();
+        AVLTree<T>.Loader loader = tree.new Loader(TreeSnapshot.Reader.open(file), codec);
+        if (loader.in.count() > 0) {
+            tree.root = loader.read(0);
+        }
+        loader.in.end(loader.read, loader.ordered);
+        return tree;
+    }
+
+    /**
+     * Rebuilds subtrees from a snapshot, remembering the last item read in sorted order.
+     */
+    private class Loader {
+        final TreeSnapshot.Reader in;
+        final TreeSnapshot.Codec<? extends AnyType> codec;
+        final int maxDepth;         // bound on an AVL tree's height for in.count() items
+        AnyType previous;
+        int read;
+        boolean ordered = true;
+
+        Loader( TreeSnapshot.Reader in, TreeSnapshot.Codec<? extends AnyType> codec ) {
+            this.in = in;
+            this.codec = codec;
+            maxDepth = (int) (1.45 * Math.log(in.count() + 2.0) / Math.log(2)) + 1;
+        }
+
+        /**
+         * Read the subtree whose root is the next node, at depth below the tree's root.
+         */
+        AvlNode<AnyType> read( int depth ) throws IOException {
+            if (depth > maxDepth) {
+                throw new IOException("snapshot is too deep for an AVL tree of " + in.count() + " items");
+            }
+            int flags = in.node();
+            AvlNode<AnyType> t = new AvlNode<AnyType>(codec.read(in));
+            read++;
+            if ((flags & TreeSnapshot.LEFT) != 0) {
+                t.setLeft(read(depth + 1));
+            }
+            if (previous != null && previous.compareTo(t.getElement()) >= 0) {
+                ordered = false;
+            }
+            previous = t.getElement();
+            if ((flags & TreeSnapshot.RIGHT) != 0) {
+                t.setRight(read(depth + 1));
+            }
+            if (Math.abs(height(t.getLeft()) - height(t.getRight())) > ALLOWED_IMBALANCE) {
+                throw new IOException("snapshot shape is not AVL-balanced");
+            }
+            t.setHeight(1 + Math.max(height(t.getLeft()), height(t.getRight())));
+            t.setSize(1 + size(t.getLeft()) + size(t.getRight()));
+            return t;
+        }
     }
 
     /**
      * Make the tree logically empty.
      */
+    @Override
     public void makeEmpty( ) {
         root = null;
     }
@@ -186,6 +1129,7 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
      * Test if the tree is logically empty.
      * @return true if empty, false otherwise.
      */
+    @Override
     public boolean isEmpty( ) {
         return root == null;
     }
@@ -193,6 +1137,7 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
     /**
      * Print the tree contents in sorted order.
      */
+    @Override
     public void printTree( ) {
         if( isEmpty( ) )
             System.out.println( "Empty tree" );
@@ -230,26 +1175,60 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
         // imbalance in left subtree
         if (height(t.getLeft()) - height(t.getRight()) > ALLOWED_IMBALANCE) {
             if (height(t.getLeft().getLeft()) >= height(t.getLeft().getRight())) {
-                //System.out.println("SR left");
-                t = rotateWithLeftChild(t);         // imbalance is in left subtree of left child
+                return rotateWithLeftChild(t);         // imbalance is in left subtree of left child
             } else {
-                //System.out.println("DR left");
-                t = doubleWithLeftChild(t);     // imbalance is in right subtree of left child
+                return doubleWithLeftChild(t);     // imbalance is in right subtree of left child
             }
         // imbalance in right subtree
         } else if (height(t.getRight()) - height(t.getLeft()) > ALLOWED_IMBALANCE) {
             if (height(t.getRight().getRight()) >= height(t.getRight().getLeft())) {
-                //System.out.println("SR right");
-                t = rotateWithRightChild(t);        // imbalance is in right subtree of right child
+                return rotateWithRightChild(t);        // imbalance is in right subtree of right child
             } else {
-                t = doubleWithRightChild(t);     // imbalance is in left subtree of right child
+                return doubleWithRightChild(t);     // imbalance is in left subtree of right child
             }
         }
-        //Update height for all nodes in the path
+        //No rotation: update height for all nodes in the path (a rotation updates its own nodes)
         t.setHeight(Math.max(height(t.getLeft()), height(t.getRight())) + 1);
+        t.setSize(1 + size(t.getLeft()) + size(t.getRight()));
         return t;
     }
 
+    /**
+     * Start counting compareTo calls, rotations, searches and removes, if not already.
+     * The counters start at zero.
+     * @return the counters, which stay live until disableMetrics() is called.
+     */
+    public TreeMetrics enableMetrics( ) {
+        if (metrics == null) {
+            metrics = new TreeMetrics(() -> height(root), () -> size(root));
+        }
+        return metrics;
+    }
+
+    /**
+     * Stop counting; the hot paths go back to a single null check.
+     */
+    public void disableMetrics( ) {
+        metrics = null;
+    }
+
+    /**
+     * Return the counters, or null if metrics are off.
+     */
+    public TreeMetrics getMetrics( ) {
+        return metrics;
+    }
+
+    /**
+     * Compare a node's element with x, counting the call when metrics are on.
+     */
+    private int compare( AnyType element, AnyType x ) {
+        if (metrics != null) {
+            metrics.compares++;
+        }
+        return element.compareTo(x);
+    }
+
     /**
      * Verifies that the tree is indeed balanced.
      */
@@ -278,26 +1257,10 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
     }
 
     /**
-     * Internal method to find an item in a subtree.
-     * @param x is item to search for.
-     * @param t the node that roots the tree.
-     * @return true if x is found in subtree.
+     * Return the size of the subtree rooted at t, or 0, if null.
      */
-    private boolean contains( AnyType x, AvlNode<AnyType> t ) {
-        if (t == null) {        //root is null, return false
-            //System.out.println("contains - root is null, return false for " + x);
-            return false;
-        }
-        if (t.getElement().compareTo(x) == 0) {      //found x in tree! return true
-            //System.out.println("contains - found " + x + ", returning true");
-            return true;
-        } else if (t.getElement().compareTo(x) > 0) {       //root is greater than x -> left subtree
-            //System.out.println("contains - moving into left subtree for " + x);
-            return contains(x, t.getLeft());
-        } else {     //root is less than x -> right subtree
-            //System.out.println("contains - moving into right subtree for " + x);
-            return contains(x, t.getRight());
-        }
+    private int size( AvlNode<AnyType> t ) {
+        return t == null ? 0 : t.getSize();
     }
 
     /**
@@ -310,139 +1273,97 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
     /**
      * Rotate binary tree node with left child.
      * For AVL trees, this is a single rotation for case 1.
-     * Update heights, then return new root.
+     * Only k2 and k1 change children, so only their heights and sizes are updated
+     * (k2 first, since it ends up below k1). Return the new root, k1.
      */
     private AvlNode<AnyType> rotateWithLeftChild( AvlNode<AnyType> k2 ) {
-        AvlNode<AnyType> k1 = k2.getLeft();
-        // 1) identify the subtrees to be swapped
-        AvlNode<AnyType> X = k1.getLeft();                          //         k2                      k2
-        AvlNode<AnyType> Y = k1.getRight();                         //     k1      Z       ->       X       k1
-        AvlNode<AnyType> Z = k2.getRight();                         //  X     Y                           Y     Z
-        // 2) swap subtrees
-        k2.setLeft(X);                                              // k2's left child is k1's left subtree, X
-        k2.setRight(k1);                                            // k2's right child is k1
-        k1.setLeft(Y);                                              // k1's left child is k1's right subtree, Y
-        k1.setRight(Z);                                             // k1's right child is k2's right subtree, Z
-        // adjust heights
-        k1.setHeight(1 + Math.max(height(k1.getLeft()), height(k1.getRight())));
+        AvlNode<AnyType> k1 = k2.getLeft();                         //         k2                  k1
+        k2.setLeft(k1.getRight());                                  //     k1      Z    ->     X       k2
+        k1.setRight(k2);                                            //  X     Y                     Y     Z
+        if (metrics != null) {
+            metrics.leftSingleRotations++;
+        }
         k2.setHeight(1 + Math.max(height(k2.getLeft()), height(k2.getRight())));
-        if (X != null) {X.setHeight(1 + Math.max(height(X.getLeft()), height(X.getRight())));}
-        if (Y != null) { Y.setHeight(1 + Math.max(height(Y.getLeft()), height(Y.getRight())));}
-        if (Z != null) { Z.setHeight(1 + Math.max(height(Z.getLeft()), height(Z.getRight())));}
-        // 3) swap values of k1 and k2
-        swapElements(k1, k2);                                       //     k2                        k1
-        // 4) return the new root of the subtree,                   //  X      k1       ->        X       k2
-        // k2 (whose element has been swapped with k1's element)    //       Y     Z                    Y     Z
-        return k2;
+        k1.setHeight(1 + Math.max(height(k1.getLeft()), k2.getHeight()));
+        k2.setSize(1 + size(k2.getLeft()) + size(k2.getRight()));
+        k1.setSize(1 + size(k1.getLeft()) + k2.getSize());
+        return k1;
     }
 
     /**
      * Rotate binary tree node with right child.
      * For AVL trees, this is a single rotation for case 4.
-     * Update heights, then return new root.
+     * Only k1 and k2 change children, so only their heights and sizes are updated
+     * (k1 first, since it ends up below k2). Return the new root, k2.
      */
     private AvlNode<AnyType> rotateWithRightChild( AvlNode<AnyType> k1 ) {
-        AvlNode<AnyType> k2 = k1.getRight();
-        // 1) identify the subtrees to be swapped
-        AvlNode<AnyType> X = k1.getLeft();                          //     k1                           k1
-        AvlNode<AnyType> Y = k2.getLeft();                          //  X      k2       ->          k2      Z
-        AvlNode<AnyType> Z = k2.getRight();                         //       Y     Z             X     Y
-        // 2) swap subtrees
-        k1.setLeft(k2);                                             // k1's left child is k2
-        k1.setRight(Z);                                             // k1's right child is Z
-        k2.setLeft(X);                                              // k2's left child is X
-        k2.setRight(Y);                                             // k2's right child is Y
-        // adjust heights
+        AvlNode<AnyType> k2 = k1.getRight();                        //     k1                          k2
+        k1.setRight(k2.getLeft());                                  //  X      k2       ->         k1      Z
+        k2.setLeft(k1);                                             //       Y     Z            X     Y
+        if (metrics != null) {
+            metrics.rightSingleRotations++;
+        }
         k1.setHeight(1 + Math.max(height(k1.getLeft()), height(k1.getRight())));
-        k2.setHeight(1 + Math.max(height(k2.getLeft()), height(k2.getRight())));
-        if (X != null) {X.setHeight(1 + Math.max(height(X.getLeft()), height(X.getRight())));}
-        if (Y != null) { Y.setHeight(1 + Math.max(height(Y.getLeft()), height(Y.getRight())));}
-        if (Z != null) { Z.setHeight(1 + Math.max(height(Z.getLeft()), height(Z.getRight())));}
-        // 3) swap values of k1 and k2
-        swapElements(k1, k2);                                       //         k1                          k2
-        // 4) return the new root of the subtree,                   //     k2      Z       ->          k1      Z
-        // k1 (whose element has been swapped with k2's element)    //  X     Y                     X     Y
-        return k1;
+        k2.setHeight(1 + Math.max(k1.getHeight(), height(k2.getRight())));
+        k1.setSize(1 + size(k1.getLeft()) + size(k1.getRight()));
+        k2.setSize(1 + k1.getSize() + size(k2.getRight()));
+        return k2;
     }
 
     /**
      * Double rotate binary tree node: first left child
      * with its right child; then node k3 with new left child.
      * For AVL trees, this is a double rotation for case 2.
-     * Update heights, then return new root.
+     * k2 is lifted above k1 and k3 in one step, so the subtrees A, B, C and D are only
+     * relinked, and only the three nodes' heights and sizes are updated. Return the new
+     * root, k2.
      */
     private AvlNode<AnyType> doubleWithLeftChild( AvlNode<AnyType> k3 ) {
-        AvlNode<AnyType> k1 = k3.getLeft();
-        AvlNode<AnyType> k2 = k1.getRight();
-        // 1) identify the subtrees to be swapped
-        AvlNode<AnyType> A = k1.getLeft();                          //         k3                      k3
-        AvlNode<AnyType> B = k2.getLeft();                          //     k1      D       ->       k1     k2
-        AvlNode<AnyType> C = k2.getRight();                         //  A     k2                 A    B   C    D
-        AvlNode<AnyType> D = k3.getRight();                         //      B    C
-        // 2) swap subtrees
-        k3.setLeft(k1);                                             // k3's left child -> k1
-        k3.setRight(k2);                                            // k3's right child -> k2
-        k1.setLeft(A);                                              // k1's left child -> A
-        k1.setRight(B);                                             // k1's right child -> B
-        k2.setLeft(C);                                              // k2's left child -> C
-        k2.setRight(D);                                             // k2's right child -> D
-        // adjust heights
-        k1.setHeight(1 + Math.max(height(k1.getLeft()), height(k1.getRight())));
-        k2.setHeight(1 + Math.max(height(k2.getLeft()), height(k2.getRight())));
-        k3.setHeight(1 + Math.max(height(k3.getLeft()), height(k3.getRight())));
-        if (A != null) {A.setHeight(1 + Math.max(height(A.getLeft()), height(A.getRight())));}
-        if (B != null) { B.setHeight(1 + Math.max(height(B.getLeft()), height(B.getRight())));}
-        if (C != null) { C.setHeight(1 + Math.max(height(C.getLeft()), height(C.getRight())));}
-        if (D != null) { D.setHeight(1 + Math.max(height(D.getLeft()), height(D.getRight())));}
-        // 3) swap values of k2 and k3
-        swapElements(k2, k3);                                       //       k3                         k2
-        // 4) return the new root of the subtree,                   //    k1     k2         ->       k1     k3
-        // k3 (whose element has been swapped with k2's element)    // A    B   C    D            A    B   C    D
-        return k3;
+        AvlNode<AnyType> k1 = k3.getLeft();                         //         k3                      k2
+        AvlNode<AnyType> k2 = k1.getRight();                        //     k1      D       ->       k1     k3
+        k1.setRight(k2.getLeft());                                  //  A     k2                 A    B   C    D
+        k3.setLeft(k2.getRight());                                  //      B    C
+        k2.setLeft(k1);
+        k2.setRight(k3);
+        if (metrics != null) {
+            metrics.leftDoubleRotations++;
+        }
+        fixDoubleRotation(k1, k2, k3);
+        return k2;
     }
 
     /**
      * Double rotate binary tree node: first right child
      * with its left child; then node k1 with new right child.
      * For AVL trees, this is a double rotation for case 3.
-     * Update heights, then return new root.
+     * k2 is lifted above k1 and k3 in one step, as in doubleWithLeftChild. Return the
+     * new root, k2.
      */
     private AvlNode<AnyType> doubleWithRightChild( AvlNode<AnyType> k1 ) {
-        AvlNode<AnyType> k3 = k1.getRight();
-        AvlNode<AnyType> k2 = k3.getLeft();
-        // 1) identify the subtrees to be swapped
-        AvlNode<AnyType> A = k1.getLeft();                          //         k1                      k1
-        AvlNode<AnyType> B = k2.getLeft();                          //     A      k3       ->       k2     k3
-        AvlNode<AnyType> C = k2.getRight();                         //        k2     D           A    B   C    D
-        AvlNode<AnyType> D = k3.getRight();                         //      B    C
-        // 2) swap subtrees
-        k1.setLeft(k2);                                             // k1's left child -> k2
-        k1.setRight(k3);                                            // k1's right child -> k3
-        k2.setLeft(A);                                              // k2's left child -> A
-        k2.setRight(B);                                             // k2's right child -> B
-        k3.setLeft(C);                                              // k3's left child -> C
-        k3.setRight(D);                                             // k3's right child -> D
-        k1.setHeight(1 + Math.max(height(k1.getLeft()), height(k1.getRight())));
-        k2.setHeight(1 + Math.max(height(k2.getLeft()), height(k2.getRight())));
-        k3.setHeight(1 + Math.max(height(k3.getLeft()), height(k3.getRight())));
-        if (A != null) {A.setHeight(1 + Math.max(height(A.getLeft()), height(A.getRight())));}
-        if (B != null) { B.setHeight(1 + Math.max(height(B.getLeft()), height(B.getRight())));}
-        if (C != null) { C.setHeight(1 + Math.max(height(C.getLeft()), height(C.getRight())));}
-        if (D != null) { D.setHeight(1 + Math.max(height(D.getLeft()), height(D.getRight())));}
-        // 3) swap values of k1 and k2
-        swapElements(k1, k2);                                       //       k1                         k2
-        // 4) return the new root of the subtree,                   //    k2     k3         ->       k1     k3
-        // k1 (whose element has been swapped with k2's element)    // A    B   C    D            A    B   C    D
-        return k1;
+        AvlNode<AnyType> k3 = k1.getRight();                        //         k1                      k2
+        AvlNode<AnyType> k2 = k3.getLeft();                         //     A      k3       ->       k1     k3
+        k1.setRight(k2.getLeft());                                  //        k2     D           A    B   C    D
+        k3.setLeft(k2.getRight());                                  //      B    C
+        k2.setLeft(k1);
+        k2.setRight(k3);
+        if (metrics != null) {
+            metrics.rightDoubleRotations++;
+        }
+        fixDoubleRotation(k1, k2, k3);
+        return k2;
     }
 
     /**
-     * Swap the elements of binary tree nodes k1 and k2.
+     * Update the heights and sizes of the three nodes of a double rotation, once k2 is
+     * the parent of k1 and k3; the children go before the parent.
      */
-    private void swapElements(AvlNode<AnyType> k1, AvlNode<AnyType> k2) {
-        AnyType val1 = k1.getElement();
-        k1.setElement(k2.getElement());
-        k2.setElement(val1);
+    private void fixDoubleRotation( AvlNode<AnyType> k1, AvlNode<AnyType> k2, AvlNode<AnyType> k3 ) {
+        k1.setHeight(1 + Math.max(height(k1.getLeft()), height(k1.getRight())));
+        k3.setHeight(1 + Math.max(height(k3.getLeft()), height(k3.getRight())));
+        k2.setHeight(1 + Math.max(k1.getHeight(), k3.getHeight()));
+        k1.setSize(1 + size(k1.getLeft()) + size(k1.getRight()));
+        k3.setSize(1 + size(k3.getLeft()) + size(k3.getRight()));
+        k2.setSize(1 + k1.getSize() + k3.getSize());
     }
 
     private static class AvlNode<AnyType> {
@@ -456,12 +1377,14 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
             left     = lt;
             right    = rt;
             height   = 0;
+            size     = 1;
         }
 
         AnyType           element;      // The data in the node
         AvlNode<AnyType>  left;         // Left child
         AvlNode<AnyType>  right;        // Right child
         int               height;       // Height
+        int               size;         // Number of nodes in the subtree rooted here
 
         //Get and set value
         public AnyType getElement() { return element; }
@@ -479,6 +1402,10 @@ public class AVLTree<AnyType extends Comparable<? super AnyType>> {
         public void setHeight(int h) { height = h; }
         public int getHeight() { return height; }
 
+        //Get and set subtree size
+        public void setSize(int n) { size = n; }
+        public int getSize() { return size; }
+
         //Returns true if node is a leaf, otherwise false
         public boolean isLeaf() {
             return ((right == null) && (left == null));
@@ -0,0 +1,658 @@
+/**********************************************************************************************
+ * @file : BPlusTree.java
+ * @description : B+ Tree class, an alternative to the binary trees for large datasets. Each
+ *                node packs up to order - 1 keys into one array, so a search reads a few wide
+ *                nodes (binary searching inside each) instead of one small node per level,
+ *                and the tree is only log(n) / log(order / 2) levels deep. Every item lives in
+ *                a leaf; the leaves are linked in order, so in-order iteration and the
+ *                subSet(), headSet() and tailSet() range views walk the leaves directly.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer, or with the order (the maximum number of children)
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// int height( )          --> Return number of levels below the root
+// Iterator iterator( )   --> Return an iterator over the items in sorted order
+// Collection subSet( lo, hi ) --> Return a view of the items from lo to hi, exclusive
+// Collection headSet( hi ) --> Return a view of the items less than hi
+// Collection tailSet( lo ) --> Return a view of the items from lo up
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// void checkBalance( )   --> Print a message if a B+ tree rule is broken
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements a B+ tree.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class BPlusTree<AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
+    /** The order used by the constructor without one; a node of 31 references spans a few cache lines. */
+    public static final int DEFAULT_ORDER = 32;
+
+    /** Most keys a node may hold; an inner node has one more child than keys. */
+    private final int maxKeys;
+
+    /** Fewest keys a node other than the root may hold. */
+    private final int minKeys;
+
+    /** The tree root, or null if the tree is empty. */
+    private Node<AnyType> root;
+
+    /** Number of items in the tree. */
+    private int size;
+
+    /** The first key of the right half of the last node split, to be added to its parent. */
+    private AnyType splitKey;
+
+    /**
+     * Construct the tree with the default order.
+     */
+    public BPlusTree( ) {
+        this( DEFAULT_ORDER );
+    }
+
+    /**
+     * Construct the tree.
+     * @param order the most children an inner node may have (the fanout), at least 3.
+     * @throws IllegalArgumentException if order is less than 3.
+     */
+    public BPlusTree( int order ) {
+        if (order < 3) {
+            throw new IllegalArgumentException("BPlusTree: order must be at least 3, got " + order);
+        }
+        maxKeys = order - 1;
+        minKeys = maxKeys / 2;
+        root = null;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored. A node that overflows is split in
+     * half, and its parent gains a key; only a split of the root makes the tree taller.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    @Override
+    public boolean insert( AnyType x ) {
+        if (root == null) {
+            root = new Node<AnyType>(maxKeys, true);
+        }
+        int before = size;
+        Node<AnyType> right = insert( x, root );
+        if (right != null) {        // the root split -> new root above both halves
+            Node<AnyType> newRoot = new Node<AnyType>(maxKeys, false);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.n = 1;
+            root = newRoot;
+        }
+        return size > before;
+    }
+
+    /**
+     * Internal method to insert into a subtree.
+     * @param x the item to insert.
+     * @param t the node that roots the subtree.
+     * @return the new right sibling of t if t split (with splitKey set), otherwise null.
+     */
+    private Node<AnyType> insert( AnyType x, Node<AnyType> t ) {
+        if (t.leaf) {
+            int i = search(t, x);
+            if (i >= 0) {       // x is already in the tree
+                return null;
+            }
+            i = -(i + 1);
+            System.arraycopy(t.keys, i, t.keys, i + 1, t.n - i);
+            t.keys[i] = x;
+            t.n++;
+            size++;
+            return t.n > maxKeys ? splitLeaf(t) : null;
+        }
+        int i = childIndex(t, x);
+        Node<AnyType> right = insert(x, t.child(i));
+        if (right == null) {
+            return null;
+        }
+        // hang the new sibling to the right of the child it split from
+        System.arraycopy(t.keys, i, t.keys, i + 1, t.n - i);
+        System.arraycopy(t.children, i + 1, t.children, i + 2, t.n - i);
+        t.keys[i] = splitKey;
+        t.children[i + 1] = right;
+        t.n++;
+        return t.n > maxKeys ? splitInner(t) : null;
+    }
+
+    /**
+     * Move the upper half of an overflowing leaf into a new leaf, linked after it.
+     * @return the new leaf; splitKey is set to its first key.
+     */
+    private Node<AnyType> splitLeaf( Node<AnyType> t ) {
+        int half = t.n / 2;
+        Node<AnyType> right = new Node<AnyType>(maxKeys, true);
+        right.n = t.n - half;
+        System.arraycopy(t.keys, half, right.keys, 0, right.n);
+        Arrays.fill(t.keys, half, t.n, null);
+        t.n = half;
+        right.next = t.next;
+        t.next = right;
+        splitKey = right.key(0);
+        return right;
+    }
+
+    /**
+     * Move the upper half of an overflowing inner node into a new node. The middle key
+     * moves up to the parent rather than into either half.
+     * @return the new node; splitKey is set to the middle key.
+     */
+    private Node<AnyType> splitInner( Node<AnyType> t ) {
+        int mid = t.n / 2;
+        Node<AnyType> right = new Node<AnyType>(maxKeys, false);
+        right.n = t.n - mid - 1;
+        System.arraycopy(t.keys, mid + 1, right.keys, 0, right.n);
+        System.arraycopy(t.children, mid + 1, right.children, 0, right.n + 1);
+        splitKey = t.key(mid);
+        Arrays.fill(t.keys, mid, t.n, null);
+        Arrays.fill(t.children, mid + 1, t.n + 1, null);
+        t.n = mid;
+        return right;
+    }
+
+    /**
+     * Remove from the tree. A node left with too few keys borrows one from a sibling, or
+     * is merged with it; only a merge below the root makes the tree shorter.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
+     */
+    @Override
+    public boolean remove( AnyType x ) {
+        if (root == null || !remove( x, root )) {
+            return false;
+        }
+        if (root.n == 0) {
+            root = root.leaf ? null : root.child(0);
+        }
+        return true;
+    }
+
+    /**
+     * Internal method to remove from a subtree.
+     * @param x the item to remove.
+     * @param t the node that roots the subtree.
+     * @return true if x was found.
+     */
+    private boolean remove( AnyType x, Node<AnyType> t ) {
+        if (t.leaf) {
+            int i = search(t, x);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(t.keys, i + 1, t.keys, i, t.n - i - 1);
+            t.keys[--t.n] = null;
+            size--;
+            return true;
+        }
+        int i = childIndex(t, x);
+        if (!remove(x, t.child(i))) {
+            return false;
+        }
+        if (t.child(i).n < minKeys) {
+            refill(t, i);
+        }
+        return true;
+    }
+
+    /**
+     * Give child i of t back its minimum number of keys, by borrowing from a sibling
+     * that can spare one, or else by merging it with a sibling.
+     * @param t the parent.
+     * @param i the index of the child that has too few keys.
+     */
+    private void refill( Node<AnyType> t, int i ) {
+        if (i > 0 && t.child(i - 1).n > minKeys) {
+            borrowFromLeft(t, i);
+        } else if (i < t.n && t.child(i + 1).n > minKeys) {
+            borrowFromRight(t, i);
+        } else if (i > 0) {
+            merge(t, i - 1);
+        } else {
+            merge(t, i);
+        }
+    }
+
+    /**
+     * Move the last key (and child) of child i - 1 of t to the front of child i.
+     */
+    private void borrowFromLeft( Node<AnyType> t, int i ) {
+        Node<AnyType> c = t.child(i);
+        Node<AnyType> left = t.child(i - 1);
+        System.arraycopy(c.keys, 0, c.keys, 1, c.n);
+        if (c.leaf) {
+            c.keys[0] = left.keys[left.n - 1];
+            t.keys[i - 1] = c.keys[0];
+        } else {
+            // the separator comes down, and left's last key goes up in its place
+            System.arraycopy(c.children, 0, c.children, 1, c.n + 1);
+            c.keys[0] = t.keys[i - 1];
+            c.children[0] = left.children[left.n];
+            t.keys[i - 1] = left.keys[left.n - 1];
+            left.children[left.n] = null;
+        }
+        left.keys[--left.n] = null;
+        c.n++;
+    }
+
+    /**
+     * Move the first key (and child) of child i + 1 of t to the end of child i.
+     */
+    private void borrowFromRight( Node<AnyType> t, int i ) {
+        Node<AnyType> c = t.child(i);
+        Node<AnyType> right = t.child(i + 1);
+        if (c.leaf) {
+            c.keys[c.n] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            t.keys[i] = right.keys[0];
+        } else {
+            // the separator comes down, and right's first key goes up in its place
+            c.keys[c.n] = t.keys[i];
+            c.children[c.n + 1] = right.children[0];
+            t.keys[i] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            System.arraycopy(right.children, 1, right.children, 0, right.n);
+            right.children[right.n] = null;
+        }
+        right.keys[--right.n] = null;
+        c.n++;
+    }
+
+    /**
+     * Merge child i + 1 of t into child i, and drop the separator between them from t.
+     * The two children hold at most maxKeys keys between them (with the separator, for
+     * inner nodes), so the merged node fits.
+     */
+    private void merge( Node<AnyType> t, int i ) {
+        Node<AnyType> left = t.child(i);
+        Node<AnyType> right = t.child(i + 1);
+        if (left.leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+            left.n += right.n;
+            left.next = right.next;
+        } else {
+            left.keys[left.n] = t.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+            System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+            left.n += right.n + 1;
+        }
+        System.arraycopy(t.keys, i + 1, t.keys, i, t.n - i - 1);
+        System.arraycopy(t.children, i + 2, t.children, i + 1, t.n - i - 1);
+        t.keys[t.n - 1] = null;
+        t.children[t.n] = null;
+        t.n--;
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    @Override
+    public boolean contains( AnyType x ) {
+        Node<AnyType> t = root;
+        if (t == null) {
+            return false;
+        }
+        while (!t.leaf) {
+            t = t.child(childIndex(t, x));
+        }
+        return search(t, x) >= 0;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    @Override
+    public AnyType findMin( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        Node<AnyType> t = root;
+        while (!t.leaf) {
+            t = t.child(0);
+        }
+        return t.key(0);
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    @Override
+    public AnyType findMax( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        Node<AnyType> t = root;
+        while (!t.leaf) {
+            t = t.child(t.n);
+        }
+        return t.key(t.n - 1);
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    @Override
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Return the number of levels below the root, or -1 if the tree is empty. Every leaf
+     * is at this depth.
+     */
+    public int height( ) {
+        int h = -1;
+        for (Node<AnyType> t = root; t != null; t = t.leaf ? null : t.child(0)) {
+            h++;
+        }
+        return h;
+    }
+
+    /**
+     * Make the tree logically empty.
+     */
+    @Override
+    public void makeEmpty( ) {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    @Override
+    public boolean isEmpty( ) {
+        return root == null;
+    }
+
+    /**
+     * Print the tree contents in sorted order, walking the leaf chain.
+     */
+    @Override
+    public void printTree( ) {
+        if( isEmpty( ) )
+            System.out.println( "Empty tree" );
+        else
+            for (AnyType x : this)
+                System.out.print(x.toString() + "\n");
+    }
+
+    /**
+     * Return an iterator over the items in sorted order. It follows the leaf links, so
+     * it reads each leaf once, front to back. The tree must not be changed while it is
+     * being iterated.
+     */
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        return new RangeIterator( null, null );
+    }
+
+    /**
+     * Return a view of the items from lo, inclusive, to hi, exclusive. The view is not
+     * copied: iterating it takes one descent to the leaf of lo, then a walk along the
+     * leaves, so O(log n + k) time for k items.
+     * @param lo the smallest item of the view.
+     * @param hi the item the view stops before.
+     * @throws IllegalArgumentException if lo is greater than hi.
+     */
+    public Collection<AnyType> subSet( AnyType lo, AnyType hi ) {
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("subSet: lo is greater than hi (" + lo + ", " + hi + ")");
+        }
+        return new Range( lo, hi );
+    }
+
+    /**
+     * Return a view of the items less than hi; see subSet().
+     * @param hi the item the view stops before.
+     */
+    public Collection<AnyType> headSet( AnyType hi ) {
+        return new Range( null, hi );
+    }
+
+    /**
+     * Return a view of the items greater than or equal to lo; see subSet().
+     * @param lo the smallest item of the view.
+     */
+    public Collection<AnyType> tailSet( AnyType lo ) {
+        return new Range( lo, null );
+    }
+
+    /**
+     * Verifies the B+ tree rules: every node but the root holds minKeys to maxKeys keys,
+     * the keys of each node are in order and between the separators around it, every leaf
+     * is at the same depth, and the leaf chain holds all size items in order.
+     */
+    public void checkBalance( ) {
+        if (root == null) {
+            if (size != 0) {
+                System.out.println("OOPS!! empty tree of size " + size);
+            }
+            return;
+        }
+        checkBalance( root, null, null, 0, height( ) );
+
+        Node<AnyType> leaf = root;
+        while (!leaf.leaf) {
+            leaf = leaf.child(0);
+        }
+        int n = 0;
+        AnyType previous = null;
+        for (; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.n; i++) {
+                if (previous != null && previous.compareTo(leaf.key(i)) >= 0) {
+                    System.out.println("OOPS!! leaf chain out of order at " + leaf.key(i));
+                }
+                previous = leaf.key(i);
+                n++;
+            }
+        }
+        if (n != size) {
+            System.out.println("OOPS!! " + n + " items in the leaves, size " + size);
+        }
+    }
+
+    /**
+     * Check the subtree of t, whose keys must be at least lo and less than hi (null for
+     * no bound), and whose leaves must be at the given height.
+     */
+    private void checkBalance( Node<AnyType> t, AnyType lo, AnyType hi, int depth, int height ) {
+        if (t.n > maxKeys || t.n < (t == root ? 1 : minKeys)) {
+            System.out.println("OOPS!! node of " + t.n + " keys");
+        }
+        for (int i = 0; i < t.n; i++) {
+            if ((i == 0 ? lo != null && lo.compareTo(t.key(i)) > 0 : t.key(i - 1).compareTo(t.key(i)) >= 0)
+                    || (hi != null && t.key(i).compareTo(hi) >= 0)) {
+                System.out.println("OOPS!! key out of order at " + t.key(i));
+            }
+        }
+        if (t.leaf) {
+            if (depth != height) {
+                System.out.println("OOPS!! leaf at depth " + depth + ", height " + height);
+            }
+            return;
+        }
+        for (int i = 0; i <= t.n; i++) {
+            checkBalance( t.child(i), i == 0 ? lo : t.key(i - 1), i == t.n ? hi : t.key(i), depth + 1, height );
+        }
+    }
+
+    /**
+     * Binary search the keys of a leaf for x.
+     * @return the index of x if it is there; otherwise -(i + 1), where i is the index
+     *         x would be inserted at, as with Arrays.binarySearch.
+     */
+    private int search( Node<AnyType> t, AnyType x ) {
+        int lo = 0;
+        int hi = t.n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = t.key(mid).compareTo(x);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * Return the index of the child of inner node t whose subtree would hold x: the
+     * number of keys of t that are less than or equal to x.
+     */
+    private int childIndex( Node<AnyType> t, AnyType x ) {
+        int lo = 0;
+        int hi = t.n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (t.key(mid).compareTo(x) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * A view of the items from lo, inclusive, to hi, exclusive, backed by the tree.
+     * Its size is counted by walking the range.
+     */
+    private class Range extends AbstractCollection<AnyType> {
+        private final AnyType lo, hi;       // null for an open end
+
+        Range( AnyType lo, AnyType hi ) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public Iterator<AnyType> iterator( ) {
+            return new RangeIterator( lo, hi );
+        }
+
+        @Override
+        public int size( ) {
+            int n = 0;
+            for (RangeIterator it = new RangeIterator( lo, hi ); it.hasNext(); it.next()) {
+                n++;
+            }
+            return n;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains( Object o ) {
+            AnyType x = (AnyType) o;
+            return (lo == null || x.compareTo(lo) >= 0) && (hi == null || x.compareTo(hi) < 0)
+                    && BPlusTree.this.contains( x );
+        }
+    }
+
+    /**
+     * An iterator over the items from lo, inclusive, to hi, exclusive: it descends once to
+     * the leaf where lo belongs, then follows the leaf links.
+     */
+    private class RangeIterator implements Iterator<AnyType> {
+        private Node<AnyType> leaf;
+        private int i;
+        private final AnyType hi;
+
+        RangeIterator( AnyType lo, AnyType hi ) {
+            this.hi = hi;
+            leaf = root;
+            if (leaf == null) {
+                return;
+            }
+            while (!leaf.leaf) {
+                leaf = leaf.child(lo == null ? 0 : childIndex(leaf, lo));
+            }
+            if (lo != null) {
+                i = search(leaf, lo);
+                if (i < 0) {
+                    i = -(i + 1);
+                }
+            }
+            skipExhausted();
+        }
+
+        /** Move on to the next non-empty leaf once this one is used up. */
+        private void skipExhausted( ) {
+            while (leaf != null && i >= leaf.n) {
+                leaf = leaf.next;
+                i = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext( ) {
+            return leaf != null && (hi == null || leaf.key(i).compareTo(hi) < 0);
+        }
+
+        @Override
+        public AnyType next( ) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AnyType x = leaf.key(i++);
+            skipExhausted();
+            return x;
+        }
+    }
+
+    /**
+     * A node of the tree. Keys are packed in keys[0..n-1] in ascending order. An inner node
+     * has n + 1 children, where children[i] holds the items from keys[i - 1], inclusive, to
+     * keys[i], exclusive; a leaf holds the items themselves and links to the next leaf.
+     * The arrays have room for one key (and child) too many, so a node can overflow by one
+     * before it is split.
+     */
+    private static class Node<AnyType> {
+        final boolean leaf;             // Whether the node holds items rather than children
+        final Object[] keys;            // Keys (items, in a leaf)
+        final Node<?>[] children;       // Children of an inner node; null in a leaf
+        Node<AnyType> next;             // Next leaf in key order; null in an inner node
+        int n;                          // Number of keys
+
+        Node( int maxKeys, boolean leaf ) {
+            this.leaf = leaf;
+            keys = new Object[maxKeys + 1];
+            children = leaf ? null : new Node<?>[maxKeys + 2];
+        }
+
+        //Get a key or a child
+        @SuppressWarnings("unchecked")
+        AnyType key(int i) { return (AnyType) keys[i]; }
+
+        @SuppressWarnings("unchecked")
+        Node<AnyType> child(int i) { return (Node<AnyType>) children[i]; }
+    }
+}
@@ -1,107 +1,619 @@
 /**********************************************************************************************
  * @file : BSTree.java
  * @description : Binary Search Tree class, including a root, left, and right children.
- *                Public methods are insert(), contains(), remove(), and printTree();
+ *                Public methods are insert(), bulkLoad(), contains(), remove(), select(),
+ *                rank(), countInRange(), and printTree(); every operation is iterative, so a
+ *                degenerate (sorted) tree cannot overflow the stack. Each node keeps the size
+ *                of its subtree, for the order statistics and for the optional guard, which
+ *                rebuilds degenerate subtrees into balanced ones. The tree is Iterable, and
+ *                subSet(), headSet() and tailSet() give lazy, splittable views of ranges of it.
+ *                enableMetrics() turns on counters of compares and search depths (see
+ *                TreeMetrics). save() and load() write and read a binary snapshot (see
+ *                TreeSnapshot) that restores the exact shape, degenerate or not.
  * @author : Ella Shipman
  * @date : October 18, 2025
  * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
  * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
  *********************************************************************************************/
 
-public class BSTree <AnyType extends Comparable<? super AnyType>> {
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+public class BSTree <AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
     //The tree's root
     BSTNode<AnyType> root;
 
+    //The equal item found by the last insert or upsert, or null if there was none
+    private AnyType existing;
+
+    //Number of items in the tree
+    private int size;
+
+    //Whether degenerate subtrees are rebuilt on insert, and the cost of doing so
+    private final boolean guarded;
+    private int rebuildCount;
+    private long rebuildNanos;
+
+    //Ancestors of the node the current insert or remove adds or unlinks, whose sizes change once it succeeds
+    private BSTNode<AnyType>[] path;
+
+    //Weight balance of the guard: a child may hold at most this share of its parent's subtree
+    private static final double ALPHA = 0.7;
+
+    //Counters for the hot paths, or null (the default) when metrics are off
+    private TreeMetrics metrics;
+
     /**
      * Construct the tree.
      */
     public BSTree( ) {
+        this( false );
+    }
+
+    /**
+     * Construct the tree, optionally guarded against degenerate depth. A guarded tree
+     * watches the depth of every insert; once it exceeds log(n) / log(1 / ALPHA), the
+     * lowest unbalanced subtree on the insert path is rebuilt into a balanced shape in
+     * time linear in its size (as in a scapegoat tree).
+     * @param guarded whether to rebuild degenerate subtrees.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BSTree( boolean guarded ) {
         root = null;
+        this.guarded = guarded;
+        path = (BSTNode<AnyType>[]) new BSTNode[32];
     }
 
     /**
      * Insert into the tree; duplicates are ignored.
+     * Duplicates are detected on the way down, so x is compared once per node on its path.
      * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
      */
-    public void insert( AnyType x ) {
-        if (contains(x)) {      //if x is already in the tree, ignore insert
-            System.out.println("AVLTree.java: insert - Node already exists in tree");
-        } else {        //x is not in the tree, proceed with insert
-            root = insert( x, root );
-        }
+    @Override
+    public boolean insert( AnyType x ) {
+        existing = null;
+        insert( x, false );
+        return existing == null;
+    }
+
+    /**
+     * Insert into the tree, replacing the payload of an equal item if there is one.
+     * @param x the item to insert.
+     * @return the item that x replaced, or null if x was not present.
+     */
+    public AnyType upsert( AnyType x ) {
+        existing = null;
+        insert( x, true );
+        return existing;
     }
 
     /**
-     * Internal method to insert into a subtree.
+     * Internal method to insert into the tree.
+     * Sets existing to the equal item when x is already present.
      * @param x the item to insert.
-     * @param t the node that roots the subtree.
-     * @return the new root of the subtree.
+     * @param replace whether an equal item is replaced by x.
+     */
+    private void insert( AnyType x, boolean replace ) {
+        // Walk down until an empty spot for x is found, remembering the path. Each node
+        // passed gains x in its subtree, which is counted once x turns out not to be a duplicate.
+        BSTNode<AnyType> parent = null;
+        BSTNode<AnyType> t = root;
+        int cmp = 0;
+        int depth = 0;
+        while (t != null) {
+            cmp = compare(t.getElement(), x);
+            if (cmp == 0) {       // x is already in the tree
+                existing = t.getElement();
+                if (replace) {
+                    t.setElement(x);
+                }
+                clearPath(depth);
+                return;
+            }
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = t;
+            parent = t;
+            t = cmp > 0 ? t.getLeft() : t.getRight();       // root is greater than x -> left subtree
+        }
+
+        BSTNode<AnyType> node = new BSTNode<AnyType>(x);
+        if (parent == null) {        // Root is null, assign new root
+            root = node;
+        } else if (cmp > 0) {
+            parent.setLeft(node);
+        } else {
+            parent.setRight(node);
+        }
+        size++;
+        addToPath(depth, +1);
+
+        if (guarded && depth > depthLimit(size)) {
+            rebuildScapegoat(node, depth);
+        } else {
+            clearPath(depth);
+        }
+    }
+
+    /**
+     * Insert many items at once; items already present are ignored. Rather than inserting
+     * one at a time (quadratic for sorted input), the items are sorted (skipped if they
+     * already are), merged with the tree's contents, and linked into a perfectly balanced
+     * tree in linear time. The tree's existing nodes are reused.
+     * @param items the items to insert, in any order.
+     * @return the number of items inserted.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int bulkLoad( List<? extends AnyType> items ) {
+        Object[] loaded = sortedDistinct(items.toArray());
+        BSTNode<AnyType>[] current = flatten(root, size);
+
+        // merge the two sorted runs; an item equal to one in the tree is dropped
+        BSTNode<AnyType>[] merged = (BSTNode<AnyType>[]) new BSTNode[current.length + loaded.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < current.length && j < loaded.length) {
+            int cmp = current[i].getElement().compareTo((AnyType) loaded[j]);
+            if (cmp < 0) {
+                merged[n++] = current[i++];
+            } else if (cmp > 0) {
+                merged[n++] = new BSTNode<AnyType>((AnyType) loaded[j++]);
+            } else {
+                merged[n++] = current[i++];
+                j++;
+            }
+        }
+        while (i < current.length) {
+            merged[n++] = current[i++];
+        }
+        while (j < loaded.length) {
+            merged[n++] = new BSTNode<AnyType>((AnyType) loaded[j++]);
+        }
+
+        root = link(merged, 0, n - 1);
+        int inserted = n - size;
+        size = n;
+        return inserted;
+    }
+
+    /**
+     * Insert many items at once; see bulkLoad( List ).
+     * @param items the items to insert, in any order.
+     * @return the number of items inserted.
      */
-    private BSTNode<AnyType> insert(AnyType x, BSTNode<AnyType> t ) {
-        // Traverse through the tree until an empty spot for x is found, insert x into tree, then update heights
-        // for all nodes in the path from the root to x
-        if (t == null) {        // Root is null, assign new root
-            t = new BSTNode<AnyType>(x);
-            return t;
+    public int bulkLoad( Iterator<? extends AnyType> items ) {
+        List<AnyType> list = new ArrayList<>();
+        while (items.hasNext()) {
+            list.add(items.next());
         }
-        if (t.getElement().compareTo(x) > 0) {       // root is greater than x -> left subtree
-            t.setLeft(insert(x, t.getLeft()));
-        } else if (t.getElement().compareTo(x) < 0){     // root is less than x -> right subtree
-            t.setRight(insert(x, t.getRight()));
+        return bulkLoad(list);
+    }
+
+    /**
+     * Sort items in place unless they are already in ascending order, then drop
+     * duplicates, keeping the first of each run of equal items.
+     * @return the distinct items in ascending order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object[] sortedDistinct( Object[] items ) {
+        for (int i = 1; i < items.length; i++) {
+            if (((Comparable) items[i - 1]).compareTo(items[i]) >= 0) {
+                Arrays.sort(items);     // stable, so the first of equal items stays first
+                break;
+            }
+        }
+        int n = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (n == 0 || ((Comparable) items[n - 1]).compareTo(items[i]) != 0) {
+                items[n++] = items[i];
+            }
         }
-        return t;       // Return root of tree
+        return n == items.length ? items : Arrays.copyOf(items, n);
     }
 
 
     /**
      * Remove from the tree. Nothing is done if x is not found.
      * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
      */
-    public void remove( AnyType x ) {
-        if (contains(x)) {      // check that x is in tree, if so -> remove
-            root = remove(x, root);
-        } else {        // if not in tree, ignore remove
+    @Override
+    public boolean remove( AnyType x ) {
+        // find x and its parent, remembering the path, whose nodes each lose x from their subtree
+        BSTNode<AnyType> parent = null;
+        BSTNode<AnyType> t = root;
+        int cmp;
+        int depth = 0;
+        while (t != null && (cmp = compare(t.getElement(), x)) != 0) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = t;
+            parent = t;
+            t = cmp > 0 ? t.getLeft() : t.getRight();
+        }
+        if (t == null) {        // if not in tree, ignore remove
+            clearPath(depth);
             System.out.println("remove: cannot remove an element that is not in the tree (" + x + ")");
+            return false;
+        }
+        addToPath(depth, -1);
+        clearPath(depth);
+        t.size--;
+
+        if (t.getLeft() != null && t.getRight() != null) {
+            // case: both children -> replace t's element with the minimum of its right subtree,
+            // then unlink that minimum (which has no left child)
+            BSTNode<AnyType> minParent = t;
+            BSTNode<AnyType> min = t.getRight();
+            while (min.getLeft() != null) {
+                min.size--;
+                minParent = min;
+                min = min.getLeft();
+            }
+            t.setElement(min.getElement());
+            if (minParent == t) {
+                minParent.setRight(min.getRight());
+            } else {
+                minParent.setLeft(min.getRight());
+            }
+        } else {
+            // case: leaf and case: one child -> the child takes t's place
+            BSTNode<AnyType> child = t.getLeft() != null ? t.getLeft() : t.getRight();
+            if (parent == null) {
+                root = child;
+            } else if (parent.getLeft() == t) {
+                parent.setLeft(child);
+            } else {
+                parent.setRight(child);
+            }
+        }
+        size--;
+        if (metrics != null) {
+            metrics.removes++;
+        }
+        return true;
+    }
+
+    /**
+     * Add delta to the size of path[0..depth-1], once an insert or remove is known to
+     * succeed; a duplicate insert or a missed remove changes no size, so it needs no
+     * second walk (or compareTo calls) to undo anything.
+     * @param depth the number of nodes on the path.
+     * @param delta the change to each size.
+     */
+    private void addToPath( int depth, int delta ) {
+        for (int i = 0; i < depth; i++) {
+            path[i].size += delta;
         }
     }
 
+    /**
+     * Clear path[0..depth-1], so the path does not keep removed nodes reachable.
+     */
+    private void clearPath( int depth ) {
+        Arrays.fill(path, 0, depth, null);
+    }
 
     /**
-     * Internal method to remove from a subtree.
-     * @param x the item to remove.
-     * @param t the node that roots the subtree.
-     * @return the new root of the subtree.
+     * Find the item of rank k, the one with exactly k smaller items in the tree.
+     * Takes time proportional to the depth of the tree, using the subtree sizes.
+     * @param k the rank, from 0 (the smallest item) to size() - 1 (the largest).
+     * @return the item of rank k.
+     * @throws IndexOutOfBoundsException if k is out of range.
      */
-    private BSTNode<AnyType> remove(AnyType x, BSTNode<AnyType> t ) {
-        if (t == null) {        // end of path, return null
-            return t;
+    public AnyType select( int k ) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("select: rank " + k + " out of range for size " + size);
         }
-        // x found in tree!
-        if (t.getElement().compareTo(x) == 0) {
-            // case: leaf and case: one child
-            if (t.getLeft() == null) {
-                return t.getRight();
-            } else if (t.getRight() == null) {
-                return t.getLeft();
+        BSTNode<AnyType> t = root;
+        while (true) {
+            int leftSize = size(t.getLeft());
+            if (k < leftSize) {
+                t = t.getLeft();
+            } else if (k > leftSize) {
+                k -= leftSize + 1;      // skip the left subtree and t itself
+                t = t.getRight();
+            } else {
+                return t.getElement();
             }
-            // case: both children
-            BSTNode<AnyType> min = findMin(t.getRight());      // find minimum of right subtree
-            t.setElement(min.getElement());     // replace root's element with min in right subtree
-            t.setRight(remove(min.getElement(), t.getRight()));     // remove min from root's right subtree
-            // root is greater than x -> left subtree
-        } else if (t.getElement().compareTo(x) > 0) {
-            t.setLeft(remove(x, t.getLeft()));
-            // root is less than x -> right subtree
-        } else if (t.getElement().compareTo(x) < 0) {
-            t.setRight(remove(x, t.getRight()));
         }
-        return t;       //Return the root
+    }
+
+    /**
+     * Return the number of items less than x; x need not be in the tree. If it is, this is
+     * its rank, so select( rank( x ) ) is x.
+     * @param x the item to rank.
+     */
+    public int rank( AnyType x ) {
+        return countBelow( x, false );
+    }
+
+    /**
+     * Return the number of items from lo to hi, inclusive.
+     * @param lo the smallest item to count.
+     * @param hi the largest item to count.
+     */
+    public int countInRange( AnyType lo, AnyType hi ) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        }
+        return countBelow( hi, true ) - countBelow( lo, false );
+    }
+
+    /**
+     * Internal method to count the items less than x, or less than or equal to x.
+     * Every step right passes a node and its whole left subtree.
+     * @param x the item to count below.
+     * @param inclusive whether an item equal to x is counted.
+     */
+    private int countBelow( AnyType x, boolean inclusive ) {
+        int count = 0;
+        BSTNode<AnyType> t = root;
+        while (t != null) {
+            int cmp = t.getElement().compareTo(x);
+            if (cmp > 0) {
+                t = t.getLeft();
+            } else if (cmp < 0) {
+                count += size(t.getLeft()) + 1;
+                t = t.getRight();
+            } else {
+                return count + size(t.getLeft()) + (inclusive ? 1 : 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return an iterator over the items in sorted order. Items are produced lazily from an
+     * explicit stack, one path at a time, so nothing is copied up front. The tree must not
+     * be changed while it is being iterated.
+     */
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        return new RangeIterator( null, null );
+    }
+
+    /**
+     * Return a spliterator over the items in sorted order. It splits at the root of the
+     * remaining range, so each half is a subtree and parallel streams get even shares.
+     */
+    @Override
+    public Spliterator<AnyType> spliterator( ) {
+        return new RangeSpliterator( null, null );
+    }
+
+    /**
+     * Return a view of the items from lo, inclusive, to hi, exclusive. The view is not
+     * copied: iterating it costs one descent plus k steps for k items, and size() costs
+     * two descents, so a balanced (or guarded) tree answers in O(log n + k) and O(log n).
+     * @param lo the smallest item of the view.
+     * @param hi the item the view stops before.
+     * @throws IllegalArgumentException if lo is greater than hi.
+     */
+    public Collection<AnyType> subSet( AnyType lo, AnyType hi ) {
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("subSet: lo is greater than hi (" + lo + ", " + hi + ")");
+        }
+        return new Range( lo, hi );
+    }
+
+    /**
+     * Return a view of the items less than hi; see subSet().
+     * @param hi the item the view stops before.
+     */
+    public Collection<AnyType> headSet( AnyType hi ) {
+        return new Range( null, hi );
+    }
+
+    /**
+     * Return a view of the items greater than or equal to lo; see subSet().
+     * @param lo the smallest item of the view.
+     */
+    public Collection<AnyType> tailSet( AnyType lo ) {
+        return new Range( lo, null );
+    }
+
+    /**
+     * Internal method to count the items from lo, inclusive, to hi, exclusive.
+     * A null bound leaves that end of the range open.
+     */
+    private int countRange( AnyType lo, AnyType hi ) {
+        int below = lo == null ? 0 : countBelow( lo, false );
+        int upTo = hi == null ? size() : countBelow( hi, false );
+        return Math.max(0, upTo - below);
+    }
+
+    /**
+     * Internal method to test whether x lies from lo, inclusive, to hi, exclusive.
+     * A null bound leaves that end of the range open.
+     */
+    private static <T extends Comparable<? super T>> boolean inRange( T x, T lo, T hi ) {
+        return (lo == null || x.compareTo(lo) >= 0) && (hi == null || x.compareTo(hi) < 0);
+    }
+
+    /**
+     * A view of the items from lo, inclusive, to hi, exclusive, backed by the tree.
+     */
+    private class Range extends AbstractCollection<AnyType> {
+        private final AnyType lo, hi;       // null for an open end
+
+        Range( AnyType lo, AnyType hi ) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public Iterator<AnyType> iterator( ) {
+            return new RangeIterator( lo, hi );
+        }
+
+        @Override
+        public Spliterator<AnyType> spliterator( ) {
+            return new RangeSpliterator( lo, hi );
+        }
+
+        @Override
+        public int size( ) {
+            return countRange( lo, hi );
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains( Object o ) {
+            AnyType x = (AnyType) o;
+            return inRange( x, lo, hi ) && BSTree.this.contains( x );
+        }
+    }
+
+    /**
+     * An in-order iterator over the items from lo, inclusive, to hi, exclusive. The stack
+     * holds the nodes whose items are still to come and whose right subtrees are not yet
+     * visited; it never holds more than one path of the tree, however deep.
+     */
+    private class RangeIterator implements Iterator<AnyType> {
+        private final ArrayDeque<BSTNode<AnyType>> stack = new ArrayDeque<>();
+        private final AnyType hi;
+
+        RangeIterator( AnyType lo, AnyType hi ) {
+            this.hi = hi;
+            // push the path to lo, skipping the nodes (and their left subtrees) below it
+            BSTNode<AnyType> t = root;
+            while (t != null) {
+                if (lo != null && t.getElement().compareTo(lo) < 0) {
+                    t = t.getRight();
+                } else {
+                    stack.push(t);
+                    t = t.getLeft();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext( ) {
+            return !stack.isEmpty() && (hi == null || stack.peek().getElement().compareTo(hi) < 0);
+        }
+
+        @Override
+        public AnyType next( ) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BSTNode<AnyType> t = stack.pop();
+            for (BSTNode<AnyType> p = t.getRight(); p != null; p = p.getLeft()) {
+                stack.push(p);
+            }
+            return t.getElement();
+        }
+    }
+
+    /**
+     * A spliterator over the items from lo, inclusive, to hi, exclusive. Until it starts
+     * traversing, trySplit() finds the highest node m strictly inside the range and hands
+     * off the items before it, so the prefix is m's left subtree and this keeps m and its
+     * right subtree. Sizes are exact, from the subtree sizes.
+     */
+    private class RangeSpliterator implements Spliterator<AnyType> {
+        private AnyType lo;
+        private final AnyType hi;
+        private int remaining;
+        private RangeIterator it;       // created on the first traversal; no splits after that
+
+        RangeSpliterator( AnyType lo, AnyType hi ) {
+            this.lo = lo;
+            this.hi = hi;
+            this.remaining = countRange( lo, hi );
+        }
+
+        @Override
+        public Spliterator<AnyType> trySplit( ) {
+            if (it != null || remaining < 2) {
+                return null;
+            }
+            BSTNode<AnyType> t = root;
+            while (t != null) {
+                if (lo != null && t.getElement().compareTo(lo) <= 0) {
+                    t = t.getRight();
+                } else if (hi != null && t.getElement().compareTo(hi) >= 0) {
+                    t = t.getLeft();
+                } else {
+                    break;
+                }
+            }
+            if (t == null) {
+                return null;
+            }
+            RangeSpliterator prefix = new RangeSpliterator( lo, t.getElement() );
+            lo = t.getElement();
+            remaining -= prefix.remaining;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance( Consumer<? super AnyType> action ) {
+            if (it == null) {
+                it = new RangeIterator( lo, hi );
+            }
+            if (!it.hasNext()) {
+                return false;
+            }
+            remaining--;
+            action.accept(it.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining( Consumer<? super AnyType> action ) {
+            if (it == null) {
+                it = new RangeIterator( lo, hi );
+            }
+            while (it.hasNext()) {
+                remaining--;
+                action.accept(it.next());
+            }
+        }
+
+        @Override
+        public long estimateSize( ) {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics( ) {
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super AnyType> getComparator( ) {
+            return null;        // natural ordering
+        }
+    }
+
+    /**
+     * Return the size of the subtree rooted at t, or 0, if null.
+     */
+    private static int size( BSTNode<?> t ) {
+        return t == null ? 0 : t.size;
     }
 
     /**
      * Find the smallest item in the tree.
      * @return smallest item or null if empty.
      */
+    @Override
     public AnyType findMin( ) {
         if( isEmpty( ) )
             throw new UnderflowException( );
@@ -112,6 +624,7 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
      * Find the largest item in the tree.
      * @return the largest item of null if empty.
      */
+    @Override
     public AnyType findMax( ) {
         if( isEmpty( ) )
             throw new UnderflowException( );
@@ -123,28 +636,249 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
      * @param x the item to search for.
      * @return true if x is found.
      */
+    @Override
     public boolean contains( AnyType x ) {
-        return contains( x, root );
+        BSTNode<AnyType> t = root;
+        int depth = 0;
+        while (t != null) {
+            depth++;
+            int cmp = compare(t.getElement(), x);
+            if (cmp == 0) {      //found x in tree!
+                break;
+            }
+            t = cmp > 0 ? t.getLeft() : t.getRight();       //root is greater than x -> left subtree
+        }
+        if (metrics != null) {
+            metrics.search(depth);
+        }
+        return t != null;
+    }
+
+    /**
+     * Write the tree to a snapshot file (see TreeSnapshot): its nodes in pre-order, so
+     * load() can rebuild exactly this shape.
+     * @param file the path of the snapshot; an earlier snapshot there is replaced.
+     * @param codec writes the elements.
+     */
+    public void save( String file, TreeSnapshot.Codec<? super AnyType> codec ) throws IOException {
+        try (TreeSnapshot.Writer out = TreeSnapshot.Writer.create(file, size)) {
+            ArrayDeque<BSTNode<AnyType>> stack = new ArrayDeque<>();
+            if (root != null) {
+                stack.push(root);
+            }
+            while (!stack.isEmpty()) {
+                BSTNode<AnyType> t = stack.pop();
+                out.node((t.getLeft() != null ? TreeSnapshot.LEFT : 0) | (t.getRight() != null ? TreeSnapshot.RIGHT : 0));
+                codec.write(t.getElement(), out);
+                if (t.getRight() != null) {
+                    stack.push(t.getRight());
+                }
+                if (t.getLeft() != null) {
+                    stack.push(t.getLeft());
+                }
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Read a tree from a snapshot written by save(), in one pass over the file. The saved
+     * shape is rebuilt as it is, and the sizes are set as each subtree is completed; the
+     * only comparisons are one per item, checking the order. The nodes still to be
+     * finished are kept on an explicit stack, so a degenerate tree loads like any other.
+     * The loaded tree is not guarded.
+     * @param file the path of the snapshot.
+     * @param codec reads the elements.
+     * @return the tree.
+     * @throws IOException if the file cannot be read or is damaged, or if its items are out
+     *         of order under their compareTo.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T extends Comparable<? super T>> BSTree<T> load( String file, TreeSnapshot.Codec<? extends T> codec )
+            throws IOException {
+        TreeSnapshot.Reader in = TreeSnapshot.Reader.open(file);
+        BSTree<T> tree = new BSTree<>();
+        int read = 0;
+        boolean ordered = true;
+        if (in.count() > 0) {
+            // stack[0..depth) are the unfinished ancestors of t, each with its flags, plus
+            // IN_RIGHT once the walk has moved on to its right subtree
+            final int IN_RIGHT = 4;
+            BSTNode<T>[] stack = (BSTNode<T>[]) new BSTNode[32];
+            int[] state = new int[32];
+            int depth = 0;
+            T previous = null;
+
+            int flags = in.node();
+            BSTNode<T> t = new BSTNode<T>(codec.read(in));
+            read++;
+            tree.root = t;
+            load:
+            while (true) {
+                // go down the left spine of t, reading each left child in turn
+                while ((flags & TreeSnapshot.LEFT) != 0) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                        state = Arrays.copyOf(state, depth * 2);
+                    }
+                    stack[depth] = t;
+                    state[depth++] = flags;
+                    flags = in.node();
+                    BSTNode<T> child = new BSTNode<T>(codec.read(in));
+                    read++;
+                    t.left = child;
+                    t = child;
+                }
+                // t's left subtree is done, so t is next in sorted order
+                while (true) {
+                    if (previous != null && previous.compareTo(t.element) >= 0) {
+                        ordered = false;
+                    }
+                    previous = t.element;
+                    if ((flags & TreeSnapshot.RIGHT) != 0) {
+                        if (depth == stack.length) {
+                            stack = Arrays.copyOf(stack, depth * 2);
+                            state = Arrays.copyOf(state, depth * 2);
+                        }
+                        stack[depth] = t;
+                        state[depth++] = flags | IN_RIGHT;
+                        flags = in.node();
+                        BSTNode<T> child = new BSTNode<T>(codec.read(in));
+                        read++;
+                        t.right = child;
+                        t = child;
+                        continue load;
+                    }
+                    // t's subtree is done: climb past the ancestors whose right subtree it ends
+                    t.size = 1 + size(t.left) + size(t.right);
+                    while (true) {
+                        if (depth == 0) {
+                            break load;
+                        }
+                        BSTNode<T> parent = stack[--depth];
+                        stack[depth] = null;
+                        if ((state[depth] & IN_RIGHT) == 0) {
+                            t = parent;         // its left subtree is done; it is next in order
+                            flags = state[depth];
+                            break;
+                        }
+                        parent.size = 1 + size(parent.left) + size(parent.right);
+                        t = parent;
+                    }
+                }
+            }
+        }
+        in.end(read, ordered);
+        tree.size = read;
+        return tree;
     }
 
     /**
      * Make the tree logically empty.
      */
+    @Override
     public void makeEmpty( ) {
         root = null;
+        size = 0;
     }
 
     /**
      * Test if the tree is logically empty.
      * @return true if empty, false otherwise.
      */
+    @Override
     public boolean isEmpty( ) {
         return root == null;
     }
 
+    /**
+     * Return the number of items in the tree.
+     */
+    @Override
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Start counting compareTo calls, searches and removes, if not already. The counters
+     * start at zero. A BSTree never rotates, so its rotation counters stay at zero; a
+     * guarded tree's rebuilds are reported by getRebuildCount() and getRebuildNanos().
+     * @return the counters, which stay live until disableMetrics() is called.
+     */
+    public TreeMetrics enableMetrics( ) {
+        if (metrics == null) {
+            metrics = new TreeMetrics(this::height, this::size);
+        }
+        return metrics;
+    }
+
+    /**
+     * Stop counting; the hot paths go back to a single null check.
+     */
+    public void disableMetrics( ) {
+        metrics = null;
+    }
+
+    /**
+     * Return the counters, or null if metrics are off.
+     */
+    public TreeMetrics getMetrics( ) {
+        return metrics;
+    }
+
+    /**
+     * Compare a node's element with x, counting the call when metrics are on.
+     */
+    private int compare( AnyType element, AnyType x ) {
+        if (metrics != null) {
+            metrics.compares++;
+        }
+        return element.compareTo(x);
+    }
+
+    /**
+     * Return the height of the tree, or -1 if it is empty. Counted level by level, so a
+     * degenerate tree cannot overflow the stack; takes linear time.
+     */
+    private int height( ) {
+        ArrayDeque<BSTNode<AnyType>> level = new ArrayDeque<>();
+        if (root != null) {
+            level.add(root);
+        }
+        int h = -1;
+        while (!level.isEmpty()) {
+            h++;
+            for (int i = level.size(); i > 0; i--) {
+                BSTNode<AnyType> t = level.poll();
+                if (t.getLeft() != null) {
+                    level.add(t.getLeft());
+                }
+                if (t.getRight() != null) {
+                    level.add(t.getRight());
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Return the number of degenerate subtrees the guard has rebuilt.
+     */
+    public int getRebuildCount( ) {
+        return rebuildCount;
+    }
+
+    /**
+     * Return the total nanoseconds the guard has spent rebuilding subtrees.
+     */
+    public long getRebuildNanos( ) {
+        return rebuildNanos;
+    }
+
     /**
      * Print the tree contents in sorted order.
      */
+    @Override
     public void printTree( ) {
         if( isEmpty( ) )
             System.out.println( "Empty tree" );
@@ -153,14 +887,120 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
     }
 
     /**
-     * Prints the tree on the screen.
+     * Prints the tree on the screen, using an explicit stack instead of recursion.
      * @param t the root of the tree
      */
     private void printTree(BSTNode<AnyType> t) {
-        if (t == null) { return;}
-        printTree(t.getLeft());
-        System.out.print(t.getElement().toString() + "\n");
-        printTree(t.getRight());
+        ArrayDeque<BSTNode<AnyType>> stack = new ArrayDeque<>();
+        while (t != null || !stack.isEmpty()) {
+            while (t != null) {         // go as far left as possible
+                stack.push(t);
+                t = t.getLeft();
+            }
+            t = stack.pop();
+            System.out.print(t.getElement().toString() + "\n");
+            t = t.getRight();
+        }
+    }
+
+    /**
+     * Rebuild the whole tree into a perfectly balanced shape, in linear time.
+     */
+    public void rebalance( ) {
+        long start = System.nanoTime();
+        root = rebuild(root, size);
+        rebuildCount++;
+        rebuildNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Return the deepest insert depth allowed for a tree of n items before the guard rebuilds.
+     */
+    private static int depthLimit( int n ) {
+        return (int) (Math.log(n) / Math.log(1 / ALPHA));
+    }
+
+    /**
+     * Walk back up the path of an insert that went too deep, and rebuild the first
+     * ancestor whose subtree is out of weight balance (the scapegoat). One always exists
+     * when the depth is over the limit; the whole tree is rebuilt otherwise.
+     * @param node the node just inserted.
+     * @param depth the number of ancestors of node, stored in path[0..depth-1].
+     */
+    private void rebuildScapegoat( BSTNode<AnyType> node, int depth ) {
+        long start = System.nanoTime();
+        BSTNode<AnyType> child = node;
+        int scapegoat = 0;
+        for (int i = depth - 1; i >= 0; i--) {
+            BSTNode<AnyType> p = path[i];
+            if (child.size > ALPHA * p.size) {      // sizes already count the new node
+                scapegoat = i;
+                break;
+            }
+            child = p;
+        }
+        int scapegoatSize = path[scapegoat].size;
+
+        BSTNode<AnyType> rebuilt = rebuild(path[scapegoat], scapegoatSize);
+        if (scapegoat == 0) {
+            root = rebuilt;
+        } else if (path[scapegoat - 1].getLeft() == path[scapegoat]) {
+            path[scapegoat - 1].setLeft(rebuilt);
+        } else {
+            path[scapegoat - 1].setRight(rebuilt);
+        }
+        clearPath(depth);       // don't hold on to removed nodes
+        rebuildCount++;
+        rebuildNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Relink the nodes of a subtree into a perfectly balanced subtree.
+     * @param t the root of the subtree.
+     * @param n the number of nodes in the subtree.
+     * @return the root of the balanced subtree.
+     */
+    private BSTNode<AnyType> rebuild( BSTNode<AnyType> t, int n ) {
+        return link(flatten(t, n), 0, n - 1);
+    }
+
+    /**
+     * List the nodes of a subtree in sorted order, iteratively.
+     * @param t the root of the subtree.
+     * @param n the number of nodes in the subtree.
+     * @return the nodes, in order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BSTNode<AnyType>[] flatten( BSTNode<AnyType> t, int n ) {
+        BSTNode<AnyType>[] nodes = (BSTNode<AnyType>[]) new BSTNode[n];
+        int i = 0;
+        ArrayDeque<BSTNode<AnyType>> stack = new ArrayDeque<>();
+        while (t != null || !stack.isEmpty()) {
+            while (t != null) {
+                stack.push(t);
+                t = t.getLeft();
+            }
+            t = stack.pop();
+            nodes[i++] = t;
+            t = t.getRight();
+        }
+        return nodes;
+    }
+
+    /**
+     * Link nodes[lo..hi] into a balanced subtree. Recursion depth is only log(n).
+     * @return the root of the subtree, or null if the range is empty.
+     */
+    private BSTNode<AnyType> link( BSTNode<AnyType>[] nodes, int lo, int hi ) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        BSTNode<AnyType> t = nodes[mid];
+        t.setLeft(link(nodes, lo, mid - 1));
+        t.setRight(link(nodes, mid + 1, hi));
+        t.size = hi - lo + 1;
+        return t;
     }
 
     /**
@@ -170,10 +1010,10 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
      */
     private BSTNode<AnyType> findMin(BSTNode<AnyType> t ) {
         if (t == null) { return t; }
-        if (t.getLeft() == null) {      //if root does not have a left child, then root is the minimum -> return root
-            return t;
+        while (t.getLeft() != null) {      //there exists a left child, so the minimum is in the left subtree
+            t = t.getLeft();
         }
-        return (findMin(t.getLeft()));      //there exists a left child, so findMin in left subtree
+        return t;
     }
 
     /**
@@ -182,33 +1022,10 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
      * @return node containing the largest item.
      */
     private BSTNode<AnyType> findMax(BSTNode<AnyType> t ) {
-        if (t.getRight() == null) {      //if root does not have a right child, then root is the maximum -> return root
-            return t;
-        }
-        return (findMax(t.getRight()));      //there exists a right child, so findMax in right subtree
-    }
-
-    /**
-     * Internal method to find an item in a subtree.
-     * @param x is item to search for.
-     * @param t the node that roots the tree.
-     * @return true if x is found in subtree.
-     */
-    private boolean contains( AnyType x, BSTNode<AnyType> t ) {
-        if (t == null) {        //root is null, return false
-            //System.out.println("contains - root is null, return false for " + x);
-            return false;
-        }
-        if (t.getElement().compareTo(x) == 0) {      //found x in tree! return true
-            //System.out.println("contains - found " + x + ", returning true");
-            return true;
-        } else if (t.getElement().compareTo(x) > 0) {       //root is greater than x -> left subtree
-            //System.out.println("contains - moving into left subtree for " + x);
-            return contains(x, t.getLeft());
-        } else {     //root is less than x -> right subtree
-            //System.out.println("contains - moving into right subtree for " + x);
-            return contains(x, t.getRight());
+        while (t.getRight() != null) {      //there exists a right child, so the maximum is in the right subtree
+            t = t.getRight();
         }
+        return t;
     }
 
 
@@ -222,11 +1039,13 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
             element  = theElement;
             left     = lt;
             right    = rt;
+            size     = 1 + BSTree.size(lt) + BSTree.size(rt);
         }
 
         AnyType element;         // The data in the node
         BSTNode<AnyType> left;   // Left child
         BSTNode<AnyType> right;  // Right child
+        int size;                // Number of nodes in the subtree rooted here
 
         //Get and set value
         public AnyType getElement() { return element; }
@@ -246,4 +1065,3 @@ public class BSTree <AnyType extends Comparable<? super AnyType>> {
         }
     }
 }
-
@@ -0,0 +1,360 @@
+/**********************************************************************************************
+ * @file : BoundedCache.java
+ * @description : A map of at most capacity entries that evicts by one of two policies. LRU
+ *                evicts the least recently used entry. TINY_LFU is W-TinyLFU: new entries go
+ *                to a small LRU window (1% of the capacity); an entry pushed out of the window
+ *                is only admitted to the main space (an LRU probation segment, and a protected
+ *                segment for entries used again there, 80% of the main space) if it has been
+ *                asked for more often than the entry it would evict. How often each key is
+ *                asked for is estimated by a count-min sketch of 4-bit counters, halved every
+ *                10 * capacity lookups so that old popularity fades. Under a skewed workload
+ *                this keeps the popular keys that a burst of one-off lookups would flush out
+ *                of an LRU cache. Every entry is in one hash map and linked into the LRU list
+ *                of its segment, so an access is one hash lookup and a few relinks. Keys need
+ *                equals and hashCode. Not thread-safe.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with a capacity and a Policy
+//
+// ******************PUBLIC OPERATIONS*********************
+// V get( key )           --> Return the value cached for key, or null; counts a hit or a miss
+// void put( key, value ) --> Cache a value, evicting another entry if the cache is full
+// void invalidate( key ) --> Drop the entry for key, if any
+// void clear( )          --> Drop every entry
+// int size( )            --> Return number of entries
+// long getHits( ), getMisses( ), getEvictions( ) --> Read a counter
+// double getHitRate( )   --> Return hits / (hits + misses), or 0 before the first lookup
+// void resetStats( )     --> Set every counter back to zero
+// ******************ERRORS********************************
+// IllegalArgumentException for a capacity below 1 or a null value
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class BoundedCache<K, V> {
+    /** Eviction policies. */
+    public enum Policy { LRU, TINY_LFU }
+
+    private final Policy policy;
+
+    // Every entry, by key, for one hash lookup per access; each node is also on the LRU
+    // list of its segment (LRU uses only the window, of the whole capacity)
+    private final HashMap<K, Node<K, V>> entries = new HashMap<>();
+    private final Segment<K, V> window = new Segment<>();
+    private final Segment<K, V> probation = new Segment<>();
+    private final Segment<K, V> protectedSegment = new Segment<>();
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Construct an empty cache.
+     * @param capacity the most entries it holds.
+     * @param policy how it chooses an entry to evict.
+     */
+    public BoundedCache( int capacity, Policy policy ) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1: " + capacity);
+        }
+        this.policy = policy;
+        if (policy == Policy.LRU) {
+            windowCapacity = capacity;
+            mainCapacity = 0;
+            protectedCapacity = 0;
+            sketch = null;
+        } else {
+            windowCapacity = Math.max(1, capacity / 100);
+            mainCapacity = capacity - windowCapacity;
+            protectedCapacity = mainCapacity * 4 / 5;
+            sketch = new FrequencySketch(capacity);
+        }
+    }
+
+    /**
+     * Look a key up, and count a hit or a miss.
+     * @return the value cached for key, or null if there is none.
+     */
+    public V get( K key ) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (node.segment == probation) {
+            // used again on probation: promote it, demoting the protected LRU if full
+            probation.unlink(node);
+            protectedSegment.append(node);
+            if (protectedSegment.size > protectedCapacity) {
+                Node<K, V> demoted = protectedSegment.first();
+                protectedSegment.unlink(demoted);
+                probation.append(demoted);
+            }
+        } else {
+            node.segment.moveToEnd(node);
+        }
+        return node.value;
+    }
+
+    /**
+     * Cache a value for key, replacing any value it had; if the cache is full, an entry is
+     * evicted (under TINY_LFU, possibly this one, once it leaves the window).
+     */
+    public void put( K key, V value ) {
+        if (value == null) {
+            throw new IllegalArgumentException("BoundedCache cannot hold a null value");
+        }
+        Node<K, V> node = entries.get(key);
+        if (node != null) {
+            node.value = value;
+            return;
+        }
+        node = new Node<>(key, value);
+        entries.put(key, node);
+        window.append(node);
+        if (window.size > windowCapacity) {
+            Node<K, V> candidate = window.first();
+            window.unlink(candidate);
+            if (policy == Policy.LRU) {
+                evict(candidate);
+            } else {
+                admit(candidate);
+            }
+        }
+    }
+
+    /**
+     * Move an entry pushed out of the window into the main space, if there is room or it
+     * is wanted more often than the entry it would replace; otherwise it is evicted.
+     */
+    private void admit( Node<K, V> candidate ) {
+        if (probation.size + protectedSegment.size < mainCapacity) {
+            probation.append(candidate);
+            return;
+        }
+        if (mainCapacity == 0) {
+            evict(candidate);
+            return;
+        }
+        Segment<K, V> victims = probation.size == 0 ? protectedSegment : probation;
+        Node<K, V> victim = victims.first();
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            victims.unlink(victim);
+            evict(victim);
+            probation.append(candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    /**
+     * Drop an entry that is on no segment any more.
+     */
+    private void evict( Node<K, V> node ) {
+        entries.remove(node.key);
+        evictions++;
+    }
+
+    /**
+     * Drop the entry for key, if there is one.
+     */
+    public void invalidate( K key ) {
+        Node<K, V> node = entries.remove(key);
+        if (node != null) {
+            node.segment.unlink(node);
+        }
+    }
+
+    /**
+     * Drop every entry; the counters are kept.
+     */
+    public void clear( ) {
+        entries.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        if (sketch != null) {
+            sketch.clear();
+        }
+    }
+
+    /**
+     * Return the number of entries.
+     */
+    public int size( ) {
+        return entries.size();
+    }
+
+    /** Number of lookups that found a value. */
+    public long getHits( ) { return hits; }
+
+    /** Number of lookups that found none. */
+    public long getMisses( ) { return misses; }
+
+    /** Number of entries evicted, or refused by TINY_LFU's admission test. */
+    public long getEvictions( ) { return evictions; }
+
+    /**
+     * Return the share of lookups that found a value, or 0 before the first lookup.
+     */
+    public double getHitRate( ) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Set the hit, miss and eviction counters back to zero.
+     */
+    public void resetStats( ) {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * An entry, linked into the LRU list of its segment.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        Segment<K, V> segment;
+        Node<K, V> prev, next;
+
+        Node( K key, V value ) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes from least to most recently used, around a sentinel.
+     */
+    private static final class Segment<K, V> {
+        private final Node<K, V> head = new Node<>(null, null);
+        int size;
+
+        Segment( ) {
+            head.prev = head;
+            head.next = head;
+        }
+
+        /** The least recently used node; only called when size > 0. */
+        Node<K, V> first( ) {
+            return head.next;
+        }
+
+        void append( Node<K, V> node ) {
+            node.segment = this;
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            size++;
+        }
+
+        void unlink( Node<K, V> node ) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            node.segment = null;
+            size--;
+        }
+
+        void moveToEnd( Node<K, V> node ) {
+            if (head.prev != node) {
+                unlink(node);
+                append(node);
+            }
+        }
+
+        void clear( ) {
+            head.prev = head;
+            head.next = head;
+            size = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch of how often each key was asked for: DEPTH rows of 4-bit counters
+     * (one byte each, for simplicity), a key's estimate being the least of its DEPTH
+     * counters. Every counter is halved once there have been 10 * capacity increments.
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97CB3127, 0xB6D08BA9, 0xC2B2AE35, 0x85EBCA6B};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int samples;
+
+        FrequencySketch( int capacity ) {
+            int width = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            counters = new byte[DEPTH][width];
+            mask = width - 1;
+            sampleSize = 10 * capacity;
+        }
+
+        void increment( Object key ) {
+            int h = spread(key.hashCode());
+            for (int i = 0; i < DEPTH; i++) {
+                byte[] row = counters[i];
+                int j = index(h, i);
+                if (row[j] < MAX_COUNT) {
+                    row[j]++;
+                }
+            }
+            if (++samples >= sampleSize) {
+                halve();
+            }
+        }
+
+        int frequency( Object key ) {
+            int h = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, counters[i][index(h, i)]);
+            }
+            return min;
+        }
+
+        void clear( ) {
+            for (byte[] row : counters) {
+                Arrays.fill(row, (byte) 0);
+            }
+            samples = 0;
+        }
+
+        private void halve( ) {
+            for (byte[] row : counters) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] >>= 1;
+                }
+            }
+            samples /= 2;
+        }
+
+        private int index( int h, int row ) {
+            int x = h * SEEDS[row];
+            return (x ^ (x >>> 16)) & mask;
+        }
+
+        private static int spread( int h ) {
+            h ^= h >>> 16;
+            h *= 0x45D9F3B;
+            return h ^ (h >>> 16);
+        }
+    }
+}
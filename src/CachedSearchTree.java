@@ -0,0 +1,150 @@
+/**********************************************************************************************
+ * @file : CachedSearchTree.java
+ * @description : A SearchTree with a bounded read-through cache in front of contains(). A
+ *                lookup first asks the cache, and only walks the tree (from the root, with a
+ *                compareTo at every level) on a miss, caching the answer, found or not, for
+ *                next time. Under a skewed workload most lookups are for a few popular items,
+ *                which stay cached. The cache is keyed by a key function, such as
+ *                Villager::getName, since a Villager has no hashCode; two items must have the
+ *                same key exactly when they compare equal. An insert or remove that changes
+ *                the tree invalidates the cache entry for that item, and makeEmpty() every
+ *                entry, so the cache never disagrees with the tree. See BoundedCache for the
+ *                LRU and W-TinyLFU eviction policies. Not thread-safe.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with the tree to wrap, a cache capacity and policy, and a key function
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present, from the cache if it can
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// Iterator iterator( )   --> Return an iterator over the items in sorted order
+// BoundedCache getCache( ) --> Return the cache, for its hit, miss and eviction counters
+// ******************ERRORS********************************
+// findMin and findMax throw UnderflowException on an empty tree
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Implements a search tree with a cache of contains() answers.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class CachedSearchTree<AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
+    private final SearchTree<AnyType> tree;
+    private final BoundedCache<Object, Boolean> cache;
+    private final Function<? super AnyType, ?> key;
+
+    /**
+     * Construct a cache in front of a tree.
+     * @param tree the tree to wrap; it must only be changed through this object from now on.
+     * @param capacity the most lookups the cache remembers.
+     * @param policy how the cache chooses an entry to evict.
+     * @param key returns the cache key of an item; equal keys must mean equal items.
+     */
+    public CachedSearchTree( SearchTree<AnyType> tree, int capacity, BoundedCache.Policy policy,
+                             Function<? super AnyType, ?> key ) {
+        this.tree = tree;
+        this.cache = new BoundedCache<>(capacity, policy);
+        this.key = key;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    @Override
+    public boolean insert( AnyType x ) {
+        if (!tree.insert(x)) {
+            return false;
+        }
+        cache.invalidate(key.apply(x));
+        return true;
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
+     */
+    @Override
+    public boolean remove( AnyType x ) {
+        if (!tree.remove(x)) {
+            return false;
+        }
+        cache.invalidate(key.apply(x));
+        return true;
+    }
+
+    /**
+     * Find an item, in the cache if it has the answer, else in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    @Override
+    public boolean contains( AnyType x ) {
+        Object k = key.apply(x);
+        Boolean cached = cache.get(k);
+        if (cached != null) {
+            return cached;
+        }
+        boolean found = tree.contains(x);
+        cache.put(k, found);
+        return found;
+    }
+
+    @Override
+    public AnyType findMin( ) {
+        return tree.findMin();
+    }
+
+    @Override
+    public AnyType findMax( ) {
+        return tree.findMax();
+    }
+
+    @Override
+    public int size( ) {
+        return tree.size();
+    }
+
+    @Override
+    public boolean isEmpty( ) {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Make the tree logically empty, and drop every cached answer.
+     */
+    @Override
+    public void makeEmpty( ) {
+        tree.makeEmpty();
+        cache.clear();
+    }
+
+    @Override
+    public void printTree( ) {
+        tree.printTree();
+    }
+
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        return tree.iterator();
+    }
+
+    /**
+     * Return the cache, for its hit, miss and eviction counters.
+     */
+    public BoundedCache<Object, Boolean> getCache( ) {
+        return cache;
+    }
+}
@@ -0,0 +1,437 @@
+/**********************************************************************************************
+ * @file : ConcurrentAVLTree.java
+ * @description : AVL Tree that many threads can read while another thread writes. Lookups
+ *                (contains, findMin, findMax) take no lock: they walk the tree under an
+ *                optimistic StampedLock stamp and only trust the answer if no write happened
+ *                in the meantime, retrying otherwise. Writers take the write lock. Rotations
+ *                relink nodes rather than swapping elements between them, and a node's
+ *                element never changes, so a reader never sees a key move to another node.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// void checkBalance( )   --> Verify the tree is balanced and ordered
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Implements an AVL tree that is safe for concurrent use.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class ConcurrentAVLTree<AnyType extends Comparable<? super AnyType>> {
+    private static final int ALLOWED_IMBALANCE = 1;
+
+    /**
+     * Most nodes an optimistic read visits before it gives up. An AVL tree of 2^31 items is
+     * at most 45 levels deep, so a longer walk can only mean the read raced a writer.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /** Optimistic attempts a read makes before it waits for the read lock. */
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private final StampedLock lock = new StampedLock();
+
+    /** The tree root. */
+    private AvlNode<AnyType> root;
+
+    /** Number of items in the tree. */
+    private volatile int size;
+
+    /** Set by the internal insert/remove when the tree changed. */
+    private boolean changed;
+
+    /**
+     * Construct the tree.
+     */
+    public ConcurrentAVLTree( ) {
+        root = null;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    public boolean insert( AnyType x ) {
+        long stamp = lock.writeLock();
+        try {
+            changed = false;
+            root = insert( x, root );
+            if (changed) {
+                size++;
+            }
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed.
+     */
+    public boolean remove( AnyType x ) {
+        long stamp = lock.writeLock();
+        try {
+            changed = false;
+            root = remove( x, root );
+            if (changed) {
+                size--;
+            }
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Find an item in the tree. Does not block unless writers keep invalidating the read.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains( AnyType x ) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                continue;       // a writer holds the lock right now
+            }
+            int found = find( x );
+            if (found >= 0 && lock.validate(stamp)) {
+                return found == 1;
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return find( x ) == 1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Internal method to search for x without holding a lock. The walk may see a tree
+     * that a writer is changing, so it tolerates missing links and gives up if it goes
+     * deeper than any valid tree can be.
+     * @return 1 if x was found, 0 if not, or -1 if the walk gave up.
+     */
+    private int find( AnyType x ) {
+        AvlNode<AnyType> t = root;
+        for (int depth = 0; t != null; depth++) {
+            if (depth == MAX_DEPTH) {
+                return -1;
+            }
+            int cmp = t.element.compareTo(x);
+            if (cmp == 0) {
+                return 1;
+            }
+            t = cmp > 0 ? t.left : t.right;
+        }
+        return 0;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    public AnyType findMin( ) {
+        return findEnd( true );
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    public AnyType findMax( ) {
+        return findEnd( false );
+    }
+
+    /**
+     * Internal method to find the smallest or largest item, optimistically first.
+     * @param min true for the smallest item, false for the largest.
+     */
+    private AnyType findEnd( boolean min ) {
+        AvlNode<AnyType> end;
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                continue;       // a writer holds the lock right now
+            }
+            end = walkToEnd( min );
+            if (lock.validate(stamp)) {
+                return elementOf( end );
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            end = walkToEnd( min );
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return elementOf( end );
+    }
+
+    /**
+     * Return the element of the node found by findEnd, which is null only if the tree is empty.
+     */
+    private AnyType elementOf( AvlNode<AnyType> t ) {
+        if( t == null )
+            throw new UnderflowException( );
+        return t.element;
+    }
+
+    /**
+     * Internal method to walk down the left or right spine, without holding a lock.
+     * @return the last node of the spine, or null if the tree is empty or the walk gave up
+     *         (which a validated read never sees).
+     */
+    private AvlNode<AnyType> walkToEnd( boolean min ) {
+        AvlNode<AnyType> t = root;
+        if (t == null) {
+            return null;
+        }
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            AvlNode<AnyType> next = min ? t.left : t.right;
+            if (next == null) {
+                return t;
+            }
+            t = next;
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    public boolean isEmpty( ) {
+        return size == 0;
+    }
+
+    /**
+     * Make the tree logically empty.
+     */
+    public void makeEmpty( ) {
+        long stamp = lock.writeLock();
+        try {
+            root = null;
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    public void printTree( ) {
+        long stamp = lock.readLock();
+        try {
+            if( root == null )
+                System.out.println( "Empty tree" );
+            else
+                printTree( root );
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Internal method to print a subtree in (sorted) order.
+     */
+    private void printTree( AvlNode<AnyType> t ) {
+        if (t == null) {
+            return;
+        }
+        printTree(t.left);
+        System.out.println(t.element);
+        printTree(t.right);
+    }
+
+    /**
+     * Verifies that the tree is indeed balanced, and that its items are in order.
+     */
+    public void checkBalance( ) {
+        long stamp = lock.readLock();
+        try {
+            checkBalance( root, null, null );
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int checkBalance( AvlNode<AnyType> t, AnyType low, AnyType high ) {
+        if( t == null )
+            return -1;
+
+        int hl = checkBalance( t.left, low, t.element );
+        int hr = checkBalance( t.right, t.element, high );
+        if( Math.abs( height( t.left ) - height( t.right ) ) > 1 )
+            System.out.println( "OOPS!! 1" );
+        if( height( t.left ) != hl )
+            System.out.println( "OOPS!! 2" );
+        if( height( t.right ) != hr )
+            System.out.println( "OOPS!! 3" );
+        if( ( low != null && low.compareTo( t.element ) >= 0 ) || ( high != null && high.compareTo( t.element ) <= 0 ) )
+            System.out.println( "OOPS!! 4" );
+
+        return height( t );
+    }
+
+    /**
+     * Internal method to insert into a subtree. Called with the write lock held.
+     * @param x the item to insert.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> insert( AnyType x, AvlNode<AnyType> t ) {
+        if (t == null) {
+            changed = true;
+            return new AvlNode<>(x);
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = insert(x, t.left);
+        } else if (cmp < 0) {
+            t.right = insert(x, t.right);
+        } else {
+            return t;       // duplicate; nothing changes on the way back up
+        }
+        return balance(t);
+    }
+
+    /**
+     * Internal method to remove from a subtree. Called with the write lock held.
+     * A node with two children is replaced by the node of its successor, which is unlinked
+     * from the right subtree first; elements are never copied between nodes.
+     * @param x the item to remove.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> remove( AnyType x, AvlNode<AnyType> t ) {
+        if (t == null) {
+            return t;
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = remove(x, t.left);
+        } else if (cmp < 0) {
+            t.right = remove(x, t.right);
+        } else {
+            changed = true;
+            if (t.left == null) {
+                return t.right;
+            }
+            if (t.right == null) {
+                return t.left;
+            }
+            AvlNode<AnyType> min = t.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = removeMin(t.right);
+            min.left = t.left;
+            t = min;
+        }
+        return balance(t);
+    }
+
+    /**
+     * Internal method to unlink the smallest node of a subtree.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> removeMin( AvlNode<AnyType> t ) {
+        if (t.left == null) {
+            return t.right;
+        }
+        t.left = removeMin(t.left);
+        return balance(t);
+    }
+
+    /**
+     * Return the height of node t, or -1, if null.
+     */
+    private int height( AvlNode<AnyType> t ) {
+        return t == null ? -1 : t.height;
+    }
+
+    /**
+     * Rebalance the subtree rooted at t, which is either balanced or within one of being balanced.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> balance( AvlNode<AnyType> t ) {
+        if (height(t.left) - height(t.right) > ALLOWED_IMBALANCE) {
+            if (height(t.left.left) < height(t.left.right)) {
+                t.left = rotateWithRightChild(t.left);
+            }
+            t = rotateWithLeftChild(t);
+        } else if (height(t.right) - height(t.left) > ALLOWED_IMBALANCE) {
+            if (height(t.right.right) < height(t.right.left)) {
+                t.right = rotateWithLeftChild(t.right);
+            }
+            t = rotateWithRightChild(t);
+        } else {
+            t.height = Math.max(height(t.left), height(t.right)) + 1;
+        }
+        return t;
+    }
+
+    /**
+     * Rotate node k2 with its left child by relinking; update the two heights that change.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> rotateWithLeftChild( AvlNode<AnyType> k2 ) {
+        AvlNode<AnyType> k1 = k2.left;
+        k2.left = k1.right;
+        k1.right = k2;
+        k2.height = Math.max(height(k2.left), height(k2.right)) + 1;
+        k1.height = Math.max(height(k1.left), k2.height) + 1;
+        return k1;
+    }
+
+    /**
+     * Rotate node k1 with its right child by relinking; update the two heights that change.
+     * @return the new root of the subtree.
+     */
+    private AvlNode<AnyType> rotateWithRightChild( AvlNode<AnyType> k1 ) {
+        AvlNode<AnyType> k2 = k1.right;
+        k1.right = k2.left;
+        k2.left = k1;
+        k1.height = Math.max(height(k1.left), height(k1.right)) + 1;
+        k2.height = Math.max(height(k2.right), k1.height) + 1;
+        return k2;
+    }
+
+    private static class AvlNode<AnyType> {
+        AvlNode( AnyType theElement ) {
+            element = theElement;
+        }
+
+        final AnyType     element;      // The data in the node; final, so a racing reader sees it
+        AvlNode<AnyType>  left;         // Left child
+        AvlNode<AnyType>  right;        // Right child
+        int               height;       // Height
+    }
+}
@@ -0,0 +1,576 @@
+/**********************************************************************************************
+ * @file : DurableAVLTree.java
+ * @description : An AVLTree whose updates survive a crash. Every insert or remove that
+ *                changes the tree is appended to a write-ahead log through a FileChannel
+ *                before it is acknowledged, and opening the tree again loads the last
+ *                checkpoint (a TreeSnapshot of the tree) and replays the log over it. How long
+ *                an update waits for the disk depends on the Durability: SYNC forces the log
+ *                after every update; GROUP lets concurrent updates share one force (group
+ *                commit: the first waiting thread forces everything appended so far while the
+ *                others wait for it); ASYNC returns as soon as the record is written to the
+ *                OS and forces the log in the background, so a power failure can lose the
+ *                last ASYNC_MILLIS of updates, but a crash of the process loses nothing.
+ *                When the log passes a size limit the tree is checkpointed and the log
+ *                emptied, so it stays bounded. Replaying a record sets its element present or
+ *                absent, whatever the tree held before, so replaying a log over a checkpoint
+ *                that already includes it (a crash between the two steps of checkpoint())
+ *                gives the same tree.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with open( base, codec, durability ), which creates the tree if it does not
+// exist; the tree lives in the files base.wal (the log) and base.snap (the checkpoint)
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x and log it; return false if already present
+// boolean remove( x )    --> Remove x and log it; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void sync( )           --> Wait until every update so far is on disk
+// void checkpoint( )     --> Snapshot the tree, then empty the log
+// long getLogBytes( )    --> Return the current length of the log
+// int getReplayed( )     --> Return the number of log records replayed by open()
+// void close( )          --> Sync, then close the log
+// ******************ERRORS********************************
+// open throws IOException for a log or checkpoint that is damaged or of another version; a
+// log that ends in a record cut short or failing its checksum (an update that was never
+// acknowledged) is cut back to the last good record instead. insert and remove throw
+// UncheckedIOException if the log cannot be written or forced, and so does every later
+// update, since the disk may now be behind the tree; reopen the tree to recover. A thread
+// interrupted while it writes or forces the log closes it (FileChannel is interruptible),
+// which fails the log the same way. Throws UnderflowException as appropriate.
+//
+// ******************FILE LAYOUT***************************
+// base.wal   header: magic "TWAL", version (ints)
+//            records: payload length, CRC32 of the payload (ints), then the payload: the
+//            operation (byte: INSERT or REMOVE) and the element, written by the Codec
+// base.snap  a TreeSnapshot of the tree as of the last checkpoint (see AVLTree.save)
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Implements a crash-safe AVL tree, safe for concurrent use (updates and lookups are
+ * serialized; only waiting for the disk is done outside the lock).
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class DurableAVLTree<AnyType extends Comparable<? super AnyType>> implements Closeable {
+    private static final int MAGIC = 0x5457414C;        // "TWAL"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+
+    /** Record operations. */
+    private static final byte INSERT = 1, REMOVE = 2;
+
+    /** Log length at which open() without a limit checkpoints the tree. */
+    public static final long CHECKPOINT_BYTES = 64L << 20;
+
+    /** How often an ASYNC tree forces its log. */
+    public static final long ASYNC_MILLIS = 100;
+
+    /**
+     * When an update is on disk, relative to the update returning.
+     */
+    public enum Durability {
+        /** Forced before the update returns, one force per update. */
+        SYNC,
+        /** Forced before the update returns, one force per group of concurrent updates. */
+        GROUP,
+        /** Written to the OS before the update returns, forced within ASYNC_MILLIS. */
+        ASYNC
+    }
+
+    private final AVLTree<AnyType> tree;
+    private final TreeSnapshot.Codec<AnyType> codec;
+    private final Durability durability;
+    private final long checkpointBytes;
+    private final String snapFile;
+    private final FileChannel log;
+
+    /** Encodes one record at a time; its first RECORD_HEADER bytes are filled in last. */
+    private final RecordBuffer record = new RecordBuffer();
+    private final TreeSnapshot.Writer encoder = TreeSnapshot.Writer.records(record);
+    private final CRC32 crc = new CRC32();
+
+    /** Length of the log, and the records replayed when it was opened. */
+    private long logBytes;
+    private int replayed;
+
+    /** Records appended since open, and how many of them are known to be on disk. */
+    private volatile long appended;
+    private long synced;
+
+    /** Set while one thread forces the log for everyone (guarded by syncLock). */
+    private boolean syncing;
+    private final Object syncLock = new Object();
+
+    /** The first failure to write or force the log; once set, every update fails. */
+    private volatile IOException failure;
+
+    /** Forces the log of an ASYNC tree in the background. */
+    private ScheduledExecutorService flusher;
+
+    private DurableAVLTree( String base, TreeSnapshot.Codec<AnyType> codec, Durability durability,
+                            long checkpointBytes, AVLTree<AnyType> tree ) throws IOException {
+        this.tree = tree;
+        this.codec = codec;
+        this.durability = durability;
+        this.checkpointBytes = checkpointBytes;
+        this.snapFile = base + ".snap";
+        this.log = FileChannel.open(Paths.get(base + ".wal"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Open a tree, creating it if its files do not exist, and checkpoint it whenever its
+     * log reaches CHECKPOINT_BYTES.
+     * @param base the path of the tree, without extension.
+     * @param codec writes and reads the elements, in the log and in checkpoints.
+     * @param durability when updates reach the disk.
+     * @return the tree, as of its last acknowledged update.
+     */
+    public static <T extends Comparable<? super T>> DurableAVLTree<T> open( String base, TreeSnapshot.Codec<T> codec,
+                                                                          Durability durability ) throws IOException {
+        return open(base, codec, durability, CHECKPOINT_BYTES);
+    }
+
+    /**
+     * Open a tree, creating it if its files do not exist.
+     * @param base the path of the tree, without extension.
+     * @param codec writes and reads the elements, in the log and in checkpoints.
+     * @param durability when updates reach the disk.
+     * @param checkpointBytes the log length at which the tree is checkpointed.
+     * @return the tree, as of its last acknowledged update.
+     */
+    public static <T extends Comparable<? super T>> DurableAVLTree<T> open( String base, TreeSnapshot.Codec<T> codec,
+                                                                          Durability durability, long checkpointBytes )
+            throws IOException {
+        AVLTree<T> tree = Files.exists(Paths.get(base + ".snap")) ? AVLTree.load(base + ".snap", codec) : new AVLTree<>();
+        DurableAVLTree<T> t = new DurableAVLTree<>(base, codec, durability, checkpointBytes, tree);
+        try {
+            t.replay(base + ".wal");
+        } catch (IOException | RuntimeException e) {
+            t.log.close();
+            throw e;
+        }
+        if (durability == Durability.ASYNC) {
+            t.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "DurableAVLTree flusher " + base);
+                thread.setDaemon(true);
+                return thread;
+            });
+            t.flusher.scheduleWithFixedDelay(t::flush, ASYNC_MILLIS, ASYNC_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return t;
+    }
+
+    /**
+     * Delete the files of a tree.
+     * @param base the path of the tree, without extension.
+     */
+    public static void delete( String base ) throws IOException {
+        Files.deleteIfExists(Paths.get(base + ".wal"));
+        Files.deleteIfExists(Paths.get(base + ".snap"));
+        Files.deleteIfExists(Paths.get(base + ".snap.tmp"));
+    }
+
+    /**
+     * Insert into the tree and log it; duplicates are ignored and not logged.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if it was already present.
+     */
+    public boolean insert( AnyType x ) {
+        long seq;
+        synchronized (this) {
+            checkFailure();
+            if (!tree.insert(x)) {
+                return false;
+            }
+            seq = log(INSERT, x);
+        }
+        if (durability != Durability.ASYNC) {
+            awaitDurable(seq);
+        }
+        return true;
+    }
+
+    /**
+     * Remove from the tree and log it; nothing is logged if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not present.
+     */
+    public boolean remove( AnyType x ) {
+        long seq;
+        synchronized (this) {
+            checkFailure();
+            if (!tree.remove(x)) {
+                return false;
+            }
+            seq = log(REMOVE, x);
+        }
+        if (durability != Durability.ASYNC) {
+            awaitDurable(seq);
+        }
+        return true;
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public synchronized boolean contains( AnyType x ) {
+        return tree.contains(x);
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item or throw UnderflowException if empty.
+     */
+    public synchronized AnyType findMin( ) {
+        return tree.findMin();
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item or throw UnderflowException if empty.
+     */
+    public synchronized AnyType findMax( ) {
+        return tree.findMax();
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    public synchronized int size( ) {
+        return tree.size();
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    public synchronized boolean isEmpty( ) {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Wait until every update made so far is on disk, whatever the durability.
+     */
+    public void sync( ) {
+        awaitDurable(appended);
+    }
+
+    /**
+     * Write a checkpoint of the tree, then empty the log. The snapshot is forced to disk
+     * before it replaces the last one (see TreeSnapshot.Writer.finish), and the rename is
+     * forced before the log is cut, so a crash at any point leaves either the old checkpoint
+     * and the whole log, or the new checkpoint and records it already holds.
+     */
+    public synchronized void checkpoint( ) throws IOException {
+        checkFailure();
+        tree.save(snapFile, codec);
+        force(Paths.get(snapFile).toAbsolutePath().getParent());
+        log.truncate(HEADER);
+        log.force(false);
+        logBytes = HEADER;
+        synchronized (syncLock) {
+            synced = appended;      // every update so far is in the checkpoint
+            syncLock.notifyAll();
+        }
+    }
+
+    /**
+     * Return the current length of the log, in bytes.
+     */
+    public synchronized long getLogBytes( ) {
+        return logBytes;
+    }
+
+    /**
+     * Return the number of log records that open() replayed over the checkpoint.
+     */
+    public int getReplayed( ) {
+        return replayed;
+    }
+
+    /**
+     * Stop the background flusher, force the log and close it.
+     */
+    @Override
+    public void close( ) throws IOException {
+        if (flusher != null) {
+            // Not shutdownNow(): interrupting a thread in force() would close the log
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (failure == null && log.isOpen()) {
+                log.force(false);
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * Append one record for an update already made to the tree, and checkpoint if the log
+     * has grown past its limit. Called with the tree locked.
+     * @return the sequence number of the record, to wait for.
+     */
+    private long log( byte op, AnyType x ) {
+        try {
+            record.reset();
+            record.write(new byte[RECORD_HEADER], 0, RECORD_HEADER);
+            record.write(op);
+            codec.write(x, encoder);
+            ByteBuffer buf = record.frame(crc);
+            long at = logBytes;
+            while (buf.hasRemaining()) {
+                at += log.write(buf, at);
+            }
+            logBytes = at;
+        } catch (IOException e) {
+            // Take the update back, and cut off whatever part of the record reached the log
+            if (op == INSERT) {
+                tree.remove(x);
+            } else {
+                tree.insert(x);
+            }
+            fail(e);
+            try {
+                log.truncate(logBytes);
+            } catch (IOException ignored) {
+                // the log has failed anyway
+            }
+            throw new UncheckedIOException(e);
+        }
+        long seq = ++appended;
+        if (durability == Durability.SYNC) {
+            forceLog();
+            synchronized (syncLock) {
+                synced = Math.max(synced, seq);
+            }
+        }
+        if (logBytes >= checkpointBytes) {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                fail(e);
+                throw new UncheckedIOException(e);
+            }
+        }
+        return seq;
+    }
+
+    /**
+     * Wait until record seq is on disk. GROUP and SYNC trees use this for group commit: if
+     * no thread is forcing the log, this thread forces it for every record appended so far;
+     * otherwise it waits for that force, and forces again if it did not cover seq. An ASYNC
+     * tree only waits when sync() asks it to.
+     */
+    private void awaitDurable( long seq ) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                long target;
+                synchronized (syncLock) {
+                    while (syncing && synced < seq) {
+                        try {
+                            syncLock.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;     // the update is made; it still has to be durable
+                        }
+                    }
+                    if (synced >= seq) {
+                        return;
+                    }
+                    checkFailure();
+                    syncing = true;
+                    target = appended;
+                }
+                try {
+                    forceLog();
+                } finally {
+                    synchronized (syncLock) {
+                        syncing = false;
+                        if (failure == null) {
+                            synced = Math.max(synced, target);
+                        }
+                        syncLock.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Force the log for the background flusher of an ASYNC tree; a failure is kept for the
+     * next update to report.
+     */
+    private void flush( ) {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            // recorded in failure
+        }
+    }
+
+    private void forceLog( ) {
+        try {
+            log.force(false);
+        } catch (IOException e) {
+            fail(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void fail( IOException e ) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private void checkFailure( ) {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("write-ahead log failed earlier", e);
+        }
+    }
+
+    /**
+     * Read the log and apply its records to the tree, writing the header of a new log and
+     * cutting back a log whose last record is incomplete.
+     */
+    private void replay( String file ) throws IOException {
+        long size = log.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                log.write(header, header.position());
+            }
+            log.force(true);
+            force(Paths.get(file).toAbsolutePath().getParent());
+            logBytes = HEADER;
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(file + " is larger than 2 GB");
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        while (buf.hasRemaining() && log.read(buf, buf.position()) >= 0) {
+            // read the whole log
+        }
+        buf.flip();
+        if (buf.limit() < HEADER || buf.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a write-ahead log");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException(file + " has unsupported version " + buf.getInt(4));
+        }
+        int at = HEADER;
+        while (buf.limit() - at >= RECORD_HEADER) {
+            int length = buf.getInt(at);
+            if (length < 1 || length > buf.limit() - at - RECORD_HEADER) {
+                break;      // cut short
+            }
+            ByteBuffer payload = buf.duplicate();
+            payload.limit(at + RECORD_HEADER + length).position(at + RECORD_HEADER);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buf.getInt(at + 4)) {
+                break;      // torn
+            }
+            apply(file, at, payload);
+            at += RECORD_HEADER + length;
+            replayed++;
+        }
+        if (at < size) {
+            log.truncate(at);
+            log.force(false);
+        }
+        logBytes = at;
+    }
+
+    /**
+     * Apply one checksummed log record to the tree.
+     */
+    private void apply( String file, int at, ByteBuffer payload ) throws IOException {
+        try {
+            byte op = payload.get();
+            AnyType x = codec.read(TreeSnapshot.Reader.records(payload));
+            if (payload.hasRemaining()) {
+                throw new IOException(file + " is damaged (record at " + at + " is longer than its element)");
+            }
+            if (op == INSERT) {
+                tree.insert(x);
+            } else if (op == REMOVE) {
+                tree.remove(x);
+            } else {
+                throw new IOException(file + " is damaged (unknown operation " + op + " at " + at + ")");
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is damaged (record at " + at + " is shorter than its element)");
+        }
+    }
+
+    /**
+     * Force a file, or a directory so that a file created or renamed in it is kept. Not
+     * every platform can open a directory; there the rename is left to the file system.
+     */
+    private static void force( Path path ) throws IOException {
+        boolean directory = Files.isDirectory(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!directory) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The bytes of the record being encoded, framed in place once it is complete.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        /**
+         * Fill in the record header (payload length and CRC32) and return the record.
+         */
+        ByteBuffer frame( CRC32 crc ) {
+            int length = count - RECORD_HEADER;
+            crc.reset();
+            crc.update(buf, RECORD_HEADER, length);
+            ByteBuffer framed = ByteBuffer.wrap(buf, 0, count);
+            framed.putInt(0, length);
+            framed.putInt(4, (int) crc.getValue());
+            return framed;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**********************************************************************************************
+ * @file : IndexedVillagerTree.java
+ * @description : An AVLTree of Villagers with secondary indexes on personality, hobby and
+ *                favorite song, so queries on those fields do not scan the whole tree. Every
+ *                villager in the tree gets a slot number; each personality and each hobby
+ *                has a bitmap of the slots that hold it, and a sorted map from song rank to a
+ *                bitmap does the same for favorite songs. A conjunctive query ("Lazy villagers
+ *                who like Nature") is the intersection of a few bitmaps, 64 slots per word.
+ *                A hash index from name to slot finds a villager by name alone in O(1). The
+ *                indexes are updated by the same insert() and remove() that change the tree,
+ *                so they always agree with it.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
+ * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( v )    --> Insert v and index it; return false if its name is taken
+// boolean remove( v )    --> Remove v and unindex it; return true if v was present
+// boolean contains( v )  --> Return true if v is present
+// Villager findByName( name ) --> Return the villager with that name, or null
+// Villager removeByName( name ) --> Remove the villager with that name; return it, or null
+// int size( )            --> Return number of villagers
+// List find( personality, hobby ) --> Return the villagers with both, in tree order
+// List find( personality, hobby, bestRank, worstRank ) --> Same, with a song rank in range
+// List withFavSong( song ) --> Return the villagers whose favorite song it is
+// int count( personality, hobby ) --> Return the number of villagers with both
+// Iterator iterator( )   --> Return an iterator over the villagers in tree order
+// void makeEmpty( )      --> Remove all villagers
+// ******************ERRORS********************************
+// A null personality or hobby in a query matches any value
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class IndexedVillagerTree implements Iterable<Villager> {
+    //The primary index, in compareTo order
+    private final AVLTree<Villager> tree = new AVLTree<>();
+
+    //slots[i] is the villager in slot i, or null if the slot is free
+    private final ArrayList<Villager> slots = new ArrayList<>();
+
+    //Slots in use; a freed slot is reused by the next insert
+    private final BitSet live = new BitSet();
+
+    //Name index: name -> slot; names are unique within the tree
+    private final HashMap<String, Integer> byName = new HashMap<>();
+
+    //Secondary indexes: field value -> bitmap of the slots holding it
+    private final HashMap<String, BitSet> byPersonality = new HashMap<>();
+    private final HashMap<String, BitSet> byHobby = new HashMap<>();
+    private final TreeMap<Integer, BitSet> bySongRank = new TreeMap<>();
+
+    /**
+     * Insert a villager into the tree and the indexes. A villager's name identifies it, so
+     * v is ignored if a villager of the same name is already present, equal to v or not.
+     * @param v the villager to insert.
+     * @return true if v was inserted, false if its name was already taken.
+     */
+    public boolean insert( Villager v ) {
+        if (byName.containsKey(v.getName()) || !tree.insert(v)) {
+            return false;
+        }
+        int slot = live.nextClearBit(0);
+        if (slot == slots.size()) {
+            slots.add(v);
+        } else {
+            slots.set(slot, v);
+        }
+        live.set(slot);
+        byName.put(v.getName(), slot);
+        bitmap(byPersonality, v.getPersonality()).set(slot);
+        bitmap(byHobby, v.getHobby()).set(slot);
+        bySongRank.computeIfAbsent(v.getSongRank(), k -> new BitSet()).set(slot);
+        return true;
+    }
+
+    /**
+     * Remove a villager from the tree and the indexes. Nothing is done if v is not found.
+     * @param v the villager to remove.
+     * @return true if v was removed, false if it was not in the tree.
+     */
+    public boolean remove( Villager v ) {
+        Integer slot = byName.get(v.getName());
+        if (slot == null || slots.get(slot).compareTo(v) != 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Find a villager by name, with one hash lookup and no tree descent.
+     * @param name the name to search for.
+     * @return the villager with that name, or null if there is none.
+     */
+    public Villager findByName( String name ) {
+        Integer slot = byName.get(name);
+        return slot == null ? null : slots.get(slot);
+    }
+
+    /**
+     * Remove a villager by name. The name index gives the stored villager, whose full
+     * key then removes it from the tree.
+     * @param name the name of the villager to remove.
+     * @return the villager removed, or null if there was none of that name.
+     */
+    public Villager removeByName( String name ) {
+        Integer slot = byName.get(name);
+        if (slot == null) {
+            return null;
+        }
+        Villager stored = slots.get(slot);
+        removeSlot(slot);
+        return stored;
+    }
+
+    /**
+     * Remove the villager in a slot from the tree and every index, and free the slot.
+     */
+    private void removeSlot( int slot ) {
+        Villager stored = slots.get(slot);
+        tree.remove(stored);
+        slots.set(slot, null);
+        live.clear(slot);
+        byName.remove(stored.getName());
+        clear(byPersonality, stored.getPersonality(), slot);
+        clear(byHobby, stored.getHobby(), slot);
+        clear(bySongRank, stored.getSongRank(), slot);
+    }
+
+    /**
+     * Find a villager in the tree.
+     * @param v the villager to search for.
+     * @return true if v is found.
+     */
+    public boolean contains( Villager v ) {
+        return tree.contains(v);
+    }
+
+    /**
+     * Return the number of villagers in the tree.
+     */
+    public int size( ) {
+        return tree.size();
+    }
+
+    /**
+     * Return the villagers with a personality and a hobby, in tree order.
+     * @param personality the personality, or null for any.
+     * @param hobby the hobby, or null for any.
+     */
+    public List<Villager> find( String personality, String hobby ) {
+        return villagers(match(personality, hobby));
+    }
+
+    /**
+     * Return the villagers with a personality and a hobby whose favorite song ranks from
+     * bestRank to worstRank, inclusive, in tree order. The song ranks in range are read
+     * from the sorted song index, and their bitmaps are merged before the intersection.
+     * @param personality the personality, or null for any.
+     * @param hobby the hobby, or null for any.
+     * @param bestRank the best (smallest) song rank to match.
+     * @param worstRank the worst (largest) song rank to match.
+     */
+    public List<Villager> find( String personality, String hobby, int bestRank, int worstRank ) {
+        BitSet songs = new BitSet();
+        if (bestRank <= worstRank) {
+            for (BitSet b : bySongRank.subMap(bestRank, true, worstRank, true).values()) {
+                songs.or(b);
+            }
+        }
+        BitSet result = match(personality, hobby);
+        result.and(songs);
+        return villagers(result);
+    }
+
+    /**
+     * Return the villagers whose favorite song is song, in tree order.
+     * @param song the song; an unranked song matches the villagers with unranked songs.
+     */
+    public List<Villager> withFavSong( String song ) {
+        BitSet b = bySongRank.get(SongRanking.current().rankOf(song));
+        return villagers(b == null ? new BitSet() : b);
+    }
+
+    /**
+     * Return the number of villagers with a personality and a hobby, without collecting them.
+     * @param personality the personality, or null for any.
+     * @param hobby the hobby, or null for any.
+     */
+    public int count( String personality, String hobby ) {
+        return match(personality, hobby).cardinality();
+    }
+
+    /**
+     * Return an iterator over the villagers in tree order. The tree must not be changed
+     * while it is being iterated.
+     */
+    @Override
+    public Iterator<Villager> iterator( ) {
+        return tree.iterator();
+    }
+
+    /**
+     * Remove all villagers from the tree and the indexes.
+     */
+    public void makeEmpty( ) {
+        tree.makeEmpty();
+        slots.clear();
+        live.clear();
+        byName.clear();
+        byPersonality.clear();
+        byHobby.clear();
+        bySongRank.clear();
+    }
+
+    /**
+     * Return a new bitmap of the slots with a personality and a hobby. A null value matches
+     * any; a value no villager has matches none.
+     */
+    private BitSet match( String personality, String hobby ) {
+        BitSet result = (BitSet) live.clone();
+        if (personality != null) {
+            result.and(byPersonality.getOrDefault(personality, new BitSet()));
+        }
+        if (hobby != null) {
+            result.and(byHobby.getOrDefault(hobby, new BitSet()));
+        }
+        return result;
+    }
+
+    /**
+     * Return the villagers in the slots of a bitmap, sorted into tree order.
+     */
+    private List<Villager> villagers( BitSet b ) {
+        List<Villager> result = new ArrayList<>(b.cardinality());
+        for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+            result.add(slots.get(i));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Return the bitmap of a field value, creating an empty one if there is none yet.
+     */
+    private static BitSet bitmap( HashMap<String, BitSet> index, String value ) {
+        return index.computeIfAbsent(value, k -> new BitSet());
+    }
+
+    /**
+     * Clear a slot from the bitmap of a field value, and drop the bitmap once it is empty.
+     */
+    private static <K> void clear( Map<K, BitSet> index, K value, int slot ) {
+        BitSet b = index.get(value);
+        b.clear(slot);
+        if (b.isEmpty()) {
+            index.remove(value);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/**********************************************************************************************
+ * @file : IntAVLTree.java
+ * @description : AVL Tree of primitive int keys. Nodes are slots in parallel arrays (key,
+ *                left child, right child, height) instead of objects, so there is no boxing
+ *                and no per-node object header. Removed slots go on a free list and are
+ *                reused, so once the arrays have grown to the working size an insert
+ *                allocates nothing. Public methods mirror AVLTree's.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer, or with an initial capacity
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// int findMin( )         --> Return smallest item
+// int findMax( )         --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate
+
+import java.util.Arrays;
+
+/**
+ * Implements an AVL tree of int keys, stored in parallel arrays.
+ */
+public class IntAVLTree {
+    /** Index standing for "no node". */
+    private static final int NIL = -1;
+
+    private static final int ALLOWED_IMBALANCE = 1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Node slot i is keys[i], left[i], right[i] and height[i]
+    private int[] keys;
+    private int[] left;
+    private int[] right;
+    private int[] height;
+
+    /** The tree root. */
+    private int root;
+
+    /** Number of slots ever handed out; slots at or past this are unused. */
+    private int used;
+
+    /** Head of the list of freed slots, chained through left[]. */
+    private int free;
+
+    /** Number of items in the tree. */
+    private int size;
+
+    /** Set by the internal insert/remove when the tree changed. */
+    private boolean changed;
+
+    /**
+     * Construct the tree.
+     */
+    public IntAVLTree( ) {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Construct the tree with room for capacity items before the arrays grow.
+     * @param capacity the initial capacity.
+     */
+    public IntAVLTree( int capacity ) {
+        capacity = Math.max(capacity, 1);
+        keys = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new int[capacity];
+        makeEmpty();
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if it was already present.
+     */
+    public boolean insert( int x ) {
+        changed = false;
+        root = insert( x, root );
+        if (changed) {
+            size++;
+        }
+        return changed;
+    }
+
+    /**
+     * Internal method to insert into a subtree.
+     * @param x the item to insert.
+     * @param t the slot that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private int insert( int x, int t ) {
+        if (t == NIL) {
+            changed = true;
+            return newNode(x);
+        }
+        if (x < keys[t]) {
+            left[t] = insert(x, left[t]);
+        } else if (x > keys[t]) {
+            right[t] = insert(x, right[t]);
+        } else {
+            return t;       // duplicate; nothing changes on the way back up
+        }
+        return balance(t);
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed.
+     */
+    public boolean remove( int x ) {
+        changed = false;
+        root = remove( x, root );
+        if (changed) {
+            size--;
+        }
+        return changed;
+    }
+
+    /**
+     * Internal method to remove from a subtree.
+     * @param x the item to remove.
+     * @param t the slot that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private int remove( int x, int t ) {
+        if (t == NIL) {
+            return t;
+        }
+        if (x < keys[t]) {
+            left[t] = remove(x, left[t]);
+        } else if (x > keys[t]) {
+            right[t] = remove(x, right[t]);
+        } else if (left[t] != NIL && right[t] != NIL) {
+            // case: both children -> take the minimum of the right subtree, then remove it there
+            keys[t] = keys[findMin(right[t])];
+            right[t] = remove(keys[t], right[t]);
+        } else {
+            // case: leaf and case: one child
+            int child = left[t] != NIL ? left[t] : right[t];
+            freeNode(t);
+            changed = true;
+            return child;
+        }
+        return balance(t);
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains( int x ) {
+        int t = root;
+        while (t != NIL) {
+            if (x < keys[t]) {
+                t = left[t];
+            } else if (x > keys[t]) {
+                t = right[t];
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    public int findMin( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        return keys[findMin( root )];
+    }
+
+    /**
+     * Internal method to find the smallest item in a subtree.
+     * @return slot of the smallest item.
+     */
+    private int findMin( int t ) {
+        while (left[t] != NIL) {
+            t = left[t];
+        }
+        return t;
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    public int findMax( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        int t = root;
+        while (right[t] != NIL) {
+            t = right[t];
+        }
+        return keys[t];
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    public boolean isEmpty( ) {
+        return root == NIL;
+    }
+
+    /**
+     * Make the tree logically empty. The arrays are kept for reuse.
+     */
+    public void makeEmpty( ) {
+        root = NIL;
+        free = NIL;
+        used = 0;
+        size = 0;
+    }
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    public void printTree( ) {
+        if( isEmpty( ) )
+            System.out.println( "Empty tree" );
+        else
+            printTree( root );
+    }
+
+    /**
+     * Internal method to print a subtree in (sorted) order.
+     */
+    private void printTree( int t ) {
+        if (t == NIL) {
+            return;
+        }
+        printTree(left[t]);
+        System.out.println(keys[t]);
+        printTree(right[t]);
+    }
+
+    /**
+     * Verifies that the tree is indeed balanced.
+     */
+    public void checkBalance( ) {
+        checkBalance( root );
+    }
+
+    private int checkBalance( int t ) {
+        if( t == NIL )
+            return -1;
+
+        int hl = checkBalance( left[t] );
+        int hr = checkBalance( right[t] );
+        if( Math.abs( height( left[t] ) - height( right[t] ) ) > 1 )
+            System.out.println( "OOPS!! 1" );
+        if( height( left[t] ) != hl )
+            System.out.println( "OOPS!! 2" );
+        if( height( right[t] ) != hr )
+            System.out.println( "OOPS!! 3" );
+
+        return height( t );
+    }
+
+    /**
+     * Return the height of slot t, or -1, if NIL.
+     */
+    private int height( int t ) {
+        return t == NIL ? -1 : height[t];
+    }
+
+    /**
+     * Rebalance the subtree rooted at t, which is either balanced or within one of being balanced.
+     * @return the new root of the subtree.
+     */
+    private int balance( int t ) {
+        int l = left[t];
+        int r = right[t];
+        if (height(l) - height(r) > ALLOWED_IMBALANCE) {
+            if (height(left[l]) >= height(right[l])) {
+                t = rotateWithLeftChild(t);
+            } else {
+                left[t] = rotateWithRightChild(l);
+                t = rotateWithLeftChild(t);
+            }
+        } else if (height(r) - height(l) > ALLOWED_IMBALANCE) {
+            if (height(right[r]) >= height(left[r])) {
+                t = rotateWithRightChild(t);
+            } else {
+                right[t] = rotateWithLeftChild(r);
+                t = rotateWithRightChild(t);
+            }
+        } else {
+            height[t] = Math.max(height(l), height(r)) + 1;
+        }
+        return t;
+    }
+
+    /**
+     * Rotate slot k2 with its left child; update the two heights that change.
+     * @return the new root of the subtree.
+     */
+    private int rotateWithLeftChild( int k2 ) {
+        int k1 = left[k2];
+        left[k2] = right[k1];
+        right[k1] = k2;
+        height[k2] = Math.max(height(left[k2]), height(right[k2])) + 1;
+        height[k1] = Math.max(height(left[k1]), height[k2]) + 1;
+        return k1;
+    }
+
+    /**
+     * Rotate slot k1 with its right child; update the two heights that change.
+     * @return the new root of the subtree.
+     */
+    private int rotateWithRightChild( int k1 ) {
+        int k2 = right[k1];
+        right[k1] = left[k2];
+        left[k2] = k1;
+        height[k1] = Math.max(height(left[k1]), height(right[k1])) + 1;
+        height[k2] = Math.max(height(right[k2]), height[k1]) + 1;
+        return k2;
+    }
+
+    /**
+     * Take a slot from the free list, or the next unused slot, growing the arrays if needed.
+     * @return the slot, initialized as a leaf holding x.
+     */
+    private int newNode( int x ) {
+        int t;
+        if (free != NIL) {
+            t = free;
+            free = left[t];
+        } else {
+            if (used == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                height = Arrays.copyOf(height, capacity);
+            }
+            t = used++;
+        }
+        keys[t] = x;
+        left[t] = NIL;
+        right[t] = NIL;
+        height[t] = 0;
+        return t;
+    }
+
+    /**
+     * Put a slot on the free list.
+     */
+    private void freeNode( int t ) {
+        left[t] = free;
+        free = t;
+    }
+}
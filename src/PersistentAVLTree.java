@@ -0,0 +1,348 @@
+/**********************************************************************************************
+ * @file : PersistentAVLTree.java
+ * @description : AVL Tree whose nodes are never changed once built. An insert or remove
+ *                copies only the nodes on the path from the root to the change (and the few
+ *                a rotation touches), shares every other node with the previous version, and
+ *                then publishes the new root. Old roots stay valid, so snapshot() hands out a
+ *                frozen, consistent view of the tree in constant time, and readers of a
+ *                snapshot never see a batch of updates half applied.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// PersistentAVLTree snapshot( ) --> Return a frozen view of the current version
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// boolean isFrozen( )    --> Return true if this is a snapshot
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate, and UnsupportedOperationException when a
+// snapshot is changed
+
+/**
+ * Implements a persistent AVL tree.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class PersistentAVLTree<AnyType extends Comparable<? super AnyType>> {
+    private static final int ALLOWED_IMBALANCE = 1;
+
+    /** The root of the current version; read once by each lookup, so lookups need no lock. */
+    private volatile AvlNode<AnyType> root;
+
+    /** Number of items in the current version. */
+    private volatile int size;
+
+    /** Whether this is a snapshot, which cannot be changed. */
+    private final boolean frozen;
+
+    /**
+     * Construct the tree.
+     */
+    public PersistentAVLTree( ) {
+        this( null, 0, false );
+    }
+
+    private PersistentAVLTree( AvlNode<AnyType> root, int size, boolean frozen ) {
+        this.root = root;
+        this.size = size;
+        this.frozen = frozen;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored. Writers are serialized; readers are not
+     * blocked, and see either the old version or the new one.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    public synchronized boolean insert( AnyType x ) {
+        checkNotFrozen();
+        AvlNode<AnyType> t = root;
+        AvlNode<AnyType> newRoot = insert( x, t );
+        if (newRoot == t) {
+            return false;
+        }
+        root = newRoot;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed.
+     */
+    public synchronized boolean remove( AnyType x ) {
+        checkNotFrozen();
+        AvlNode<AnyType> t = root;
+        AvlNode<AnyType> newRoot = remove( x, t );
+        if (newRoot == t) {
+            return false;
+        }
+        root = newRoot;
+        size--;
+        return true;
+    }
+
+    /**
+     * Return a frozen view of the current version of the tree. Later changes to this tree
+     * do not show in the snapshot. Takes constant time and copies nothing.
+     */
+    public synchronized PersistentAVLTree<AnyType> snapshot( ) {
+        return frozen ? this : new PersistentAVLTree<>( root, size, true );
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    public boolean contains( AnyType x ) {
+        AvlNode<AnyType> t = root;
+        while (t != null) {
+            int cmp = t.element.compareTo(x);
+            if (cmp == 0) {
+                return true;
+            }
+            t = cmp > 0 ? t.left : t.right;
+        }
+        return false;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    public AnyType findMin( ) {
+        AvlNode<AnyType> t = root;
+        if( t == null )
+            throw new UnderflowException( );
+        return findMin( t ).element;
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    public AnyType findMax( ) {
+        AvlNode<AnyType> t = root;
+        if( t == null )
+            throw new UnderflowException( );
+        while (t.right != null) {
+            t = t.right;
+        }
+        return t.element;
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    public boolean isEmpty( ) {
+        return root == null;
+    }
+
+    /**
+     * Test if this tree is a snapshot, which cannot be changed.
+     */
+    public boolean isFrozen( ) {
+        return frozen;
+    }
+
+    /**
+     * Make the tree logically empty. Snapshots taken earlier keep their items.
+     */
+    public synchronized void makeEmpty( ) {
+        checkNotFrozen();
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    public void printTree( ) {
+        AvlNode<AnyType> t = root;
+        if( t == null )
+            System.out.println( "Empty tree" );
+        else
+            printTree( t );
+    }
+
+    /**
+     * Internal method to print a subtree in (sorted) order.
+     */
+    private void printTree( AvlNode<AnyType> t ) {
+        if (t == null) {
+            return;
+        }
+        printTree(t.left);
+        System.out.println(t.element);
+        printTree(t.right);
+    }
+
+    /**
+     * Verifies that the tree is indeed balanced.
+     */
+    public void checkBalance( ) {
+        checkBalance( root );
+    }
+
+    private int checkBalance( AvlNode<AnyType> t ) {
+        if( t == null )
+            return -1;
+
+        int hl = checkBalance( t.left );
+        int hr = checkBalance( t.right );
+        if( Math.abs( height( t.left ) - height( t.right ) ) > 1 )
+            System.out.println( "OOPS!! 1" );
+        if( height( t.left ) != hl )
+            System.out.println( "OOPS!! 2" );
+        if( height( t.right ) != hr )
+            System.out.println( "OOPS!! 3" );
+
+        return height( t );
+    }
+
+    private void checkNotFrozen( ) {
+        if (frozen) {
+            throw new UnsupportedOperationException("snapshot: a snapshot cannot be changed");
+        }
+    }
+
+    /**
+     * Internal method to insert into a subtree by copying the path to x.
+     * @param x the item to insert.
+     * @param t the node that roots the subtree.
+     * @return the root of the new version of the subtree, or t itself if x was already present.
+     */
+    private AvlNode<AnyType> insert( AnyType x, AvlNode<AnyType> t ) {
+        if (t == null) {
+            return new AvlNode<>(x, null, null);
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            AvlNode<AnyType> l = insert(x, t.left);
+            return l == t.left ? t : balance(t.element, l, t.right);
+        } else if (cmp < 0) {
+            AvlNode<AnyType> r = insert(x, t.right);
+            return r == t.right ? t : balance(t.element, t.left, r);
+        }
+        return t;       // duplicate; nothing is copied
+    }
+
+    /**
+     * Internal method to remove from a subtree by copying the path to x.
+     * @param x the item to remove.
+     * @param t the node that roots the subtree.
+     * @return the root of the new version of the subtree, or t itself if x was not found.
+     */
+    private AvlNode<AnyType> remove( AnyType x, AvlNode<AnyType> t ) {
+        if (t == null) {
+            return t;
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            AvlNode<AnyType> l = remove(x, t.left);
+            return l == t.left ? t : balance(t.element, l, t.right);
+        } else if (cmp < 0) {
+            AvlNode<AnyType> r = remove(x, t.right);
+            return r == t.right ? t : balance(t.element, t.left, r);
+        }
+        // case: leaf and case: one child
+        if (t.left == null) {
+            return t.right;
+        }
+        if (t.right == null) {
+            return t.left;
+        }
+        // case: both children -> the minimum of the right subtree takes t's place
+        return balance(findMin(t.right).element, t.left, removeMin(t.right));
+    }
+
+    /**
+     * Internal method to remove the smallest item of a subtree by copying the path to it.
+     * @return the root of the new version of the subtree.
+     */
+    private AvlNode<AnyType> removeMin( AvlNode<AnyType> t ) {
+        if (t.left == null) {
+            return t.right;
+        }
+        return balance(t.element, removeMin(t.left), t.right);
+    }
+
+    /**
+     * Internal method to find the smallest item in a subtree.
+     * @return node containing the smallest item.
+     */
+    private AvlNode<AnyType> findMin( AvlNode<AnyType> t ) {
+        while (t.left != null) {
+            t = t.left;
+        }
+        return t;
+    }
+
+    /**
+     * Return the height of node t, or -1, if null.
+     */
+    private int height( AvlNode<AnyType> t ) {
+        return t == null ? -1 : t.height;
+    }
+
+    /**
+     * Build a new node holding x over l and r, which are AVL trees whose heights differ by at
+     * most two, rotating if they differ by two. Rotations build new nodes too, so l and r are
+     * never changed.
+     * @return the root of the new, balanced subtree.
+     */
+    private AvlNode<AnyType> balance( AnyType x, AvlNode<AnyType> l, AvlNode<AnyType> r ) {
+        if (height(l) - height(r) > ALLOWED_IMBALANCE) {
+            if (height(l.left) >= height(l.right)) {
+                // single rotation: l's element becomes the root
+                return new AvlNode<>(l.element, l.left, new AvlNode<>(x, l.right, r));
+            }
+            // double rotation: the element of l's right child becomes the root
+            AvlNode<AnyType> lr = l.right;
+            return new AvlNode<>(lr.element, new AvlNode<>(l.element, l.left, lr.left),
+                    new AvlNode<>(x, lr.right, r));
+        }
+        if (height(r) - height(l) > ALLOWED_IMBALANCE) {
+            if (height(r.right) >= height(r.left)) {
+                return new AvlNode<>(r.element, new AvlNode<>(x, l, r.left), r.right);
+            }
+            AvlNode<AnyType> rl = r.left;
+            return new AvlNode<>(rl.element, new AvlNode<>(x, l, rl.left),
+                    new AvlNode<>(r.element, rl.right, r.right));
+        }
+        return new AvlNode<>(x, l, r);
+    }
+
+    private static class AvlNode<AnyType> {
+        AvlNode( AnyType theElement, AvlNode<AnyType> lt, AvlNode<AnyType> rt ) {
+            element = theElement;
+            left    = lt;
+            right   = rt;
+            height  = 1 + Math.max(lt == null ? -1 : lt.height, rt == null ? -1 : rt.height);
+        }
+
+        final AnyType           element;      // The data in the node
+        final AvlNode<AnyType>  left;         // Left child
+        final AvlNode<AnyType>  right;        // Right child
+        final int               height;       // Height
+    }
+}
@@ -1,11 +1,18 @@
 /**********************************************************************************************
  * @file : Proj2.java
- * @description : Inserts a number of Villagers into two AVlTrees and BSTrees, each of which
- *                handle a randomized or a sorted dataset. The time in nanoseconds needed to
- *                complete insert and search operations for each of the four trees is displayed
- *                on the screen and printed in "output.txt" in CSV format. This file takes the
- *                filepath of the input pile, villagers.csv, and the numver of lines to be read
- *                from the file (up to 392).
+ * @description : Inserts a number of Villagers into two of each tree (BSTree, AVLTree, BPlusTree,
+ *                RedBlackTree, Treap and WAVLTree), one for a randomized and one for a sorted
+ *                dataset. The time in nanoseconds needed to complete insert and search
+ *                operations for each of the trees is displayed on the screen and written to
+ *                "output.csv" and "output.json" (see TreeBenchmark for the format). This file
+ *                takes the filepath of the input pile, villagers.csv, and the numver of lines
+ *                to be read from the file, optionally followed by a song ranking file (see
+ *                SongRanking). Past the 392 villagers in the file, the dataset is generated
+ *                with the same distributions (see VillagerGenerator), one villager at a time
+ *                as the trees read it. A plain BST takes quadratic time on sorted input, so
+ *                above BST_SORTED_LIMIT villagers a guarded BST is timed in its place for the
+ *                sorted dataset. Each timing is the warmed-up mean of several passes measured
+ *                by TreeBenchmark, which also runs the full benchmark suite.
  * @author : Ella Shipman
  * @date : October 18, 2025
  * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
@@ -14,167 +21,192 @@
 
 
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Scanner;
 import java.util.Collections;
+import java.util.List;
 
 public class Proj2 {
+    //The trees timed, by TreeBenchmark structure name, and their labels on screen
+    private static final String[] STRUCTURES = {"BSTree", "AVLTree", "BPlusTree", "RedBlackTree", "Treap", "WAVLTree"};
+    private static final String[] LABELS = {"BST", "AVL", "B+", "RB", "Treap", "WAVL"};
+    private static final int BST = 0;
+    //Above this many villagers, the sorted dataset times a guarded BST instead of the plain one,
+    //whose sorted passes take quadratic time (minutes at 10^5 villagers, days at 10^7)
+    private static final int BST_SORTED_LIMIT = 20000;
+    //Results of each run are written to OUTPUT.csv and OUTPUT.json, replacing the last run's
+    private static final String OUTPUT = "src/output";
+    //Seed of generated datasets, so that every run times the same villagers
+    private static final long SEED = 2025;
+
     public static void main(String[] args) throws IOException {
         // Use command line arguments to specify the input file
-        if (args.length != 2) {
-            System.err.println("Usage: java TestAVL <input file> <number of lines>");
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: java Proj2 <input file> <number of lines> [song ranking file]");
             System.exit(1);
         }
 
         String inputFileName = args[0];
         int numLines = Integer.parseInt(args[1]);
 
-        // For file input
-        FileInputStream inputFileNameStream = null;
-        Scanner inputFileNameScanner = null;
-
-        // Open the input file
-        inputFileNameStream = new FileInputStream(inputFileName);
-        inputFileNameScanner = new Scanner(inputFileNameStream);
-
-        // ignore first line
-        inputFileNameScanner.nextLine();
+        // Optionally rank favorite songs by a ranking file instead of the built-in ranking
+        if (args.length == 3) {
+            SongRanking.use(SongRanking.load(args[2]));
+        }
 
         //Read file and fill out arraylist of datatype Villager
-        ArrayList<Villager> villagers = new ArrayList<>();
-        String currLine = null;
-        for (int i=2; i <= numLines; i++) {
-            currLine = inputFileNameScanner.nextLine();     //get next line in file
-            String[] villInfo = null;
-            if (!currLine.isEmpty()) {
-                villInfo = currLine.split(",");
-            }
-            String[] shortInfo = new String[4];
-            shortInfo[0] = villInfo[0];     //name
-            shortInfo[1] = villInfo[3];     //personality
-            shortInfo[2] = villInfo[4];     //hobby
-            shortInfo[3] = villInfo[7];     //favorite song
-
-            Villager v = null;
-            try {
-                v = new Villager(shortInfo[0], shortInfo[1], shortInfo[2], shortInfo[3]);
-            } catch (ArrayIndexOutOfBoundsException e) {}
-
-            if (shortInfo[1] != null) {         //add object to villagers list
-                villagers.add(v);
-            } else {
-                System.out.println("insert failed - line " + i);
-            }
+        ArrayList<Villager> read = readVillagers(inputFileName, numLines);
+        List<Villager> villagers = read;
+
+        //Past the end of the file, generate the dataset from the villagers read
+        VillagerGenerator generator = null;
+        if (numLines - 1 > read.size()) {
+            generator = VillagerGenerator.from(read);
+            villagers = generator.villagers(numLines - 1, VillagerGenerator.Order.RANDOM, SEED);
         }
 
-        //Shuffling the list ----------------------------------------------------------------------------------
-        Collections.shuffle(villagers);
-
-        //Initialize AVL and BST trees
-        AVLTree<Villager> AVL_Villagers_Rand = new AVLTree<>();     //Randomized dataset AVL
-        BSTree<Villager> BST_Villagers_Rand = new BSTree<>();       //Randomized dataset BST
-        AVLTree<Villager> AVL_Villagers_Sort = new AVLTree<>();     //Sorted dataset AVL
-        BSTree<Villager> BST_Villagers_Sort = new BSTree<>();       //Sorted dataset BST
-
-        //Insert - Randomized dataset AVL
-        long AVLRandInsertStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            AVL_Villagers_Rand.insert(villagers.get(i));
-        }
-        long AVLRandInsertEnd = System.nanoTime();
-        long AVLRandInsert = AVLRandInsertEnd - AVLRandInsertStart;
+        // Each phase is timed by TreeBenchmark: warmup passes first, then the mean of several
+        // measured passes, each on a fresh tree (see TreeBenchmark for the full JMH-style suite)
 
-        //Insert - Randomized dataset BST
-        long BSTRandInsertStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            BST_Villagers_Rand.insert(villagers.get(i));
+        //Shuffling the list ----------------------------------------------------------------------------------
+        if (generator == null) {
+            Collections.shuffle(villagers);
         }
-        long BSTRandInsertEnd = System.nanoTime();
-        long BSTRandInsert = BSTRandInsertEnd - BSTRandInsertStart;
 
-        //Search - Randomized dataset AVL
-        long AVLRandSearchStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            AVL_Villagers_Rand.contains(villagers.get(i));
+        //Insert and search - Randomized dataset, every tree
+        long[] randInsert = new long[STRUCTURES.length];
+        long[] randSearch = new long[STRUCTURES.length];
+        for (int i = 0; i < STRUCTURES.length; i++) {
+            randInsert[i] = TreeBenchmark.averageNanos(STRUCTURES[i], "insert", villagers);
         }
-        long AVLRandSearchEnd = System.nanoTime();
-        long AVLRandSearch = AVLRandSearchEnd - AVLRandSearchStart;
-
-        //Search - Randomized dataset BST
-        long BSTRandSearchStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            BST_Villagers_Rand.contains(villagers.get(i));
+        for (int i = 0; i < STRUCTURES.length; i++) {
+            randSearch[i] = TreeBenchmark.averageNanos(STRUCTURES[i], "contains", villagers);
         }
-        long BSTRandSearchEnd = System.nanoTime();
-        long BSTRandSearch = BSTRandSearchEnd - BSTRandSearchStart;
         //--------------------------------------------------------------------------------------------------------------
 
         //Sort dataset (ascending)
-        Collections.sort(villagers);
-
-        //Insert - Sorted dataset AVL
-        long AVLSortInsertStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            AVL_Villagers_Sort.insert(villagers.get(i));
+        if (generator == null) {
+            Collections.sort(villagers);
+        } else {
+            villagers = generator.villagers(numLines - 1, VillagerGenerator.Order.SORTED, SEED);
         }
-        long AVLSortInsertEnd = System.nanoTime();
-        long AVLSortInsert = AVLSortInsertEnd - AVLSortInsertStart;
 
-        //Insert - Sorted dataset BST
-        long BSTSortInsertStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            BST_Villagers_Sort.insert(villagers.get(i));
+        //Insert and search - Sorted dataset, every tree (a guarded BST for the BST, past the limit)
+        String[] sortStructures = STRUCTURES.clone();
+        String[] sortLabels = LABELS.clone();
+        boolean guarded = villagers.size() > BST_SORTED_LIMIT;
+        if (guarded) {
+            sortStructures[BST] = "GuardedBSTree";
+            sortLabels[BST] = "Guarded BST";
         }
-        long BSTSortInsertEnd = System.nanoTime();
-        long BSTSortInsert = BSTSortInsertEnd - BSTSortInsertStart;
-
-        //Search - Sorted dataset AVL
-        long AVLSortSearchStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            AVL_Villagers_Sort.contains(villagers.get(i));
+        long[] sortInsert = new long[STRUCTURES.length];
+        long[] sortSearch = new long[STRUCTURES.length];
+        for (int i = 0; i < STRUCTURES.length; i++) {
+            sortInsert[i] = TreeBenchmark.averageNanos(sortStructures[i], "insert", villagers);
         }
-        long AVLSortSearchEnd = System.nanoTime();
-        long AVLSortSearch = AVLSortSearchEnd - AVLSortSearchStart;
-
-        //Search - Sortedc dataset BST
-        long BSTSortSearchStart = System.nanoTime();
-        for (int i = 0; i < villagers.size(); i++) {
-            BST_Villagers_Sort.contains(villagers.get(i));
+        for (int i = 0; i < STRUCTURES.length; i++) {
+            sortSearch[i] = TreeBenchmark.averageNanos(sortStructures[i], "contains", villagers);
         }
-        long BSTSortSearchEnd = System.nanoTime();
-        long BSTSortSearch = BSTSortSearchEnd - BSTSortSearchStart;
 
-        //-----------------------------------------------------------------------------------------------------
+        //Bulk load - Sorted dataset AVL and BST (one balanced build instead of one insert per villager)
+        long AVLSortBulkLoad = TreeBenchmark.averageNanos("AVLTree", "bulkLoad", villagers);
+        long BSTSortBulkLoad = TreeBenchmark.averageNanos("BSTree", "bulkLoad", villagers);
 
-        //Write results in file
-        FileWriter writer = null;
-        try {       //assume output.txt will be manually reset
-            writer = new FileWriter("src/output.txt", true);
-        }
-        catch (IOException e) { System.out.println("FileNotFound!"); }
+        //Startup - Sorted dataset AVL: rebuilding from a CSV file vs loading a snapshot of the tree
+        long AVLSortCsvRebuild = TreeBenchmark.averageNanos("AVLTree", "csvRebuild", villagers);
+        long AVLSortSnapshotLoad = TreeBenchmark.averageNanos("AVLTree", "snapshotLoad", villagers);
+
+        //-----------------------------------------------------------------------------------------------------
 
         //Output timer information on screen
         System.out.print("-------------------------------------------------------------------------------------------\n");
-        System.out.print("Number of lines read from dataset: " + numLines + "/392\n");
-        System.out.print("Randomized dataset (insertion): BST (" + BSTRandInsert +
-                    " nsec) vs AVL (" + AVLRandInsert + " nsec)\n");
-        System.out.print("Randomized dataset (search): BST (" + BSTRandSearch +
-                    " nsec) vs AVL (" + AVLRandSearch +" nsec)\n");
-        System.out.print("Sorted dataset (insertion): BST (" + BSTSortInsert +
-                    " nsec) vs AVL (" + AVLSortInsert +" nsec)\n");
-        System.out.print("Sorted dataset (search): BST (" + BSTSortSearch +
-                    " nsec) vs AVL (" + AVLSortSearch +" nsec)\n");
+        if (generator == null) {
+            System.out.print("Number of lines read from dataset: " + numLines + "/392\n");
+        } else {
+            System.out.print("Number of villagers generated from dataset: " + villagers.size()
+                    + " (from " + read.size() + " read)\n");
+        }
+        System.out.print("Randomized dataset (insertion): " + versus(LABELS, randInsert) + "\n");
+        System.out.print("Randomized dataset (search): " + versus(LABELS, randSearch) + "\n");
+        if (guarded) {
+            System.out.print("Sorted dataset: plain BST skipped over " + BST_SORTED_LIMIT
+                    + " villagers (quadratic time), guarded BST timed instead\n");
+        }
+        System.out.print("Sorted dataset (insertion): " + versus(sortLabels, sortInsert) + "\n");
+        System.out.print("Sorted dataset (search): " + versus(sortLabels, sortSearch) + "\n");
+        System.out.print("Sorted dataset (bulk load): BST (" + BSTSortBulkLoad +
+                    " nsec) vs AVL (" + AVLSortBulkLoad +" nsec)\n");
+        System.out.print("Sorted dataset (AVL startup): CSV rebuild (" + AVLSortCsvRebuild +
+                    " nsec) vs snapshot load (" + AVLSortSnapshotLoad + " nsec)\n");
+        System.out.print("Sorted dataset (metrics): " + sortLabels[BST] + " "
+                + sortedMetrics(new BSTree<>(guarded), villagers) + "\n");
+        System.out.print("Sorted dataset (metrics): AVL " + sortedMetrics(new AVLTree<>(), villagers) + "\n");
         System.out.print("-------------------------------------------------------------------------------------------\n");
 
-        //Append a line to output.txt with the information above, in CSV format
-        writer.write(numLines + "," + BSTRandInsert+ "," + AVLRandInsert + "," +
-                BSTRandSearch + "," + AVLRandSearch + "," + BSTSortInsert + "," +  AVLSortInsert + "," +
-                BSTSortSearch + "," + AVLSortSearch + "\n");
-        writer.flush();
-        writer.close();
+        //Write the results, one row per tree, operation and dataset, as CSV and JSON files of
+        //this run (see TreeBenchmark for the columns)
+        int size = villagers.size();
+        List<TreeBenchmark.Result> results = new ArrayList<>();
+        for (int i = 0; i < STRUCTURES.length; i++) {
+            results.add(TreeBenchmark.passResult("insert", STRUCTURES[i], "random", size, randInsert[i]));
+            results.add(TreeBenchmark.passResult("contains", STRUCTURES[i], "random", size, randSearch[i]));
+            results.add(TreeBenchmark.passResult("insert", sortStructures[i], "sorted", size, sortInsert[i]));
+            results.add(TreeBenchmark.passResult("contains", sortStructures[i], "sorted", size, sortSearch[i]));
+        }
+        results.add(TreeBenchmark.passResult("bulkLoad", "BSTree", "sorted", size, BSTSortBulkLoad));
+        results.add(TreeBenchmark.passResult("bulkLoad", "AVLTree", "sorted", size, AVLSortBulkLoad));
+        results.add(TreeBenchmark.passResult("csvRebuild", "AVLTree", "sorted", size, AVLSortCsvRebuild));
+        results.add(TreeBenchmark.passResult("snapshotLoad", "AVLTree", "sorted", size, AVLSortSnapshotLoad));
+        TreeBenchmark.writeCsv(results, OUTPUT + ".csv");
+        TreeBenchmark.writeJson(results, OUTPUT + ".json");
+        System.out.println("Results written to " + OUTPUT + ".csv and " + OUTPUT + ".json");
+    }
+
+    /**
+     * Inserts then searches for every villager, with the tree's metrics on, and returns
+     * what they counted (compares, rotations, search depths; see TreeMetrics).
+     */
+    private static TreeMetrics.Snapshot sortedMetrics( BSTree<Villager> t, List<Villager> villagers ) {
+        TreeMetrics m = t.enableMetrics();
+        villagers.forEach(t::insert);
+        villagers.forEach(t::contains);
+        return m.snapshot();
+    }
+
+    private static TreeMetrics.Snapshot sortedMetrics( AVLTree<Villager> t, List<Villager> villagers ) {
+        TreeMetrics m = t.enableMetrics();
+        villagers.forEach(t::insert);
+        villagers.forEach(t::contains);
+        return m.snapshot();
+    }
+
+    /**
+     * Formats one timing per tree as "BST (t nsec) vs AVL (t nsec) vs ...".
+     */
+    private static String versus(String[] labels, long[] nanos) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < nanos.length; i++) {
+            s.append(i == 0 ? "" : " vs ").append(labels[i]).append(" (").append(nanos[i]).append(" nsec)");
+        }
+        return s.toString();
+    }
+
+    /**
+     * Reads villagers from the dataset, skipping the header line.
+     * @param inputFileName the path of villagers.csv.
+     * @param numLines the number of lines to read, including the header.
+     * @return the villagers read.
+     */
+    static ArrayList<Villager> readVillagers(String inputFileName, int numLines) throws IOException {
+        ArrayList<Villager> villagers = new ArrayList<>();
+        try (VillagerCsvReader reader = VillagerCsvReader.open(inputFileName)) {
+            for (int i = 2; i <= numLines && reader.hasNext(); i++) {
+                villagers.add(reader.next());
+            }
+            if (reader.getSkippedRows() > 0) {
+                System.out.println("skipped " + reader.getSkippedRows() + " empty or incomplete lines");
+            }
+        }
+        return villagers;
     }
 }
@@ -0,0 +1,413 @@
+/**********************************************************************************************
+ * @file : RedBlackTree.java
+ * @description : Red-Black Tree class, in the left-leaning form: every red link leans left,
+ *                so the tree is a binary encoding of a 2-3 tree. Every path from the root to
+ *                a missing child passes the same number of black nodes, so the tree is at
+ *                most 2 log(n) deep. It is less strictly balanced than an AVL tree, so
+ *                lookups may go a little deeper, but an insert or remove rebalances with
+ *                fewer rotations and keeps one color bit per node instead of a height.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// Iterator iterator( )   --> Return an iterator over the items in sorted order
+// void checkBalance( )   --> Print a message if the red-black rules are broken
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements a left-leaning red-black tree.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class RedBlackTree<AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    /** The tree root. */
+    private RbNode<AnyType> root;
+
+    /** Number of items in the tree. */
+    private int size;
+
+    /**
+     * Construct the tree.
+     */
+    public RedBlackTree( ) {
+        root = null;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    @Override
+    public boolean insert( AnyType x ) {
+        int before = size;
+        root = insert( x, root );
+        root.color = BLACK;
+        return size > before;
+    }
+
+    /**
+     * Internal method to insert into a subtree. The new node is red; the links on the way
+     * back up are straightened with fixUp().
+     * @param x the item to insert.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private RbNode<AnyType> insert( AnyType x, RbNode<AnyType> t ) {
+        if (t == null) {
+            size++;
+            return new RbNode<AnyType>(x);
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = insert(x, t.left);
+        } else if (cmp < 0) {
+            t.right = insert(x, t.right);
+        } else {
+            return t;       // x is already in the tree
+        }
+        return fixUp(t);
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * On the way down, a red link is pushed ahead of the search, so the node finally
+     * removed is never a lone black node; the links are straightened on the way back up.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
+     */
+    @Override
+    public boolean remove( AnyType x ) {
+        if (!contains(x)) {
+            return false;
+        }
+        if (!isRed(root.left) && !isRed(root.right)) {
+            root.color = RED;
+        }
+        root = remove( x, root );
+        if (root != null) {
+            root.color = BLACK;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Internal method to remove x, which is in the subtree, from a subtree.
+     * @return the new root of the subtree.
+     */
+    private RbNode<AnyType> remove( AnyType x, RbNode<AnyType> t ) {
+        if (t.element.compareTo(x) > 0) {
+            if (!isRed(t.left) && !isRed(t.left.left)) {
+                t = moveRedLeft(t);
+            }
+            t.left = remove(x, t.left);
+        } else {
+            if (isRed(t.left)) {
+                t = rotateWithLeftChild(t);
+            }
+            if (t.element.compareTo(x) == 0 && t.right == null) {
+                return null;
+            }
+            if (!isRed(t.right) && !isRed(t.right.left)) {
+                t = moveRedRight(t);
+            }
+            if (t.element.compareTo(x) == 0) {
+                // case: x has a right subtree -> replace it with the minimum of that subtree
+                t.element = findMin(t.right).element;
+                t.right = removeMin(t.right);
+            } else {
+                t.right = remove(x, t.right);
+            }
+        }
+        return fixUp(t);
+    }
+
+    /**
+     * Internal method to remove the smallest item of a subtree.
+     * @return the new root of the subtree.
+     */
+    private RbNode<AnyType> removeMin( RbNode<AnyType> t ) {
+        if (t.left == null) {
+            return null;
+        }
+        if (!isRed(t.left) && !isRed(t.left.left)) {
+            t = moveRedLeft(t);
+        }
+        t.left = removeMin(t.left);
+        return fixUp(t);
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    @Override
+    public boolean contains( AnyType x ) {
+        RbNode<AnyType> t = root;
+        while (t != null) {
+            int cmp = t.element.compareTo(x);
+            if (cmp == 0) {
+                return true;
+            }
+            t = cmp > 0 ? t.left : t.right;
+        }
+        return false;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    @Override
+    public AnyType findMin( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        return findMin( root ).element;
+    }
+
+    /**
+     * Internal method to find the smallest item in a subtree.
+     * @param t the node that roots the tree.
+     * @return node containing the smallest item.
+     */
+    private RbNode<AnyType> findMin( RbNode<AnyType> t ) {
+        while (t.left != null) {
+            t = t.left;
+        }
+        return t;
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    @Override
+    public AnyType findMax( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        RbNode<AnyType> t = root;
+        while (t.right != null) {
+            t = t.right;
+        }
+        return t.element;
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    @Override
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Make the tree logically empty.
+     */
+    @Override
+    public void makeEmpty( ) {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    @Override
+    public boolean isEmpty( ) {
+        return root == null;
+    }
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    @Override
+    public void printTree( ) {
+        if( isEmpty( ) )
+            System.out.println( "Empty tree" );
+        else
+            for (AnyType x : this)
+                System.out.print(x.toString() + "\n");
+    }
+
+    /**
+     * Return an iterator over the items in sorted order, produced lazily from an explicit
+     * stack. The tree must not be changed while it is being iterated.
+     */
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        ArrayDeque<RbNode<AnyType>> stack = new ArrayDeque<>();
+        for (RbNode<AnyType> t = root; t != null; t = t.left) {
+            stack.push(t);
+        }
+        return new Iterator<AnyType>() {
+            @Override
+            public boolean hasNext( ) {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public AnyType next( ) {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                RbNode<AnyType> t = stack.pop();
+                for (RbNode<AnyType> p = t.right; p != null; p = p.left) {
+                    stack.push(p);
+                }
+                return t.element;
+            }
+        };
+    }
+
+    /**
+     * Verifies the red-black rules: no red right links, no two red links in a row, and
+     * the same number of black links on every path.
+     */
+    public void checkBalance( ) {
+        if (isRed(root)) {
+            System.out.println("OOPS!! red root");
+        }
+        checkBalance( root );
+    }
+
+    /**
+     * Return the number of black links from t down to any missing child.
+     */
+    private int checkBalance( RbNode<AnyType> t ) {
+        if (t == null) {
+            return 0;
+        }
+        if (isRed(t.right)) {
+            System.out.println("OOPS!! red right link");
+        }
+        if (isRed(t) && isRed(t.left)) {
+            System.out.println("OOPS!! two red links in a row");
+        }
+        int bl = checkBalance(t.left);
+        int br = checkBalance(t.right);
+        if (bl != br) {
+            System.out.println("OOPS!! black heights " + bl + " and " + br);
+        }
+        return bl + (isRed(t) ? 0 : 1);
+    }
+
+    /**
+     * Return whether the link to t is red; a missing child is black.
+     */
+    private boolean isRed( RbNode<AnyType> t ) {
+        return t != null && t.color == RED;
+    }
+
+    /**
+     * Restore the left-leaning shape at t on the way back up: lean a red right link left,
+     * split two red links in a row, and pass a node with two red children up to its parent.
+     * @return the new root of the subtree.
+     */
+    private RbNode<AnyType> fixUp( RbNode<AnyType> t ) {
+        if (isRed(t.right) && !isRed(t.left)) {
+            t = rotateWithRightChild(t);
+        }
+        if (isRed(t.left) && isRed(t.left.left)) {
+            t = rotateWithLeftChild(t);
+        }
+        if (isRed(t.left) && isRed(t.right)) {
+            flipColors(t);
+        }
+        return t;
+    }
+
+    /**
+     * Make t.left or one of its children red, borrowing from the right sibling when it
+     * can spare a node, so a removal can continue down the left.
+     */
+    private RbNode<AnyType> moveRedLeft( RbNode<AnyType> t ) {
+        flipColors(t);
+        if (isRed(t.right.left)) {
+            t.right = rotateWithLeftChild(t.right);
+            t = rotateWithRightChild(t);
+            flipColors(t);
+        }
+        return t;
+    }
+
+    /**
+     * Make t.right or one of its children red, so a removal can continue down the right.
+     */
+    private RbNode<AnyType> moveRedRight( RbNode<AnyType> t ) {
+        flipColors(t);
+        if (isRed(t.left.left)) {
+            t = rotateWithLeftChild(t);
+            flipColors(t);
+        }
+        return t;
+    }
+
+    /**
+     * Rotate binary tree node with left child; the red link now leans right.
+     * Return the new root.
+     */
+    private RbNode<AnyType> rotateWithLeftChild( RbNode<AnyType> k2 ) {
+        RbNode<AnyType> k1 = k2.left;
+        k2.left = k1.right;
+        k1.right = k2;
+        k1.color = k2.color;
+        k2.color = RED;
+        return k1;
+    }
+
+    /**
+     * Rotate binary tree node with right child; the red link now leans left.
+     * Return the new root.
+     */
+    private RbNode<AnyType> rotateWithRightChild( RbNode<AnyType> k1 ) {
+        RbNode<AnyType> k2 = k1.right;
+        k1.right = k2.left;
+        k2.left = k1;
+        k2.color = k1.color;
+        k1.color = RED;
+        return k2;
+    }
+
+    /**
+     * Flip the colors of a node and its two children, which splits (or joins) a 4-node.
+     */
+    private void flipColors( RbNode<AnyType> t ) {
+        t.color = !t.color;
+        t.left.color = !t.left.color;
+        t.right.color = !t.right.color;
+    }
+
+    private static class RbNode<AnyType> {
+        RbNode( AnyType theElement ) {
+            element = theElement;
+            color   = RED;
+        }
+
+        AnyType           element;      // The data in the node
+        RbNode<AnyType>   left;         // Left child
+        RbNode<AnyType>   right;        // Right child
+        boolean           color;        // Color of the link from the parent
+    }
+}
@@ -0,0 +1,85 @@
+/**********************************************************************************************
+ * @file : SearchTree.java
+ * @description : The operations every ordered search tree in the project supports, so the
+ *                trees (AVLTree, BSTree, BPlusTree, RedBlackTree, Treap, WAVLTree) can be run
+ *                over the same workloads and swapped for one another. Each tree adds its own
+ *                extras (bulk loads, order statistics, range views) on top.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// Iterator iterator( )   --> Return an iterator over the items in sorted order
+// ******************ERRORS********************************
+// findMin and findMax throw UnderflowException on an empty tree
+
+/**
+ * An ordered set of items, kept in a search tree.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public interface SearchTree<AnyType extends Comparable<? super AnyType>> extends Iterable<AnyType> {
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    boolean insert( AnyType x );
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
+     */
+    boolean remove( AnyType x );
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    boolean contains( AnyType x );
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     * @throws UnderflowException if the tree is empty.
+     */
+    AnyType findMin( );
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     * @throws UnderflowException if the tree is empty.
+     */
+    AnyType findMax( );
+
+    /**
+     * Return the number of items in the tree.
+     */
+    int size( );
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    boolean isEmpty( );
+
+    /**
+     * Make the tree logically empty.
+     */
+    void makeEmpty( );
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    void printTree( );
+}
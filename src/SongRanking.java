@@ -0,0 +1,118 @@
+/**********************************************************************************************
+ * @file : SongRanking.java
+ * @description : My ranking of K.K. Slider's ACNH discography, from best to worst. A ranking
+ *                is built once and shared by every Villager, which keeps the rank of its
+ *                favorite song and a reference to the ranking's String for it. Ranks are looked up by hash in O(1), and a ranking can also be
+ *                loaded from a text file (one song per line, best first) so the ordering can
+ *                change without recompiling; see kk-song-ranking.txt.
+ * @author : Ella Shipman
+ * @date : September 25, 2025
+ * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
+ * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
+ *********************************************************************************************/
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public final class SongRanking {
+    //My opinion of K.K. Slider's ACNH discography: (best to worst)
+    private static final String[] DEFAULT_ORDER = {"K.K. Cruisin\'", "Drivin\'", "K.K. Metal", "K.K. Milonga", "K.K. House",
+            "K.K. Gumbo", "K.K. Rock", "K.K. Western", "K.K. Jongara", "The K. Funk", "K.K. Mambo", "K.K. Salsa", "K.K. Condor",
+            "Soulful K.K.", "K.K. Parade", "K.K. Soul", "K.K. Groove", "Imperial K.K.", "K.K. Bossa", "Only Me",
+            "K.K. Blues", "Bubblegum K.K.", "Space K.K.", "Hypno K.K.", "Rockin\' K.K.", "Surfin\' K.K.",
+            "K.K. Ballad", "Comrade K.K.", "K.K. Folk", "K.K. Moody", "Lucky K.K.", "K.K. Sonata", "K.K. Dirge",
+            "K.K. Fusion", "K.K. Rockabilly", "Spring Blossoms", "K.K. Synth", "K.K. Flamenco", "K.K. Steppe",
+            "K.K. Safari", "K.K. Tango", "K.K. Étude", "K.K. Disco", "K.K. Island", "K.K. Swing", "K.K. Country",
+            "K.K. Jazz", "K.K. D&B", "K.K. Rally", "K.K. Aria", "K.K. Lament", "Agent K.K.", "Marine Song 2001",
+            "Steep Hill", "Forest Life", "Stale Cupcakes", "K.K. Stroll", "My Place", "Pondering", "K.K. Marathon",
+            "K.K. Adventure", "K.K. March", "Two Days Ago", "K.K. Reggae", "K.K. Oasis", "Animal City", "Aloha K.K.",
+            "K.K. Lullaby", "K.K. Technopop", "K.K. Faire", "Wandering", "Farewell", "K.K. Love Song", "K.K. Dixie",
+            "K.K. Ragtime", "To The Edge", "K.K. Casbah", "K.K. Calypso", "Café K.K.", "K.K. Bazaar",
+            "DJ K.K.", "Go K.K. Rider", "King K.K.", "Mr. K.K.", "K.K. Chorale", "Mountain Song",  "Neapolitan",
+            "I Love You", "K.K. Song"};
+
+    /** The built-in ranking. */
+    public static final SongRanking DEFAULT = new SongRanking(DEFAULT_ORDER);
+
+    /** The ranking new villagers are ranked by. */
+    private static volatile SongRanking current = DEFAULT;
+
+    private final String[] songs;                   // songs[rank], best first
+    private final HashMap<String, Integer> ranks;   // song -> rank
+
+    /**
+     * Build a ranking.
+     * @param songs the songs, best first.
+     * @throws IllegalArgumentException if a song is listed twice.
+     */
+    private SongRanking(String[] songs) {
+        this.songs = songs.clone();
+        ranks = new HashMap<>(songs.length * 2);
+        for (int i = 0; i < songs.length; i++) {
+            if (ranks.put(songs[i], i) != null) {
+                throw new IllegalArgumentException("Song ranked twice: " + songs[i]);
+            }
+        }
+    }
+
+    /**
+     * Load a ranking from a UTF-8 text file with one song per line, best first.
+     * Blank lines and lines starting with '#' are ignored.
+     * @param fileName the path of the ranking file.
+     * @return the ranking.
+     */
+    public static SongRanking load(String fileName) throws IOException {
+        List<String> songs = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            line = line.strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                songs.add(line);
+            }
+        }
+        return new SongRanking(songs.toArray(new String[0]));
+    }
+
+    /**
+     * Return the ranking new villagers are ranked by.
+     */
+    public static SongRanking current() {
+        return current;
+    }
+
+    /**
+     * Rank new villagers by the given ranking. Villagers already created keep the song and
+     * rank they were given, so this should be called before any are created.
+     * @param ranking the ranking to use.
+     */
+    public static void use(SongRanking ranking) {
+        current = ranking;
+    }
+
+    /**
+     * Return the rank of a song (0 is best), or -1 if it is empty or not ranked.
+     */
+    public int rankOf(String song) {
+        if (song == null) { return -1; }
+        Integer rank = ranks.get(song);
+        return rank == null ? -1 : rank;
+    }
+
+    /**
+     * Return the song with the given rank, or null if there is none.
+     */
+    public String songAt(int rank) {
+        return rank >= 0 && rank < songs.length ? songs[rank] : null;
+    }
+
+    /**
+     * Return the number of ranked songs.
+     */
+    public int size() {
+        return songs.length;
+    }
+}
@@ -1,12 +1,69 @@
+import java.util.function.Supplier;
+
 public class TestAvl {
-    // Test program
+    final static int SMALL = 40;
+    final static int NUMS = 1000000;  // must be even
+    final static int GAP = 37;
+
+    // Test program: "boxed" runs AVLTree<Integer>, "primitive" runs IntAVLTree, no argument runs both
+    // (both share run(), so time them one per JVM when comparing their throughput)
     public static void main( String [ ] args ) {
-        AvlTree<Integer> t = new AvlTree<>();
-        final int SMALL = 40;
-        final int NUMS = 1000000;  // must be even
-        final int GAP = 37;
+        String which = args.length > 0 ? args[0] : "both";
+        if (!which.equals("primitive"))
+            testBoxed();
+        if (!which.equals("boxed"))
+            testPrimitive();
+    }
 
-        System.out.println("Checking... (no more output means success)");
+    // The operations the workload uses, so that AVLTree and IntAVLTree run the same checks
+    interface IntTree {
+        void insert(int x);
+        void remove(int x);
+        boolean contains(int x);
+        int findMin();
+        int findMax();
+        void checkBalance();
+        void printTree();
+    }
+
+    // Runs the workload against AVLTree<Integer>
+    static void testBoxed() {
+        run("AVLTree", () -> {
+            AVLTree<Integer> t = new AVLTree<>();
+            return new IntTree() {
+                public void insert(int x) { t.insert(x); }
+                public void remove(int x) { t.remove(x); }
+                public boolean contains(int x) { return t.contains(x); }
+                public int findMin() { return t.findMin(); }
+                public int findMax() { return t.findMax(); }
+                public void checkBalance() { t.checkBalance(); }
+                public void printTree() { t.printTree(); }
+            };
+        });
+    }
+
+    // Runs the same workload against IntAVLTree
+    static void testPrimitive() {
+        run("IntAVLTree", () -> {
+            IntAVLTree t = new IntAVLTree();
+            return new IntTree() {
+                public void insert(int x) { t.insert(x); }
+                public void remove(int x) { t.remove(x); }
+                public boolean contains(int x) { return t.contains(x); }
+                public int findMin() { return t.findMin(); }
+                public int findMax() { return t.findMax(); }
+                public void checkBalance() { t.checkBalance(); }
+                public void printTree() { t.printTree(); }
+            };
+        });
+    }
+
+    // Runs the workload against a new tree made by newTree
+    static void run(String name, Supplier<IntTree> newTree) {
+        System.out.println("Checking " + name + "... (no more output means success)");
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        IntTree t = newTree.get();
 
         // inserts sequence of numbers "GAP" apart into AVL Tree
         for (int i = GAP; i != 0; i = (i + GAP) % NUMS) {
@@ -16,6 +73,8 @@ public class TestAvl {
             if (NUMS < SMALL)
                 t.checkBalance();
         }
+        long insertEnd = System.nanoTime();
+        long footprint = usedHeap() - heapBefore;
 
         // removes odd numbers
         for (int i = 1; i < NUMS; i += 2) {
@@ -43,5 +102,20 @@ public class TestAvl {
             if (t.contains(i))
                 System.out.println("Find error2!");
         }
+        report(name, start, insertEnd, System.nanoTime(), footprint);
+    }
+
+    // Returns the heap in use after a garbage collection
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // Prints the throughput and heap footprint of one run
+    static void report(String name, long start, long insertEnd, long end, long footprint) {
+        System.out.printf("%s: inserts %.1f Mops/s, whole workload %d ms, tree of %d keys uses ~%d MB%n",
+                name, (NUMS - 1) * 1e3 / (insertEnd - start), (end - start) / 1_000_000,
+                NUMS - 1, footprint / (1024 * 1024));
     }
 }
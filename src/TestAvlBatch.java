@@ -0,0 +1,56 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class TestAvlBatch {
+    final static int KEYS = 50000;      // keys are drawn from 0 .. KEYS - 1
+    final static int ROUNDS = 400;
+    final static int MAX_BATCH = 2000;
+
+    // Randomized test: applies batches of random keys (with duplicates, in any order, of any
+    // size from empty up) to an AVLTree through insertAll and removeAll, and the same keys to a
+    // TreeSet one at a time; after each batch the counts, the contents and the balance must agree
+    public static void main( String [ ] args ) {
+        System.out.println("Checking AVLTree insertAll/removeAll... (no more output means success)");
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 42);
+        AVLTree<Integer> t = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Integer> batch = new ArrayList<>();
+            int n = random.nextInt(MAX_BATCH + 1);
+            for (int i = 0; i < n; i++)
+                batch.add(random.nextInt(KEYS));
+            if (random.nextInt(4) == 0)
+                batch.sort(null);        // sorted batches take the already-sorted path
+
+            boolean insert = random.nextInt(5) < 3;      // the tree grows on the whole
+            int changed = 0;
+            for (Integer x : batch)
+                if (insert ? expected.add(x) : expected.remove(x))
+                    changed++;
+            int counted = insert ? t.insertAll(batch) : t.removeAll(batch);
+            if (counted != changed)
+                System.out.println((insert ? "insertAll" : "removeAll") + " count error! (" + counted
+                        + " vs " + changed + ")");
+            t.checkBalance();
+            check(t, expected);
+        }
+    }
+
+    // Checks that the tree holds exactly the expected keys, in order, with the right ranks
+    static void check(AVLTree<Integer> t, TreeSet<Integer> expected) {
+        if (t.size() != expected.size())
+            System.out.println("Size error! (" + t.size() + " vs " + expected.size() + ")");
+        Iterator<Integer> it = t.iterator();
+        for (Integer x : expected)
+            if (!it.hasNext() || !it.next().equals(x))
+                System.out.println("Order error! (" + x + ")");
+        if (it.hasNext())
+            System.out.println("Extra item error!");
+        if (!expected.isEmpty() && t.select(expected.size() / 2) != (int) new ArrayList<>(expected).get(expected.size() / 2))
+            System.out.println("Subtree size error!");
+    }
+}
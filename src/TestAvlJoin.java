@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+public class TestAvlJoin {
+    final static int KEYS = 100000;     // keys are drawn from 0 .. KEYS - 1
+    final static int ROUNDS = 200;
+    final static int MAX_TREE = 3000;
+    final static int PARALLEL_EVERY = 25;
+    final static int MAX_PARALLEL = 20000;      // well above the 4096 items at which bulkLoad builds in parallel
+
+    // Randomized test of the operations that take trees apart and put them together: each
+    // round splits the tree at a key that is or is not in it, joins the halves back with and
+    // without a middle key, and merges in an overlapping tree with union, checking every tree
+    // against a TreeSet after each step; every PARALLEL_EVERY rounds a large batch goes in
+    // through the parallel bulkLoad
+    public static void main( String [ ] args ) {
+        System.out.println("Checking AVLTree split/join/union... (no more output means success)");
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 42);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        AVLTree<Integer> t = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // union with an overlapping tree
+            AVLTree<Integer> other = new AVLTree<>();
+            List<Integer> keys = randomKeys(random, random.nextInt(MAX_TREE + 1));
+            other.bulkLoad(keys);
+            expected.addAll(keys);
+            t.union(other);
+            if (!other.isEmpty())
+                System.out.println("Union did not empty the other tree!");
+            t.checkBalance();
+            check(t, expected);
+
+            // split at a key in the tree, or one that is not
+            int x = random.nextInt(KEYS);
+            if (random.nextBoolean() && expected.ceiling(x) != null)
+                x = expected.ceiling(x);
+            boolean present = expected.contains(x);
+            AVLTree<Integer> greater = t.split(x);
+            t.checkBalance();
+            greater.checkBalance();
+            check(t, new TreeSet<>(expected.headSet(x)));
+            check(greater, new TreeSet<>(expected.tailSet(x)));
+
+            // join the halves back, around x when it was split off
+            if (present && random.nextBoolean()) {
+                greater.remove(x);
+                t.join(x, greater);
+            } else {
+                t.join(greater);
+            }
+            if (!greater.isEmpty())
+                System.out.println("Join did not empty the right tree!");
+            t.checkBalance();
+            check(t, expected);
+
+            // joining trees whose items overlap is refused, and changes neither
+            if (expected.size() > 1) {
+                AVLTree<Integer> overlap = new AVLTree<>();
+                overlap.insert(expected.first());
+                try {
+                    t.join(overlap);
+                    System.out.println("Overlapping join error!");
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+                check(t, expected);
+            }
+
+            // drop some keys so the tree does not only grow
+            List<Integer> removed = randomKeys(random, random.nextInt(MAX_TREE + 1));
+            t.removeAll(removed);
+            expected.removeAll(removed);
+
+            if (round % PARALLEL_EVERY == 0) {
+                keys = randomKeys(random, MAX_PARALLEL / 2 + random.nextInt(MAX_PARALLEL / 2));
+                int changed = 0;
+                for (Integer k : keys)
+                    if (expected.add(k))
+                        changed++;
+                int counted = t.bulkLoad(keys, pool);
+                if (counted != changed)
+                    System.out.println("Parallel bulkLoad count error! (" + counted + " vs " + changed + ")");
+                t.checkBalance();
+                check(t, expected);
+            }
+        }
+        pool.shutdown();
+    }
+
+    // Returns n random keys, with duplicates, in no order
+    static List<Integer> randomKeys(Random random, int n) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            keys.add(random.nextInt(KEYS));
+        return keys;
+    }
+
+    // Checks that the tree holds exactly the expected keys, in order, with the right ranks
+    static void check(AVLTree<Integer> t, TreeSet<Integer> expected) {
+        if (t.size() != expected.size() || t.isEmpty() != expected.isEmpty())
+            System.out.println("Size error! (" + t.size() + " vs " + expected.size() + ")");
+        Iterator<Integer> it = t.iterator();
+        int k = 0;
+        for (Integer x : expected) {
+            if (!it.hasNext() || !it.next().equals(x))
+                System.out.println("Order error! (" + x + ")");
+            else if (k % 61 == 0 && t.select(k) != (int) x)      // a sample of the ranks
+                System.out.println("Subtree size error! (" + k + ")");
+            k++;
+        }
+        if (it.hasNext())
+            System.out.println("Extra item error!");
+    }
+}
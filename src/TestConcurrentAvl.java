@@ -0,0 +1,77 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestConcurrentAvl {
+    final static int NUMS = 200000;  // must be even
+    final static int READERS = 4;
+    final static int ROUNDS = 5;
+
+    // Stress test: one writer keeps inserting and removing the odd numbers while readers check
+    // that the even numbers, which never change, are always found, and findMin/findMax never move
+    public static void main( String [ ] args ) throws InterruptedException {
+        System.out.println("Checking ConcurrentAVLTree... (no more output means success)");
+        ConcurrentAVLTree<Integer> t = new ConcurrentAVLTree<>();
+
+        // inserts the even numbers 0 .. NUMS, which stay in the tree for the whole test
+        for (int i = 0; i <= NUMS; i += 2)
+            t.insert(i);
+
+        AtomicLong reads = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                // inserts the odd numbers in a scattered order, then removes them the same way
+                for (int i = 1; i < NUMS; i += 2)
+                    if (!t.insert(scatter(i)))
+                        errors.incrementAndGet();
+                for (int i = 1; i < NUMS; i += 2)
+                    if (!t.remove(scatter(i)))
+                        errors.incrementAndGet();
+            }
+        });
+
+        Thread[] readers = new Thread[READERS];
+        for (int r = 0; r < READERS; r++) {
+            readers[r] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long n = 0;
+                while (writer.isAlive()) {
+                    int even = 2 * random.nextInt(NUMS / 2 + 1);
+                    if (!t.contains(even) || t.contains(-1 - even)
+                            || t.findMin() != 0 || t.findMax() != NUMS)
+                        errors.incrementAndGet();
+                    n += 4;
+                }
+                reads.addAndGet(n);
+            });
+        }
+
+        long start = System.nanoTime();
+        writer.start();
+        for (Thread reader : readers)
+            reader.start();
+        writer.join();
+        for (Thread reader : readers)
+            reader.join();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        if (errors.get() != 0)
+            System.out.println("Concurrent read or write error! (" + errors.get() + ")");
+
+        // checks the tree after the writer is done: balanced, only the even numbers left
+        t.checkBalance();
+        if (t.size() != NUMS / 2 + 1)
+            System.out.println("Size error!");
+        for (int i = 0; i <= NUMS; i++)
+            if (t.contains(i) != (i % 2 == 0))
+                System.out.println("Find error!");
+
+        System.out.printf("ConcurrentAVLTree: %d writes and %d reads by %d readers in %d ms%n",
+                2L * ROUNDS * (NUMS / 2), reads.get(), READERS, millis);
+    }
+
+    // Maps the odd numbers below NUMS onto themselves in a scattered order
+    static int scatter(int odd) {
+        return (int) ((odd * 7919L) % NUMS);       // 7919 is prime, so no two odds collide
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class TestDurableAvl {
+    final static int KEYS = 500;        // keys are drawn from 0 .. KEYS - 1
+    final static int ROUNDS = 200;
+    final static int MAX_OPS = 300;
+    final static int CHECKPOINT_EVERY = 25;
+
+    // Where errors are reported; standard output is muted while the tree runs, since AVLTree
+    // prints a line for every missed remove, which this test makes on purpose
+    final static PrintStream OUT = System.out;
+
+    // Stores the keys in the log as varints
+    final static TreeSnapshot.Codec<Integer> INTS = new TreeSnapshot.Codec<Integer>() {
+        public void write( Integer x, TreeSnapshot.Writer out ) throws IOException {
+            out.writeVarint(x);
+        }
+
+        public Integer read( TreeSnapshot.Reader in ) {
+            return in.readVarint();
+        }
+    };
+
+    // Crash test: each round updates a DurableAVLTree and a TreeSet side by side, closes the
+    // tree and then damages its log the way a crash in the middle of the last update would:
+    // cutting the last record short, or garbling a byte of it so that its checksum fails, or
+    // leaving it whole. Reopening must give back the TreeSet as of the last whole record, cut
+    // the log back to it, and go on appending after it. Every CHECKPOINT_EVERY rounds the tree
+    // is checkpointed first, so the log is replayed over a snapshot
+    public static void main( String [ ] args ) throws IOException {
+        OUT.println("Checking DurableAVLTree reopen... (no more output means success)");
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 42);
+        Path dir = Files.createTempDirectory("TestDurableAvl");
+        String base = dir.resolve("tree").toString();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            run(base, random);
+        } finally {
+            System.setOut(OUT);
+            DurableAVLTree.delete(base);
+            Files.delete(dir);
+        }
+    }
+
+    static void run(String base, Random random) throws IOException {
+        TreeSet<Integer> expected = new TreeSet<>();
+        int records = 0;        // whole records in the log
+
+        for (int round = 0; round < ROUNDS; round++) {
+            DurableAVLTree<Integer> t = DurableAVLTree.open(base, INTS, DurableAVLTree.Durability.ASYNC);
+            if (t.getReplayed() != records)
+                OUT.println("Replay count error! (" + t.getReplayed() + " vs " + records + ")");
+            check(t, expected);
+            if (round % CHECKPOINT_EVERY == 0) {
+                t.checkpoint();
+                records = 0;
+            }
+
+            // before is the TreeSet as it was before the last logged update, which starts at last
+            TreeSet<Integer> before = new TreeSet<>(expected);
+            long last = t.getLogBytes();
+            int ops = 1 + random.nextInt(MAX_OPS);
+            for (int i = 0; i < ops; i++) {
+                int x = random.nextInt(KEYS);
+                long at = t.getLogBytes();
+                TreeSet<Integer> copy = new TreeSet<>(expected);
+                boolean insert = random.nextInt(5) < 3;
+                boolean changed = insert ? t.insert(x) : t.remove(x);
+                if (changed != (insert ? expected.add(x) : expected.remove(x)))
+                    OUT.println("Update error! (" + x + ")");
+                if (changed) {
+                    before = copy;
+                    last = at;
+                    records++;
+                }
+            }
+            long end = t.getLogBytes();
+            t.close();
+            if (end == last)
+                continue;       // nothing was logged this round
+
+            try (RandomAccessFile log = new RandomAccessFile(base + ".wal", "rw")) {
+                switch (random.nextInt(3)) {
+                    case 0:     // the last record was cut short
+                        log.setLength(last + random.nextInt((int) (end - last)));
+                        break;
+                    case 1:     // a byte of the last record was garbled
+                        long at = last + random.nextInt((int) (end - last));
+                        log.seek(at);
+                        int b = log.read();
+                        log.seek(at);
+                        log.write(b ^ (1 + random.nextInt(255)));
+                        break;
+                    default:    // the last record is whole
+                        continue;
+                }
+            }
+            expected = before;
+            records--;
+
+            DurableAVLTree<Integer> reopened = DurableAVLTree.open(base, INTS, DurableAVLTree.Durability.ASYNC);
+            if (reopened.getLogBytes() != last || Files.size(Paths.get(base + ".wal")) != last)
+                OUT.println("Log not cut back error! (" + reopened.getLogBytes() + " vs " + last + ")");
+            reopened.close();
+        }
+    }
+
+    // Checks that the tree holds exactly the expected keys
+    static void check(DurableAVLTree<Integer> t, TreeSet<Integer> expected) {
+        if (t.size() != expected.size() || t.isEmpty() != expected.isEmpty())
+            OUT.println("Size error! (" + t.size() + " vs " + expected.size() + ")");
+        for (int x = 0; x < KEYS; x++)
+            if (t.contains(x) != expected.contains(x))
+                OUT.println("Find error! (" + x + ")");
+        if (!expected.isEmpty() && (t.findMin() != (int) expected.first() || t.findMax() != (int) expected.last()))
+            OUT.println("FindMin or FindMax error!");
+    }
+}
@@ -0,0 +1,181 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+
+public class TestOrderStatistics {
+    final static int KEYS = 3000;       // keys are drawn from 0 .. KEYS - 1
+    final static int OPS = 300000;
+    final static int CHECK_EVERY = 1000;
+
+    // Where errors are reported; standard output is muted while a tree runs, since AVLTree and
+    // BSTree print a line for every missed remove, which this test makes on purpose
+    final static PrintStream OUT = System.out;
+
+    // The operations the test uses, so that every tree with subtree sizes runs the same checks
+    interface RankedTree {
+        boolean insert(int x);
+        boolean remove(int x);
+        int select(int k);
+        int rank(int x);
+        int countInRange(int lo, int hi);
+        Collection<Integer> subSet(int lo, int hi);
+        Collection<Integer> headSet(int hi);
+        Collection<Integer> tailSet(int lo);
+        Spliterator<Integer> spliterator();
+        int size();
+        void checkBalance();
+    }
+
+    // Randomized test: inserts and removes random keys in each tree and a TreeSet side by side;
+    // every CHECK_EVERY operations, select and rank must agree with the TreeSet's order for every
+    // key, countInRange (lo and hi inclusive) for a random range, and the subSet (hi exclusive),
+    // headSet and tailSet views, serially and as parallel streams, with the TreeSet's views
+    // for random bounds, in the tree or not. "avl", "bst" or "guarded" runs one tree
+    public static void main( String [ ] args ) {
+        String which = args.length > 0 ? args[0] : "all";
+        if (which.equals("all") || which.equals("avl"))
+            run("AVLTree", () -> {
+                AVLTree<Integer> t = new AVLTree<>();
+                return new RankedTree() {
+                    public boolean insert(int x) { return t.insert(x); }
+                    public boolean remove(int x) { return t.remove(x); }
+                    public int select(int k) { return t.select(k); }
+                    public int rank(int x) { return t.rank(x); }
+                    public int countInRange(int lo, int hi) { return t.countInRange(lo, hi); }
+                    public Collection<Integer> subSet(int lo, int hi) { return t.subSet(lo, hi); }
+                    public Collection<Integer> headSet(int hi) { return t.headSet(hi); }
+                    public Collection<Integer> tailSet(int lo) { return t.tailSet(lo); }
+                    public Spliterator<Integer> spliterator() { return t.spliterator(); }
+                    public int size() { return t.size(); }
+                    public void checkBalance() { t.checkBalance(); }
+                };
+            });
+        if (which.equals("all") || which.equals("bst"))
+            run("BSTree", () -> bsTree(false));
+        if (which.equals("all") || which.equals("guarded"))
+            run("guarded BSTree", () -> bsTree(true));
+    }
+
+    // A BSTree has no balance to check; select and rank check its subtree sizes
+    static RankedTree bsTree(boolean guarded) {
+        BSTree<Integer> t = new BSTree<>(guarded);
+        return new RankedTree() {
+            public boolean insert(int x) { return t.insert(x); }
+            public boolean remove(int x) { return t.remove(x); }
+            public int select(int k) { return t.select(k); }
+            public int rank(int x) { return t.rank(x); }
+            public int countInRange(int lo, int hi) { return t.countInRange(lo, hi); }
+            public Collection<Integer> subSet(int lo, int hi) { return t.subSet(lo, hi); }
+            public Collection<Integer> headSet(int hi) { return t.headSet(hi); }
+            public Collection<Integer> tailSet(int lo) { return t.tailSet(lo); }
+            public Spliterator<Integer> spliterator() { return t.spliterator(); }
+            public int size() { return t.size(); }
+            public void checkBalance() { }
+        };
+    }
+
+    // Runs the test against a new tree made by newTree
+    static void run(String name, Supplier<RankedTree> newTree) {
+        OUT.println("Checking " + name + " select/rank and range views... (no more output means success)");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            fuzz(newTree.get());
+        } finally {
+            System.setOut(OUT);
+        }
+    }
+
+    // Runs the random operations and checks against one tree
+    static void fuzz(RankedTree t) {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < OPS; i++) {
+            int x = random.nextInt(KEYS);
+            boolean ok = random.nextInt(5) < 3 ? t.insert(x) == expected.add(x) : t.remove(x) == expected.remove(x);
+            if (!ok)
+                OUT.println("Update error! (" + x + ")");
+            if (i % CHECK_EVERY == 0)
+                check(t, expected, random);
+        }
+        check(t, expected, random);
+
+        // out of range ranks are rejected
+        try {
+            t.select(t.size());
+            OUT.println("Select out of range error!");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    // Checks select, rank and countInRange against the expected keys
+    static void check(RankedTree t, TreeSet<Integer> expected, Random random) {
+        t.checkBalance();
+        if (t.size() != expected.size())
+            OUT.println("Size error! (" + t.size() + " vs " + expected.size() + ")");
+        List<Integer> sorted = new ArrayList<>(expected);
+        for (int k = 0; k < sorted.size(); k++) {
+            if (t.select(k) != sorted.get(k))
+                OUT.println("Select error! (" + k + ")");
+            if (t.rank(sorted.get(k)) != k)
+                OUT.println("Rank error! (" + sorted.get(k) + ")");
+        }
+        int absent = -1;     // less than every key
+        if (t.rank(absent) != 0)
+            OUT.println("Rank of absent key error!");
+        int lo = random.nextInt(KEYS);
+        int hi = lo + random.nextInt(KEYS - lo);
+        if (t.countInRange(lo, hi) != expected.subSet(lo, true, hi, true).size())
+            OUT.println("CountInRange error! (" + lo + ", " + hi + ")");
+
+        // the views, with bounds that may or may not be keys, and an empty range
+        checkView("SubSet", t.subSet(lo, hi), expected.subSet(lo, hi));
+        checkView("Empty subSet", t.subSet(lo, lo), expected.subSet(lo, lo));
+        checkView("HeadSet", t.headSet(hi), expected.headSet(hi));
+        checkView("TailSet", t.tailSet(lo), expected.tailSet(lo));
+        if (t.subSet(lo, hi).contains(hi) || t.subSet(lo, hi).contains(lo) != expected.contains(lo))
+            OUT.println("SubSet bounds error! (" + lo + ", " + hi + ")");
+
+        // splitting the whole tree all the way down gives back every key, in order
+        List<Integer> split = new ArrayList<>();
+        drain(t.spliterator(), split);
+        if (!split.equals(sorted))
+            OUT.println("Spliterator error!");
+    }
+
+    // Checks a view against the TreeSet's view of the same range, serially and in parallel
+    static void checkView(String name, Collection<Integer> view, Collection<Integer> expected) {
+        if (view.size() != expected.size())
+            OUT.println(name + " size error! (" + view.size() + " vs " + expected.size() + ")");
+        if (!new ArrayList<>(view).equals(new ArrayList<>(expected)))
+            OUT.println(name + " order error!");
+        long sum = expected.stream().mapToLong(Integer::longValue).sum();
+        if (StreamSupport.stream(view.spliterator(), true).count() != expected.size()
+                || StreamSupport.stream(view.spliterator(), true).mapToLong(Integer::longValue).sum() != sum)
+            OUT.println(name + " parallel stream error!");
+    }
+
+    // Splits a spliterator as long as it lets itself be split, then traverses the prefix before
+    // the rest, checking that the estimated sizes are exact
+    static void drain(Spliterator<Integer> s, List<Integer> out) {
+        long size = s.estimateSize();
+        int before = out.size();
+        Spliterator<Integer> prefix = s.trySplit();
+        if (prefix == null) {
+            s.forEachRemaining(out::add);
+        } else {
+            drain(prefix, out);
+            drain(s, out);
+        }
+        if (out.size() - before != size)
+            OUT.println("Spliterator size error! (" + (out.size() - before) + " vs " + size + ")");
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class TestPersistentAvl {
+    final static int KEYS = 2000;       // keys are drawn from 0 .. KEYS - 1
+    final static int OPS = 200000;
+    final static int SNAPSHOT_EVERY = 5000;
+
+    // Randomized test: inserts and removes random keys in a PersistentAVLTree and a TreeSet side
+    // by side, taking a snapshot of both every SNAPSHOT_EVERY operations; at the end every
+    // snapshot must still hold exactly what the TreeSet held when it was taken
+    public static void main( String [ ] args ) {
+        System.out.println("Checking PersistentAVLTree... (no more output means success)");
+        Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 42);
+        PersistentAVLTree<Integer> t = new PersistentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<PersistentAVLTree<Integer>> snapshots = new ArrayList<>();
+        List<TreeSet<Integer>> copies = new ArrayList<>();
+
+        for (int i = 0; i < OPS; i++) {
+            int x = random.nextInt(KEYS);
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (t.insert(x) != expected.add(x))
+                        System.out.println("Insert error! (" + x + ")");
+                    break;
+                case 1:
+                    if (t.remove(x) != expected.remove(x))
+                        System.out.println("Remove error! (" + x + ")");
+                    break;
+                default:
+                    if (t.contains(x) != expected.contains(x))
+                        System.out.println("Find error! (" + x + ")");
+            }
+            if (i % SNAPSHOT_EVERY == 0) {
+                t.checkBalance();
+                snapshots.add(t.snapshot());
+                copies.add(new TreeSet<>(expected));
+            }
+        }
+        check(t, expected);
+
+        // every snapshot is unchanged by the operations that came after it
+        for (int s = 0; s < snapshots.size(); s++) {
+            PersistentAVLTree<Integer> snapshot = snapshots.get(s);
+            if (!snapshot.isFrozen())
+                System.out.println("Snapshot not frozen!");
+            snapshot.checkBalance();
+            check(snapshot, copies.get(s));
+        }
+
+        // a snapshot cannot be changed
+        try {
+            snapshots.get(0).insert(-1);
+            System.out.println("Snapshot changed!");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    // Checks that a version of the tree holds exactly the expected keys
+    static void check(PersistentAVLTree<Integer> t, TreeSet<Integer> expected) {
+        if (t.size() != expected.size())
+            System.out.println("Size error! (" + t.size() + " vs " + expected.size() + ")");
+        for (int x = 0; x < KEYS; x++)
+            if (t.contains(x) != expected.contains(x))
+                System.out.println("Find error in version! (" + x + ")");
+        if (!expected.isEmpty() && (t.findMin() != (int) expected.first() || t.findMax() != (int) expected.last()))
+            System.out.println("FindMin or FindMax error!");
+    }
+}
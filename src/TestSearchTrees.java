@@ -0,0 +1,89 @@
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+public class TestSearchTrees {
+    final static int KEYS = 5000;       // keys are drawn from 0 .. KEYS - 1
+    final static int OPS = 300000;
+    final static int CHECK_EVERY = 1000;
+
+    // Randomized test of the SearchTree implementations: inserts, removes and looks up random
+    // keys in each tree and a TreeSet side by side, checking the tree's balance and contents
+    // every CHECK_EVERY operations. "bplus", "redblack", "treap" or "wavl" runs one kind of tree,
+    // no argument runs all; a second argument seeds the operations
+    public static void main( String [ ] args ) {
+        String which = args.length > 0 ? args[0] : "all";
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        if (which.equals("all") || which.equals("bplus")) {
+            // the smallest orders split and merge on almost every update
+            run("BPlusTree of order 3", new BPlusTree<>(3), BPlusTree::checkBalance, seed);
+            run("BPlusTree of order 4", new BPlusTree<>(4), BPlusTree::checkBalance, seed);
+            run("BPlusTree", new BPlusTree<>(), BPlusTree::checkBalance, seed);
+        }
+        if (which.equals("all") || which.equals("redblack"))
+            run("RedBlackTree", new RedBlackTree<>(), RedBlackTree::checkBalance, seed);
+        if (which.equals("all") || which.equals("treap"))
+            run("Treap", new Treap<>(seed), Treap::checkBalance, seed);
+        if (which.equals("all") || which.equals("wavl"))
+            run("WAVLTree", new WAVLTree<>(), WAVLTree::checkBalance, seed);
+    }
+
+    // Runs the random operations against one empty tree, then empties it and checks it again
+    static <T extends SearchTree<Integer>> void run(String name, T t, Consumer<T> checkBalance, long seed) {
+        System.out.println("Checking " + name + "... (no more output means success)");
+        Random random = new Random(seed);
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < OPS; i++) {
+            int x = random.nextInt(KEYS);
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (t.insert(x) != expected.add(x))
+                        System.out.println("Insert error! (" + x + ")");
+                    break;
+                case 1:
+                    if (t.remove(x) != expected.remove(x))
+                        System.out.println("Remove error! (" + x + ")");
+                    break;
+                default:
+                    if (t.contains(x) != expected.contains(x))
+                        System.out.println("Find error! (" + x + ")");
+            }
+            if (i % CHECK_EVERY == 0) {
+                checkBalance.accept(t);
+                check(t, expected);
+            }
+        }
+
+        // removes every key, in random order, down to an empty tree
+        Integer[] keys = expected.toArray(new Integer[0]);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer k = keys[i];
+            keys[i] = keys[j];
+            keys[j] = k;
+        }
+        for (Integer x : keys) {
+            if (!t.remove(x))
+                System.out.println("Remove error! (" + x + ")");
+            expected.remove(x);
+        }
+        checkBalance.accept(t);
+        check(t, expected);
+    }
+
+    // Checks that the tree holds exactly the expected keys, in order
+    static void check(SearchTree<Integer> t, TreeSet<Integer> expected) {
+        if (t.size() != expected.size() || t.isEmpty() != expected.isEmpty())
+            System.out.println("Size error! (" + t.size() + " vs " + expected.size() + ")");
+        Iterator<Integer> it = t.iterator();
+        for (Integer x : expected)
+            if (!it.hasNext() || !it.next().equals(x))
+                System.out.println("Order error! (" + x + ")");
+        if (it.hasNext())
+            System.out.println("Extra item error!");
+        if (!expected.isEmpty() && (t.findMin() != (int) expected.first() || t.findMax() != (int) expected.last()))
+            System.out.println("FindMin or FindMax error!");
+    }
+}
@@ -0,0 +1,344 @@
+/**********************************************************************************************
+ * @file : Treap.java
+ * @description : Treap class: a binary search tree on the items that is also a heap on a
+ *                random priority drawn for each node. The shape is the one a plain BSTree
+ *                would get from inserting the items in random order, whatever order they
+ *                really arrive in, so the expected depth is O(log n) with no balance
+ *                information beyond the priority. Sorted input, the worst case of BSTree,
+ *                is no worse than any other order.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer, or with a seed for repeatable shapes
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// Iterator iterator( )   --> Return an iterator over the items in sorted order
+// int height( )          --> Return the height of the tree
+// void checkBalance( )   --> Print a message if the heap order of the priorities is broken
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Implements a treap.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class Treap<AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
+    /** The tree root. */
+    private TreapNode<AnyType> root;
+
+    /** Number of items in the tree. */
+    private int size;
+
+    /** Source of node priorities. */
+    private final Random random;
+
+    /**
+     * Construct the tree.
+     */
+    public Treap( ) {
+        this( new Random( ) );
+    }
+
+    /**
+     * Construct the tree, drawing priorities from a seeded generator so that the same
+     * inserts always give the same shape.
+     * @param seed the seed for the priorities.
+     */
+    public Treap( long seed ) {
+        this( new Random( seed ) );
+    }
+
+    private Treap( Random random ) {
+        this.random = random;
+        root = null;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    @Override
+    public boolean insert( AnyType x ) {
+        int before = size;
+        root = insert( x, root );
+        return size > before;
+    }
+
+    /**
+     * Internal method to insert into a subtree. The new node goes in as a leaf, then is
+     * rotated up while its priority beats its parent's.
+     * @param x the item to insert.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private TreapNode<AnyType> insert( AnyType x, TreapNode<AnyType> t ) {
+        if (t == null) {
+            size++;
+            return new TreapNode<AnyType>(x, random.nextInt());
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = insert(x, t.left);
+            if (t.left.priority > t.priority) {
+                t = rotateWithLeftChild(t);
+            }
+        } else if (cmp < 0) {
+            t.right = insert(x, t.right);
+            if (t.right.priority > t.priority) {
+                t = rotateWithRightChild(t);
+            }
+        }
+        // else x is already in the tree; do nothing
+        return t;
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
+     */
+    @Override
+    public boolean remove( AnyType x ) {
+        int before = size;
+        root = remove( x, root );
+        return size < before;
+    }
+
+    /**
+     * Internal method to remove from a subtree. The node of x is replaced by the merge of
+     * its two subtrees, which keeps both orders without any rotation.
+     * @param x the item to remove.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private TreapNode<AnyType> remove( AnyType x, TreapNode<AnyType> t ) {
+        if (t == null) {
+            return null;    // Item not found; do nothing
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = remove(x, t.left);
+        } else if (cmp < 0) {
+            t.right = remove(x, t.right);
+        } else {
+            size--;
+            return merge(t.left, t.right);
+        }
+        return t;
+    }
+
+    /**
+     * Merge two treaps where every item of a is smaller than every item of b: the root
+     * with the higher priority stays on top and the other treap merges into its inner side.
+     * @return the root of the merged treap.
+     */
+    private TreapNode<AnyType> merge( TreapNode<AnyType> a, TreapNode<AnyType> b ) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        return b;
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    @Override
+    public boolean contains( AnyType x ) {
+        TreapNode<AnyType> t = root;
+        while (t != null) {
+            int cmp = t.element.compareTo(x);
+            if (cmp == 0) {
+                return true;
+            }
+            t = cmp > 0 ? t.left : t.right;
+        }
+        return false;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    @Override
+    public AnyType findMin( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        TreapNode<AnyType> t = root;
+        while (t.left != null) {
+            t = t.left;
+        }
+        return t.element;
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    @Override
+    public AnyType findMax( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        TreapNode<AnyType> t = root;
+        while (t.right != null) {
+            t = t.right;
+        }
+        return t.element;
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    @Override
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Return the height of the tree; -1 if it is empty.
+     */
+    public int height( ) {
+        return height( root );
+    }
+
+    private int height( TreapNode<AnyType> t ) {
+        return t == null ? -1 : 1 + Math.max(height(t.left), height(t.right));
+    }
+
+    /**
+     * Make the tree logically empty.
+     */
+    @Override
+    public void makeEmpty( ) {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    @Override
+    public boolean isEmpty( ) {
+        return root == null;
+    }
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    @Override
+    public void printTree( ) {
+        if( isEmpty( ) )
+            System.out.println( "Empty tree" );
+        else
+            for (AnyType x : this)
+                System.out.print(x.toString() + "\n");
+    }
+
+    /**
+     * Return an iterator over the items in sorted order, produced lazily from an explicit
+     * stack. The tree must not be changed while it is being iterated.
+     */
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        ArrayDeque<TreapNode<AnyType>> stack = new ArrayDeque<>();
+        for (TreapNode<AnyType> t = root; t != null; t = t.left) {
+            stack.push(t);
+        }
+        return new Iterator<AnyType>() {
+            @Override
+            public boolean hasNext( ) {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public AnyType next( ) {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                TreapNode<AnyType> t = stack.pop();
+                for (TreapNode<AnyType> p = t.right; p != null; p = p.left) {
+                    stack.push(p);
+                }
+                return t.element;
+            }
+        };
+    }
+
+    /**
+     * Verifies the heap order: no node has a higher priority than its parent.
+     */
+    public void checkBalance( ) {
+        checkBalance( root );
+    }
+
+    private void checkBalance( TreapNode<AnyType> t ) {
+        if (t == null) {
+            return;
+        }
+        if ((t.left != null && t.left.priority > t.priority) || (t.right != null && t.right.priority > t.priority)) {
+            System.out.println("OOPS!! child priority above its parent's at " + t.element);
+        }
+        checkBalance(t.left);
+        checkBalance(t.right);
+    }
+
+    /**
+     * Rotate binary tree node with left child.
+     * Return the new root.
+     */
+    private TreapNode<AnyType> rotateWithLeftChild( TreapNode<AnyType> k2 ) {
+        TreapNode<AnyType> k1 = k2.left;
+        k2.left = k1.right;
+        k1.right = k2;
+        return k1;
+    }
+
+    /**
+     * Rotate binary tree node with right child.
+     * Return the new root.
+     */
+    private TreapNode<AnyType> rotateWithRightChild( TreapNode<AnyType> k1 ) {
+        TreapNode<AnyType> k2 = k1.right;
+        k1.right = k2.left;
+        k2.left = k1;
+        return k2;
+    }
+
+    private static class TreapNode<AnyType> {
+        TreapNode( AnyType theElement, int thePriority ) {
+            element  = theElement;
+            priority = thePriority;
+        }
+
+        AnyType             element;      // The data in the node
+        TreapNode<AnyType>  left;         // Left child
+        TreapNode<AnyType>  right;        // Right child
+        int                 priority;     // Heap priority; a parent's is never lower
+    }
+}
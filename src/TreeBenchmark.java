@@ -0,0 +1,1589 @@
+/**********************************************************************************************
+ * @file : TreeBenchmark.java
+ * @description : Benchmark suite for the search trees. Every benchmark is one operation
+ *                (insert, bulkLoad, parallelBulkLoad, contains, concurrentContains, remove,
+ *                select, rank, range)
+ *                on one structure (AVLTree, BSTree, ConcurrentAVLTree, ...) over one
+ *                Villager workload (random, sorted, reverse-sorted, zipfian) of a given size.
+ *                Benchmarks run in forked JVMs with warmup and measurement iterations, in the
+ *                same spirit as JMH, and the scores are reported in throughput (ops/s) and
+ *                average time (ns/op) modes as CSV and JSON files.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
+ * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
+ *********************************************************************************************/
+//
+// USAGE: java TreeBenchmark [option=value ...]
+//
+// ******************OPTIONS*******************************
+// data=villagers.csv              --> Dataset the workloads are built from
+// source=dataset                  --> dataset: cycle the dataset's villagers to reach each size;
+//                                     generated: generate each workload with the dataset's
+//                                     distributions (see VillagerGenerator), villager by
+//                                     villager as it is read, for sizes up to 10^8; the timings
+//                                     and bytes allocated then include making each villager
+//                                     read in the timed loop
+// sizes=1000,10000,100000         --> Workload sizes
+// structures=AVLTree,BSTree,...   --> Trees to benchmark: AVLTree, BSTree, GuardedBSTree
+//                                     (GuardedBSTree also reports its rebuild time in ns/op),
+//                                     PersistentAVLTree (path copying), VillagerStore (off-
+//                                     heap, in the temp directory), ConcurrentAVLTree,
+//                                     LockedAVLTree (an AVLTree behind a read-write lock), and
+//                                     BPlusTree (of the default order, or BPlusTree/n for order n),
+//                                     RedBlackTree (left-leaning), Treap and WAVLTree
+// ops=insert,contains,remove,...  --> Operations to benchmark: insert, bulkLoad (building the
+//                                     tree from the whole workload in one call), parallelBulkLoad
+//                                     (AVLTree's bulk load on a pool of each thread count),
+//                                     contains, concurrentContains (lookups from each thread
+//                                     count of readers while one writer updates the tree, for
+//                                     ConcurrentAVLTree and LockedAVLTree), remove, insertAll
+//                                     and removeAll (AVLTree's batch updates, at each batch
+//                                     size), select and rank (the order statistics of AVLTree,
+//                                     BSTree and GuardedBSTree, at the ranks of the lookups;
+//                                     the cost of keeping subtree sizes for them shows in the
+//                                     insert and remove scores), range (scans of 1% of the tree
+//                                     through subSet, from the first RANGE_SCANS lookups, on the
+//                                     same trees and BPlusTree; scored per scan), compare (Villager.compareTo's
+//                                     packed key vs comparing field by field, over pairs of
+//                                     workload keys), and csvRebuild and snapshotLoad (startup of
+//                                     AVLTree and BSTree: parsing a CSV of the workload and
+//                                     inserting each villager, vs loading a TreeSnapshot of the
+//                                     finished tree; the files are written untimed, so both
+//                                     read from the page cache), and durableInsert (inserts
+//                                     into a DurableAVLTree in the temp directory from each
+//                                     thread count of writers, under each Durability: SYNC,
+//                                     GROUP and ASYNC; at most DURABLE_KEYS keys per pass),
+//                                     and cachedContains (contains through a CachedSearchTree
+//                                     over AVLTree and BSTree, for each cache policy, LRU and
+//                                     TINY_LFU, and cache size; also reports the hit rate)
+// workloads=random,sorted,...     --> Key orders: random, sorted, reverse, partial (sorted, with
+//                                     each run of VillagerGenerator.PARTIAL_BLOCK keys
+//                                     shuffled), clustered (VillagerGenerator.CLUSTERS ranges
+//                                     of neighbouring keys in random order), zipfian
+// threads=1,2,4,...               --> Thread counts for parallelBulkLoad, concurrentContains
+//                                     and durableInsert
+//                                     (default: powers of two up to the number of processors,
+//                                     and that number)
+// batchSizes=10,100,1000,10000    --> Batch sizes for insertAll and removeAll
+// cacheSizes=100,1000             --> Cache capacities for cachedContains
+// modes=thrpt,avgt                --> Throughput (ops/s) and/or average time (ns/op);
+//                                     insert benchmarks also report compareTo calls per insert,
+//                                     AVLTree's insert benchmarks its rotations per insert and
+//                                     per second, insert and remove benchmarks the bytes
+//                                     allocated per write, and cachedContains benchmarks the
+//                                     share of lookups the cache answered
+// forks=2                         --> Forked JVMs per benchmark (0 runs in this JVM)
+// warmups=3                       --> Warmup iterations per fork
+// iterations=5                    --> Measurement iterations per fork
+// iterationMillis=200             --> Minimum timed duration of one iteration
+// seed=42                         --> Seed for shuffling and zipfian draws
+// out=bench-results               --> Results are written to out.csv and out.json
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class TreeBenchmark {
+    /** Marks the result lines that a forked JVM reports back to its parent. */
+    private static final String RESULT_PREFIX = "#RESULT\t";
+
+    /** Marks a benchmark that a forked JVM could not complete. */
+    private static final String FAILED_PREFIX = "#FAILED\t";
+
+    /** Exponent of the zipfian lookup distribution (the usual YCSB constant). */
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /** Structures measured by the select and rank operations: those newTree makes an OrderedTree. */
+    private static final List<String> ORDERED = List.of("AVLTree", "BSTree", "GuardedBSTree");
+
+    /** Structures measured by the range operation: those newTree makes a RangedTree. */
+    private static final List<String> RANGED = List.of("AVLTree", "BSTree", "GuardedBSTree", "BPlusTree");
+
+    /** Structures measured by the cachedContains operation, behind each policy in CACHE_POLICIES. */
+    private static final List<String> CACHED = List.of("AVLTree", "BSTree");
+    private static final List<String> CACHE_POLICIES = List.of("LRU", "TINY_LFU");
+
+    /** Structures measured by the csvRebuild and snapshotLoad operations. */
+    private static final List<String> SNAPSHOTTED = List.of("AVLTree", "BSTree");
+
+    /** Operations that only read the finished tree, so a skewed access stream applies to them. */
+    private static final List<String> LOOKUPS = List.of("contains", "cachedContains", "concurrentContains", "select",
+            "rank", "range");
+
+    /** Number of range scans in one pass of the range operation, and the share of the tree each covers. */
+    private static final int RANGE_SCANS = 100;
+    private static final int RANGE_PERCENT = 1;
+
+    /** Most keys one pass of durableInsert writes, so that a pass forcing the log after every
+     *  insert takes seconds, not minutes, on a slow disk. */
+    private static final int DURABLE_KEYS = 2000;
+
+    /** Villager orderings measured by the compare operation. */
+    private static final List<String> COMPARATORS = List.of("packedKey", "fieldChain");
+
+    /** Warmup and measurement passes used by averageNanos(). */
+    private static final int QUICK_WARMUPS = 5;
+    private static final int QUICK_ITERATIONS = 10;
+
+    /** Sink for benchmark results so the JIT cannot discard the measured work. */
+    private static long blackhole;
+
+    /** Number of VillagerStore files created so far, to name the next one. */
+    private static int storeCount;
+
+    /** The file startupOnce wrote last, and what it holds, so later passes can reuse it. */
+    private static String startupFile;
+    private static List<Villager> startupKeys;
+
+    /** Pools used by parallelBulkLoad, by thread count, kept so pool startup is not timed. */
+    private static final Map<Integer, ForkJoinPool> POOLS = new HashMap<>();
+
+    // Benchmark parameters, see the option list above
+    private String dataFile = "villagers.csv";
+    private String source = "dataset";
+    private int[] sizes = {1000, 10000, 100000};
+    private List<String> structures = List.of("AVLTree", "BSTree", "GuardedBSTree", "PersistentAVLTree", "BPlusTree",
+            "RedBlackTree", "Treap", "WAVLTree");
+    private List<String> operations = List.of("insert", "insertAll", "bulkLoad", "parallelBulkLoad", "contains",
+            "concurrentContains", "remove", "removeAll", "select", "rank", "range", "compare", "csvRebuild",
+            "snapshotLoad", "durableInsert", "cachedContains");
+    private List<String> workloads = List.of("random", "sorted", "reverse", "zipfian");
+    private List<String> modes = List.of("thrpt", "avgt");
+    private int[] threads = defaultThreads();
+    private int[] batchSizes = {10, 100, 1000, 10000};
+    private int[] cacheSizes = {100, 1000};
+    private int forks = 2;
+    private int warmups = 3;
+    private int iterations = 5;
+    private long iterationNanos = 200_000_000L;
+    private long seed = 42;
+    private String out = "bench-results";
+    private int forkIndex = -1;      // >= 0 only inside a forked JVM
+
+    /**
+     * Minimal view of a search tree, so every structure runs through the same benchmark loop.
+     */
+    interface Tree {
+        void insert(Villager v);
+        boolean contains(Villager v);
+        void remove(Villager v);
+
+        /** Inserts all keys in one call; one insert at a time for trees without a bulk load. */
+        default void bulkLoad(List<Villager> keys) {
+            for (Villager v : keys) {
+                insert(v);
+            }
+        }
+
+        /** Nanoseconds spent rebuilding degenerate subtrees, for trees that do so. */
+        default long rebuildNanos() { return 0; }
+
+        /** Releases the tree's resources, for trees that hold any. */
+        default void close() { }
+    }
+
+    /**
+     * A tree with range views, for the range operation.
+     */
+    interface RangedTree extends Tree {
+        /** Returns the items from lo, inclusive, to hi, exclusive. */
+        Iterable<Villager> subSet(Villager lo, Villager hi);
+    }
+
+    /**
+     * A tree that keeps subtree sizes, for the select and rank operations, and has range views.
+     */
+    interface OrderedTree extends RangedTree {
+        /** Returns the item of rank k. */
+        Villager select(int k);
+
+        /** Returns the number of items less than v. */
+        int rank(Villager v);
+    }
+
+    /**
+     * The keys of one benchmark: the order they are inserted/removed in, and the
+     * sequence of lookups made against the finished tree.
+     */
+    static class Workload {
+        final List<Villager> keys;
+        final List<Villager> accesses;
+
+        Workload(List<Villager> keys, List<Villager> accesses) {
+            this.keys = keys;
+            this.accesses = accesses;
+        }
+    }
+
+    /**
+     * Aggregated score of one benchmark in one mode.
+     */
+    static class Result {
+        String operation, structure, workload, mode, unit;
+        int size, samples;
+        double score, error;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        TreeBenchmark bench = new TreeBenchmark();
+        bench.parse(args);
+        if (bench.forkIndex >= 0) {
+            bench.runFork();         // inside a forked JVM: measure and report raw samples
+        } else {
+            bench.runAll();
+        }
+    }
+
+    /**
+     * Reads option=value arguments into the benchmark parameters.
+     * @param args the command line arguments.
+     */
+    private void parse(String[] args) {
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected option=value, got " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "data": dataFile = value; break;
+                case "source": source = value; break;
+                case "sizes": sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "structures": structures = List.of(value.split(",")); break;
+                case "ops": operations = List.of(value.split(",")); break;
+                case "workloads": workloads = List.of(value.split(",")); break;
+                case "threads": threads = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "batchSizes": batchSizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "cacheSizes": cacheSizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "modes": modes = List.of(value.split(",")); break;
+                case "forks": forks = Integer.parseInt(value); break;
+                case "warmups": warmups = Integer.parseInt(value); break;
+                case "iterations": iterations = Integer.parseInt(value); break;
+                case "iterationMillis": iterationNanos = Long.parseLong(value) * 1_000_000L; break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "out": out = value; break;
+                case "fork": forkIndex = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + key);
+            }
+        }
+    }
+
+    /**
+     * Runs every benchmark, either in forked JVMs or in this one, then writes the reports.
+     */
+    private void runAll() throws IOException, InterruptedException {
+        // samples[benchmark id] -> (ops, nanos) pairs from every fork
+        Map<String, List<long[]>> samples = new LinkedHashMap<>();
+        List<String> failures = new ArrayList<>();
+        if (forks == 0) {
+            collect(measureAll(0), samples, failures);
+        } else {
+            for (int f = 0; f < forks; f++) {
+                collect(fork(f), samples, failures);
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, List<long[]>> e : samples.entrySet()) {
+            for (String mode : modes) {
+                results.add(score(e.getKey(), mode, e.getValue()));
+            }
+            if (e.getKey().contains("Guarded")) {
+                results.add(score(e.getKey(), "rebuild", e.getValue()));
+            }
+        }
+        results.addAll(compareCounts());
+        results.addAll(rotationCounts());
+        results.addAll(allocationCounts());
+        results.addAll(cacheHitRates());
+        // A benchmark without samples has no score, which neither CSV nor JSON can hold
+        results.removeIf(r -> {
+            if (Double.isFinite(r.score)) {
+                return false;
+            }
+            failures.add(r.operation + "," + r.structure + "," + r.workload + "," + r.size + " " + r.mode
+                    + " (no score)");
+            return true;
+        });
+        printResults(results, failures);
+        writeCsv(results, out + ".csv");
+        writeJson(results, out + ".json");
+    }
+
+    /**
+     * Runs one fork in this JVM and reports its raw samples on standard output.
+     */
+    private void runFork() throws IOException {
+        for (String line : measureAll(forkIndex)) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Launches a forked JVM with the same parameters and gathers the lines it reports.
+     * @param f the fork index.
+     * @return the result and failure lines of the fork.
+     */
+    private List<String> fork(int f) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TreeBenchmark.class.getName());
+        command.add("data=" + dataFile);
+        command.add("source=" + source);
+        command.add("sizes=" + String.join(",", Arrays.stream(sizes).mapToObj(String::valueOf).toArray(String[]::new)));
+        command.add("structures=" + String.join(",", structures));
+        command.add("ops=" + String.join(",", operations));
+        command.add("workloads=" + String.join(",", workloads));
+        command.add("threads=" + String.join(",", Arrays.stream(threads).mapToObj(String::valueOf).toArray(String[]::new)));
+        command.add("batchSizes=" + String.join(",", Arrays.stream(batchSizes).mapToObj(String::valueOf).toArray(String[]::new)));
+        command.add("cacheSizes=" + String.join(",", Arrays.stream(cacheSizes).mapToObj(String::valueOf).toArray(String[]::new)));
+        command.add("warmups=" + warmups);
+        command.add("iterations=" + iterations);
+        command.add("iterationMillis=" + iterationNanos / 1_000_000L);
+        command.add("seed=" + seed);
+        command.add("fork=" + f);
+
+        Process child = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX) || line.startsWith(FAILED_PREFIX)) {
+                    lines.add(line);
+                } else {
+                    System.out.println("[fork " + f + "] " + line);
+                }
+            }
+        }
+        if (child.waitFor() != 0) {
+            System.err.println("Fork " + f + " exited with status " + child.exitValue());
+        }
+        return lines;
+    }
+
+    /**
+     * Sorts reported lines into per-benchmark samples and failures.
+     */
+    private static void collect(List<String> lines, Map<String, List<long[]>> samples, List<String> failures) {
+        for (String line : lines) {
+            if (line.startsWith(FAILED_PREFIX)) {
+                String failure = line.substring(FAILED_PREFIX.length());
+                if (!failures.contains(failure)) {
+                    failures.add(failure);
+                }
+                continue;
+            }
+            // id \t ops \t nanos \t rebuild nanos
+            String[] parts = line.substring(RESULT_PREFIX.length()).split("\t");
+            samples.computeIfAbsent(parts[0], k -> new ArrayList<>()).add(new long[]{
+                    Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3])});
+        }
+    }
+
+    /**
+     * Measures every benchmark in this JVM.
+     * @param f the fork index, which varies the workload shuffle between forks.
+     * @return one result line per measurement iteration, plus one line per failed benchmark.
+     */
+    private List<String> measureAll(int f) throws IOException {
+        List<Villager> base = Proj2.readVillagers(dataFile, Integer.MAX_VALUE);
+        List<String> lines = new ArrayList<>();
+        for (int size : sizes) {
+            for (String workloadName : workloads) {
+                Workload w = newWorkload(base, size, workloadName, seed + f);
+                for (String operation : operations) {
+                    if (workloadName.equals("zipfian") && !LOOKUPS.contains(operation)) {
+                        continue;       // a skewed stream only makes sense for lookups
+                    }
+                    for (String structure : subjectsOf(operation)) {
+                        String id = operation + "," + structure + "," + workloadName + "," + size;
+                        try {
+                            for (long[] sample : measure(structure, operation, w)) {
+                                lines.add(RESULT_PREFIX + id + "\t" + sample[0] + "\t" + sample[1] + "\t" + sample[2]);
+                            }
+                        } catch (StackOverflowError e) {
+                            lines.add(FAILED_PREFIX + id + " (StackOverflowError)");
+                        }
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Runs the warmup iterations, then the measurement iterations, of one benchmark.
+     * An iteration repeats the operation over the workload until at least iterationNanos
+     * of timed work has been done; setup work (building trees) is excluded from the timing.
+     * @return (operations, nanoseconds, rebuild nanoseconds) for each measurement iteration.
+     */
+    private List<long[]> measure(String structure, String operation, Workload w) {
+        List<long[]> samples = new ArrayList<>();
+        for (int i = 0; i < warmups + iterations; i++) {
+            long ops = 0;
+            long nanos = 0;
+            long rebuild = 0;
+            while (nanos < iterationNanos) {
+                long[] pass = runOnce(structure, operation, w);
+                nanos += pass[0];
+                rebuild += pass[1];
+                ops += opsPerPass(structure, operation, w);
+            }
+            if (i >= warmups) {
+                samples.add(new long[]{ops, nanos, rebuild});
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Returns the number of operations in one pass of runOnce.
+     */
+    static long opsPerPass(String structure, String operation, Workload w) {
+        switch (operation) {
+            case "contains":
+            case "cachedContains":
+            case "select":
+            case "rank":
+                return w.accesses.size();
+            case "concurrentContains":
+                return (long) w.accesses.size() * subjectCount(structure);
+            case "range":
+                return Math.min(RANGE_SCANS, w.accesses.size());
+            case "durableInsert":
+                return Math.min(DURABLE_KEYS, w.keys.size());
+            default:
+                return w.keys.size();
+        }
+    }
+
+    /**
+     * Runs one pass of an operation over a workload.
+     * @return the nanoseconds spent in the timed part of the pass, the part of those spent
+     *         rebuilding degenerate subtrees, and (for the single-threaded tree operations)
+     *         the bytes this thread allocated in the timed part.
+     */
+    static long[] runOnce(String structure, String operation, Workload w) {
+        if (operation.equals("compare")) {
+            return compareOnce(structure, w.keys);
+        }
+        if (operation.equals("parallelBulkLoad")) {
+            return parallelBulkLoadOnce(structure, w.keys);
+        }
+        if (operation.equals("concurrentContains")) {
+            return concurrentContainsOnce(structure, w);
+        }
+        if (operation.equals("insertAll") || operation.equals("removeAll")) {
+            return batchOnce(structure, operation, w.keys);
+        }
+        if (operation.equals("csvRebuild") || operation.equals("snapshotLoad")) {
+            return startupOnce(structure, operation, w.keys);
+        }
+        if (operation.equals("durableInsert")) {
+            return durableInsertOnce(structure, w.keys);
+        }
+        Tree t = newTree(structure);
+        long start, end, rebuildStart, allocStart;
+        long sink = 0;
+        switch (operation) {
+            case "insert":
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                for (Villager v : w.keys) {
+                    t.insert(v);
+                }
+                end = System.nanoTime();
+                break;
+            case "bulkLoad":
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                t.bulkLoad(w.keys);
+                end = System.nanoTime();
+                break;
+            case "contains":
+            case "cachedContains":
+                for (Villager v : w.keys) {
+                    t.insert(v);
+                }
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                for (Villager v : w.accesses) {
+                    if (t.contains(v)) {
+                        sink++;
+                    }
+                }
+                end = System.nanoTime();
+                break;
+            case "select": {
+                for (Villager v : w.keys) {
+                    t.insert(v);
+                }
+                OrderedTree o = (OrderedTree) t;
+                int[] ranks = new int[w.accesses.size()];       // look up the ranks the accesses have
+                for (int i = 0; i < ranks.length; i++) {
+                    ranks[i] = o.rank(w.accesses.get(i));
+                }
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                for (int k : ranks) {
+                    sink += o.select(k).getSongRank();
+                }
+                end = System.nanoTime();
+                break;
+            }
+            case "rank": {
+                for (Villager v : w.keys) {
+                    t.insert(v);
+                }
+                OrderedTree o = (OrderedTree) t;
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                for (Villager v : w.accesses) {
+                    sink += o.rank(v);
+                }
+                end = System.nanoTime();
+                break;
+            }
+            case "range": {
+                for (Villager v : w.keys) {
+                    t.insert(v);
+                }
+                // each scan starts at a lookup and ends RANGE_PERCENT of the tree later
+                int scans = Math.min(RANGE_SCANS, w.accesses.size());
+                int width = Math.max(1, w.keys.size() * RANGE_PERCENT / 100);
+                List<Villager> sorted = new ArrayList<>(w.keys);
+                Collections.sort(sorted);
+                Villager[] los = new Villager[scans];
+                Villager[] his = new Villager[scans];
+                for (int i = 0; i < scans; i++) {
+                    los[i] = w.accesses.get(i);
+                    his[i] = sorted.get(Math.min(Collections.binarySearch(sorted, los[i]) + width, sorted.size() - 1));
+                }
+                RangedTree ranged = (RangedTree) t;
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                for (int i = 0; i < scans; i++) {
+                    for (Villager v : ranged.subSet(los[i], his[i])) {
+                        sink += v.getSongRank();
+                    }
+                }
+                end = System.nanoTime();
+                break;
+            }
+            case "remove":
+                for (Villager v : w.keys) {
+                    t.insert(v);
+                }
+                rebuildStart = t.rebuildNanos();
+                allocStart = allocatedBytes();
+                start = System.nanoTime();
+                for (Villager v : w.keys) {
+                    t.remove(v);
+                }
+                end = System.nanoTime();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        long allocated = allocatedBytes() - allocStart;
+        blackhole += sink;
+        long rebuild = t.rebuildNanos() - rebuildStart;
+        t.close();
+        return new long[]{end - start, rebuild, allocated};
+    }
+
+    /**
+     * Compares every key with the key half the workload away, a mix of near and far
+     * keys like the ones a tree descent meets.
+     * @param comparator packedKey (Villager.compareTo) or fieldChain (Villager.compareFields).
+     * @return the nanoseconds spent comparing, and 0 rebuild nanoseconds.
+     */
+    static long[] compareOnce(String comparator, List<Villager> keys) {
+        int n = keys.size();
+        int half = n / 2;
+        long sink = 0;
+        long start = System.nanoTime();
+        if (comparator.equals("packedKey")) {
+            for (int i = 0; i < n; i++) {
+                sink += keys.get(i).compareTo(keys.get(i < half ? i + half : i - half));
+            }
+        } else if (comparator.equals("fieldChain")) {
+            for (int i = 0; i < n; i++) {
+                sink += Villager.compareFields(keys.get(i), keys.get(i < half ? i + half : i - half));
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown comparator " + comparator);
+        }
+        long end = System.nanoTime();
+        blackhole += sink;
+        return new long[]{end - start, 0};
+    }
+
+    /**
+     * Bulk loads the keys into a fresh AVLTree on a pool of the given size.
+     * @param subject AVLTree/n, where n is the number of pool threads.
+     * @return the nanoseconds spent loading, and 0 rebuild nanoseconds.
+     */
+    static long[] parallelBulkLoadOnce(String subject, List<Villager> keys) {
+        int n = subjectCount(subject);
+        ForkJoinPool pool = POOLS.computeIfAbsent(n, ForkJoinPool::new);
+        AVLTree<Villager> t = new AVLTree<>();
+        long start = System.nanoTime();
+        t.bulkLoad(keys, pool);
+        long end = System.nanoTime();
+        blackhole += t.isEmpty() ? 0 : 1;
+        return new long[]{end - start, 0};
+    }
+
+    /**
+     * Inserts the keys into a fresh AVLTree, or removes them from a full one, in batches of
+     * the given size, so the time per key can be set against one insert or remove per key.
+     * @param subject AVLTree/n, where n is the batch size.
+     * @param operation insertAll or removeAll.
+     * @return the nanoseconds spent applying the batches, and 0 rebuild nanoseconds.
+     */
+    static long[] batchOnce(String subject, String operation, List<Villager> keys) {
+        int n = subjectCount(subject);
+        AVLTree<Villager> t = new AVLTree<>();
+        boolean insert = operation.equals("insertAll");
+        if (!insert) {
+            t.bulkLoad(keys);
+        }
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.size(); i += n) {
+            List<Villager> batch = keys.subList(i, Math.min(keys.size(), i + n));
+            sink += insert ? t.insertAll(batch) : t.removeAll(batch);
+        }
+        long end = System.nanoTime();
+        blackhole += sink;
+        return new long[]{end - start, 0};
+    }
+
+    /**
+     * Times one startup of a tree holding the keys: either reading them from a CSV file (in
+     * villagers.csv's format, with just the four columns a Villager needs) and inserting
+     * them in file order, or loading a snapshot of the tree that inserting them builds.
+     * Writing the file is not timed, and the file is kept for the next pass over the
+     * same keys.
+     * @param structure AVLTree or BSTree.
+     * @param operation csvRebuild or snapshotLoad.
+     * @return the nanoseconds spent reading and building, and 0 rebuild nanoseconds.
+     */
+    static long[] startupOnce(String structure, String operation, List<Villager> keys) {
+        String file = System.getProperty("java.io.tmpdir") + "/tree-benchmark-" + ProcessHandle.current().pid()
+                + "-" + structure + (operation.equals("csvRebuild") ? ".csv" : ".snap");
+        try {
+            boolean fresh = !file.equals(startupFile) || keys != startupKeys;
+            if (fresh && startupFile != null) {
+                Files.deleteIfExists(Paths.get(startupFile));
+            }
+            startupFile = file;
+            startupKeys = keys;
+            long start, end;
+            long sink;
+            if (operation.equals("csvRebuild")) {
+                if (fresh) {
+                    VillagerGenerator.writeCsv(keys, file);
+                }
+                start = System.nanoTime();
+                Tree t = newTree(structure);
+                try (VillagerCsvReader reader = VillagerCsvReader.open(file)) {
+                    while (reader.hasNext()) {
+                        t.insert(reader.next());
+                    }
+                }
+                end = System.nanoTime();
+                sink = t.hashCode();
+            } else if (structure.equals("AVLTree")) {
+                if (fresh) {
+                    AVLTree<Villager> saved = new AVLTree<>();
+                    keys.forEach(saved::insert);
+                    saved.save(file, TreeSnapshot.VILLAGERS);
+                }
+                start = System.nanoTime();
+                AVLTree<Villager> t = AVLTree.load(file, TreeSnapshot.VILLAGERS);
+                end = System.nanoTime();
+                sink = t.size();
+            } else {
+                if (fresh) {
+                    BSTree<Villager> saved = new BSTree<>();
+                    keys.forEach(saved::insert);
+                    saved.save(file, TreeSnapshot.VILLAGERS);
+                }
+                start = System.nanoTime();
+                BSTree<Villager> t = BSTree.load(file, TreeSnapshot.VILLAGERS);
+                end = System.nanoTime();
+                sink = t.size();
+            }
+            blackhole += sink;
+            new File(file).deleteOnExit();
+            return new long[]{end - start, 0};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inserts the first DURABLE_KEYS keys into a new DurableAVLTree from n writer threads at
+     * once, each inserting every nth key, so the group commit of GROUP has concurrent
+     * inserts to batch. Opening and closing the tree are not timed, so the last forces of
+     * an ASYNC tree are not either.
+     * @param subject durability/n, where n is the number of writer threads.
+     * @return the nanoseconds until every writer is done, and 0 rebuild nanoseconds.
+     */
+    static long[] durableInsertOnce(String subject, List<Villager> keys) {
+        int n = subjectCount(subject);
+        DurableAVLTree.Durability durability = DurableAVLTree.Durability.valueOf(subject.substring(0, subject.indexOf('/')));
+        List<Villager> inserts = keys.subList(0, Math.min(DURABLE_KEYS, keys.size()));
+        String base = System.getProperty("java.io.tmpdir") + "/tree-benchmark-" + ProcessHandle.current().pid() + "-wal";
+        try {
+            DurableAVLTree.delete(base);
+            DurableAVLTree<Villager> t = DurableAVLTree.open(base, TreeSnapshot.VILLAGERS, durability);
+            CountDownLatch ready = new CountDownLatch(n);
+            CountDownLatch go = new CountDownLatch(1);
+            Thread[] writers = new Thread[n];
+            for (int r = 0; r < n; r++) {
+                int first = r;
+                writers[r] = new Thread(() -> {
+                    ready.countDown();
+                    awaitQuietly(go);
+                    for (int i = first; i < inserts.size(); i += n) {
+                        t.insert(inserts.get(i));
+                    }
+                });
+                writers[r].start();
+            }
+            awaitQuietly(ready);        // thread startup is not timed
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread writer : writers) {
+                joinQuietly(writer);
+            }
+            long end = System.nanoTime();
+            blackhole += t.size();
+            t.close();
+            DurableAVLTree.delete(base);
+            return new long[]{end - start, 0};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Looks up the accesses from n reader threads at once, each starting at a different
+     * point, while one writer thread keeps removing and re-inserting keys.
+     * @param subject structure/n, where n is the number of reader threads.
+     * @return the nanoseconds until every reader is done, and 0 rebuild nanoseconds.
+     */
+    static long[] concurrentContainsOnce(String subject, Workload w) {
+        int n = subjectCount(subject);
+        Tree t = newTree(subject.substring(0, subject.indexOf('/')));
+        for (Villager v : w.keys) {
+            t.insert(v);
+        }
+        CountDownLatch ready = new CountDownLatch(n + 1);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong sink = new AtomicLong();
+
+        Thread writer = new Thread(() -> {
+            ready.countDown();
+            awaitQuietly(go);
+            for (int i = 0; !done.get(); i = (i + 1) % w.keys.size()) {
+                t.remove(w.keys.get(i));
+                t.insert(w.keys.get(i));
+            }
+        });
+        Thread[] readers = new Thread[n];
+        for (int r = 0; r < n; r++) {
+            int offset = (int) ((long) r * w.accesses.size() / n);
+            readers[r] = new Thread(() -> {
+                ready.countDown();
+                awaitQuietly(go);
+                long found = 0;
+                int size = w.accesses.size();
+                for (int i = 0; i < size; i++) {
+                    if (t.contains(w.accesses.get((offset + i) % size))) {
+                        found++;
+                    }
+                }
+                sink.addAndGet(found);
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+
+        awaitQuietly(ready);        // thread startup is not timed
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread reader : readers) {
+            joinQuietly(reader);
+        }
+        long end = System.nanoTime();
+        done.set(true);
+        joinQuietly(writer);
+        blackhole += sink.get();
+        return new long[]{end - start, 0};
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns what an operation is run on: each structure for most operations, but each
+     * comparator for compare, each thread count for the multi-threaded operations (and each
+     * durability, for durableInsert), each batch size for the batch operations, and each
+     * cache policy and size for cachedContains.
+     */
+    private List<String> subjectsOf(String operation) {
+        switch (operation) {
+            case "compare":
+                return COMPARATORS;
+            case "parallelBulkLoad":
+                return subjects(List.of("AVLTree"), threads);
+            case "concurrentContains":
+                return subjects(List.of("ConcurrentAVLTree", "LockedAVLTree"), threads);
+            case "durableInsert":
+                return subjects(List.of("SYNC", "GROUP", "ASYNC"), threads);
+            case "cachedContains": {
+                List<String> cached = new ArrayList<>();
+                for (String structure : structures) {
+                    if (CACHED.contains(structure)) {
+                        for (String policy : CACHE_POLICIES) {
+                            cached.add(structure + "+" + policy);
+                        }
+                    }
+                }
+                return subjects(cached, cacheSizes);
+            }
+            case "insertAll":
+            case "removeAll":
+                return subjects(List.of("AVLTree"), batchSizes);
+            case "select":
+            case "rank": {
+                List<String> ordered = new ArrayList<>(structures);
+                ordered.retainAll(ORDERED);
+                return ordered;
+            }
+            case "csvRebuild":
+            case "snapshotLoad": {
+                List<String> snapshotted = new ArrayList<>(structures);
+                snapshotted.retainAll(SNAPSHOTTED);
+                return snapshotted;
+            }
+            case "range": {
+                List<String> ranged = new ArrayList<>(structures);
+                ranged.removeIf(s -> !RANGED.contains(s) && !s.startsWith("BPlusTree/"));
+                return ranged;
+            }
+            default:
+                return structures;
+        }
+    }
+
+    /**
+     * Returns a subject named structure/n for each structure and each count.
+     */
+    private static List<String> subjects(List<String> names, int[] counts) {
+        List<String> subjects = new ArrayList<>();
+        for (String name : names) {
+            for (int n : counts) {
+                subjects.add(name + "/" + n);
+            }
+        }
+        return subjects;
+    }
+
+    /**
+     * Returns the count n of a subject named structure/n.
+     */
+    static int subjectCount(String subject) {
+        return Integer.parseInt(subject.substring(subject.indexOf('/') + 1));
+    }
+
+    /**
+     * Returns the default thread counts: powers of two below the number of processors,
+     * then the number of processors itself.
+     */
+    private static int[] defaultThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int n = 1; n < processors; n *= 2) {
+            counts.add(n);
+        }
+        counts.add(processors);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Creates an empty tree of the named structure.
+     * @param structure the name of the tree class.
+     * @return the tree, behind the common benchmark view.
+     */
+    static Tree newTree(String structure) {
+        if (structure.startsWith("BPlusTree/")) {
+            return bPlusTree(subjectCount(structure));
+        }
+        if (structure.contains("+")) {
+            return searchTree(newCachedTree(structure));
+        }
+        switch (structure) {
+            case "AVLTree": {
+                AVLTree<Villager> t = new AVLTree<>();
+                return new OrderedTree() {
+                    public void insert(Villager v) { t.insert(v); }
+                    public boolean contains(Villager v) { return t.contains(v); }
+                    public void remove(Villager v) { t.remove(v); }
+                    public void bulkLoad(List<Villager> keys) { t.bulkLoad(keys); }
+                    public Villager select(int k) { return t.select(k); }
+                    public int rank(Villager v) { return t.rank(v); }
+                    public Iterable<Villager> subSet(Villager lo, Villager hi) { return t.subSet(lo, hi); }
+                };
+            }
+            case "BSTree": {
+                BSTree<Villager> t = new BSTree<>();
+                return new OrderedTree() {
+                    public void insert(Villager v) { t.insert(v); }
+                    public boolean contains(Villager v) { return t.contains(v); }
+                    public void remove(Villager v) { t.remove(v); }
+                    public void bulkLoad(List<Villager> keys) { t.bulkLoad(keys); }
+                    public Villager select(int k) { return t.select(k); }
+                    public int rank(Villager v) { return t.rank(v); }
+                    public Iterable<Villager> subSet(Villager lo, Villager hi) { return t.subSet(lo, hi); }
+                };
+            }
+            case "GuardedBSTree": {
+                BSTree<Villager> t = new BSTree<>(true);
+                return new OrderedTree() {
+                    public void insert(Villager v) { t.insert(v); }
+                    public boolean contains(Villager v) { return t.contains(v); }
+                    public void remove(Villager v) { t.remove(v); }
+                    public void bulkLoad(List<Villager> keys) { t.bulkLoad(keys); }
+                    public Villager select(int k) { return t.select(k); }
+                    public int rank(Villager v) { return t.rank(v); }
+                    public Iterable<Villager> subSet(Villager lo, Villager hi) { return t.subSet(lo, hi); }
+                    public long rebuildNanos() { return t.getRebuildNanos(); }
+                };
+            }
+            case "PersistentAVLTree": {
+                PersistentAVLTree<Villager> t = new PersistentAVLTree<>();
+                return new Tree() {
+                    public void insert(Villager v) { t.insert(v); }
+                    public boolean contains(Villager v) { return t.contains(v); }
+                    public void remove(Villager v) { t.remove(v); }
+                };
+            }
+            case "ConcurrentAVLTree": {
+                ConcurrentAVLTree<Villager> t = new ConcurrentAVLTree<>();
+                return new Tree() {
+                    public void insert(Villager v) { t.insert(v); }
+                    public boolean contains(Villager v) { return t.contains(v); }
+                    public void remove(Villager v) { t.remove(v); }
+                };
+            }
+            case "LockedAVLTree": {
+                AVLTree<Villager> t = new AVLTree<>();
+                ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+                return new Tree() {
+                    public void insert(Villager v) {
+                        lock.writeLock().lock();
+                        try { t.insert(v); } finally { lock.writeLock().unlock(); }
+                    }
+                    public boolean contains(Villager v) {
+                        lock.readLock().lock();
+                        try { return t.contains(v); } finally { lock.readLock().unlock(); }
+                    }
+                    public void remove(Villager v) {
+                        lock.writeLock().lock();
+                        try { t.remove(v); } finally { lock.writeLock().unlock(); }
+                    }
+                };
+            }
+            case "BPlusTree":
+                return bPlusTree(BPlusTree.DEFAULT_ORDER);
+            case "RedBlackTree":
+            case "Treap":
+            case "WAVLTree":
+                return searchTree(newSearchTree(structure));
+            case "VillagerStore": {
+                // a fresh off-heap store in the temp directory, deleted when the pass is done
+                String base = System.getProperty("java.io.tmpdir") + "/tree-benchmark-" +
+                        ProcessHandle.current().pid() + "-" + storeCount++;
+                try {
+                    VillagerStore s = VillagerStore.create(base, 1024);
+                    return new Tree() {
+                        public void insert(Villager v) { s.add(v); }
+                        public boolean contains(Villager v) { return s.contains(v); }
+                        public void remove(Villager v) { s.remove(v); }
+                        public void close() {
+                            try {
+                                s.close();
+                                VillagerStore.delete(base);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    };
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            default:
+                throw new IllegalArgumentException("Unknown structure " + structure);
+        }
+    }
+
+    /**
+     * Creates an empty BPlusTree of the given order.
+     */
+    private static RangedTree bPlusTree(int order) {
+        BPlusTree<Villager> t = new BPlusTree<>(order);
+        return new RangedTree() {
+            public void insert(Villager v) { t.insert(v); }
+            public boolean contains(Villager v) { return t.contains(v); }
+            public void remove(Villager v) { t.remove(v); }
+            public Iterable<Villager> subSet(Villager lo, Villager hi) { return t.subSet(lo, hi); }
+        };
+    }
+
+    /**
+     * Wraps a tree that has only the common SearchTree operations.
+     */
+    private static Tree searchTree(SearchTree<Villager> t) {
+        return new Tree() {
+            public void insert(Villager v) { t.insert(v); }
+            public boolean contains(Villager v) { return t.contains(v); }
+            public void remove(Villager v) { t.remove(v); }
+        };
+    }
+
+    /**
+     * Creates an empty tree behind a cache, keyed by villager name (workload names are
+     * distinct; see expand).
+     * @param subject structure+policy/n, for a cache of n lookups with that eviction policy.
+     */
+    static CachedSearchTree<Villager> newCachedTree(String subject) {
+        int plus = subject.indexOf('+');
+        SearchTree<Villager> t = newSearchTree(subject.substring(0, plus));
+        if (t == null) {
+            throw new IllegalArgumentException("Unknown structure " + subject);
+        }
+        BoundedCache.Policy policy = BoundedCache.Policy.valueOf(subject.substring(plus + 1, subject.indexOf('/')));
+        return new CachedSearchTree<>(t, subjectCount(subject), policy, Villager::getName);
+    }
+
+    /**
+     * Creates an empty tree of the named structure, for any element type.
+     * @param structure the name of the tree class; BPlusTree/n for a BPlusTree of order n.
+     * @return the tree, or null for a structure that is not a SearchTree.
+     */
+    static <T extends Comparable<? super T>> SearchTree<T> newSearchTree(String structure) {
+        if (structure.startsWith("BPlusTree/")) {
+            return new BPlusTree<>(subjectCount(structure));
+        }
+        switch (structure) {
+            case "AVLTree": return new AVLTree<>();
+            case "BSTree": return new BSTree<>();
+            case "GuardedBSTree": return new BSTree<>(true);
+            case "BPlusTree": return new BPlusTree<>(BPlusTree.DEFAULT_ORDER);
+            case "RedBlackTree": return new RedBlackTree<>();
+            case "Treap": return new Treap<>();
+            case "WAVLTree": return new WAVLTree<>();
+            default: return null;
+        }
+    }
+
+    /**
+     * Builds a workload from the dataset, or generated with the dataset's distributions if
+     * source=generated.
+     */
+    private Workload newWorkload(List<Villager> base, int size, String order, long seed) {
+        if (source.equals("generated")) {
+            return generatedWorkload(VillagerGenerator.from(base), size, order, seed);
+        }
+        return workload(base, size, order, seed);
+    }
+
+    /**
+     * Builds a workload of generated villagers; neither keys nor accesses are held in a
+     * list, except for zipfian's lookups, which are drawn up front.
+     * @param size the number of distinct keys.
+     * @param order random, sorted, reverse, partial, clustered or zipfian.
+     * @param seed seed of the dataset, the key order and the zipfian draws.
+     */
+    static Workload generatedWorkload(VillagerGenerator generator, int size, String order, long seed) {
+        if (order.equals("zipfian")) {
+            List<Villager> keys = generator.villagers(size, VillagerGenerator.Order.RANDOM, seed);
+            return new Workload(keys, zipfian(keys, size, new Random(seed)));
+        }
+        List<Villager> keys;
+        try {
+            keys = generator.villagers(size, VillagerGenerator.Order.valueOf(order.toUpperCase()), seed);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown workload " + order);
+        }
+        return new Workload(keys, keys);
+    }
+
+    /**
+     * Builds a workload of the given size and key order from the dataset.
+     * @param base the villagers read from the dataset.
+     * @param size the number of distinct keys.
+     * @param order random, sorted, reverse, partial, clustered or zipfian.
+     * @param seed seed for shuffling and zipfian draws.
+     */
+    static Workload workload(List<Villager> base, int size, String order, long seed) {
+        List<Villager> keys = expand(base, size);
+        Random random = new Random(seed);
+        switch (order) {
+            case "random":
+                Collections.shuffle(keys, random);
+                return new Workload(keys, keys);
+            case "sorted":
+                Collections.sort(keys);
+                return new Workload(keys, keys);
+            case "reverse":
+                keys.sort(Collections.reverseOrder());
+                return new Workload(keys, keys);
+            case "partial":
+            case "clustered": {
+                Collections.sort(keys);
+                List<Villager> arranged = VillagerGenerator.arrange(keys,
+                        VillagerGenerator.Order.valueOf(order.toUpperCase()), seed);
+                return new Workload(arranged, arranged);
+            }
+            case "zipfian":
+                // the tree is built in random order; lookups favour a few popular keys
+                Collections.shuffle(keys, random);
+                return new Workload(keys, zipfian(keys, size, random));
+            default:
+                throw new IllegalArgumentException("Unknown workload " + order);
+        }
+    }
+
+    /**
+     * Cycles through the dataset until there are size villagers. Every pass after the
+     * first gets a numbered name so all keys stay distinct.
+     */
+    static List<Villager> expand(List<Villager> base, int size) {
+        List<Villager> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Villager v = base.get(i % base.size());
+            int pass = i / base.size();
+            String name = pass == 0 ? v.getName() : v.getName() + " " + pass;
+            keys.add(new Villager(name, v.getPersonality(), v.getHobby(), v.getFavSong()));
+        }
+        return keys;
+    }
+
+    /**
+     * Draws count lookups from keys with a zipfian distribution over their position.
+     */
+    static List<Villager> zipfian(List<Villager> keys, int count, Random random) {
+        double[] cdf = new double[keys.size()];
+        double sum = 0;
+        for (int i = 0; i < cdf.length; i++) {
+            sum += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        List<Villager> accesses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int k = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            accesses.add(keys.get(k >= 0 ? k : Math.min(-k - 1, cdf.length - 1)));
+        }
+        return accesses;
+    }
+
+    /**
+     * Turns the samples of one benchmark into a score for the given mode.
+     */
+    private static Result score(String id, String mode, List<long[]> samples) {
+        String[] parts = id.split(",");
+        Result r = new Result();
+        r.operation = parts[0];
+        r.structure = parts[1];
+        r.workload = parts[2];
+        r.size = Integer.parseInt(parts[3]);
+        r.mode = mode;
+        r.unit = mode.equals("thrpt") ? "ops/s" : "ns/op";
+        r.samples = samples.size();
+
+        double[] values = new double[samples.size()];
+        for (int i = 0; i < values.length; i++) {
+            double ops = samples.get(i)[0];
+            double nanos = samples.get(i)[1];
+            double rebuild = samples.get(i)[2];
+            switch (mode) {
+                case "thrpt": values[i] = ops * 1e9 / nanos; break;
+                case "avgt": values[i] = nanos / ops; break;
+                case "rebuild": values[i] = rebuild / ops; break;      // share of avgt spent rebuilding
+                default: throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+        }
+        double mean = Arrays.stream(values).average().orElse(Double.NaN);
+        double var = 0;
+        for (double v : values) {
+            var += (v - mean) * (v - mean);
+        }
+        r.score = mean;
+        r.error = values.length > 1 ? Math.sqrt(var / (values.length - 1)) : 0;     // sample standard deviation
+        return r;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     */
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Measures the heap allocated per write for every insert and remove benchmark, which
+     * shows what path copying costs a persistent tree over a mutable one. Like compareTo
+     * counts, allocation barely varies between runs, so it is taken once in this JVM.
+     * @return one result per insert and remove benchmark, in alloc mode.
+     */
+    private List<Result> allocationCounts() throws IOException {
+        List<Result> results = new ArrayList<>();
+        List<Villager> base = Proj2.readVillagers(dataFile, Integer.MAX_VALUE);
+        for (int size : sizes) {
+            for (String workloadName : workloads) {
+                if (workloadName.equals("zipfian")) {
+                    continue;
+                }
+                Workload w = newWorkload(base, size, workloadName, seed);
+                for (String operation : List.of("insert", "remove")) {
+                    if (!operations.contains(operation)) {
+                        continue;
+                    }
+                    for (String structure : structures) {
+                        Result r = new Result();
+                        r.operation = operation;
+                        r.structure = structure;
+                        r.workload = workloadName;
+                        r.size = size;
+                        r.mode = "alloc";
+                        r.unit = "B/op";
+                        r.samples = 1;
+                        runOnce(structure, operation, w);     // warm up, so JIT activity is not counted
+                        r.score = (double) runOnce(structure, operation, w)[2] / w.keys.size();
+                        results.add(r);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Measures the share of lookups answered by the cache for every cachedContains
+     * benchmark: close to none when each key is looked up once (random, sorted, reverse),
+     * and most of them under the zipfian workload. Like compareTo counts, hit rates are
+     * deterministic, so they are taken once in this JVM.
+     * @return one result per cachedContains benchmark, in hitRate mode.
+     */
+    private List<Result> cacheHitRates() throws IOException {
+        List<Result> results = new ArrayList<>();
+        if (!operations.contains("cachedContains")) {
+            return results;
+        }
+        List<Villager> base = Proj2.readVillagers(dataFile, Integer.MAX_VALUE);
+        for (int size : sizes) {
+            for (String workloadName : workloads) {
+                Workload w = newWorkload(base, size, workloadName, seed);
+                for (String subject : subjectsOf("cachedContains")) {
+                    CachedSearchTree<Villager> t = newCachedTree(subject);
+                    for (Villager v : w.keys) {
+                        t.insert(v);
+                    }
+                    for (Villager v : w.accesses) {
+                        t.contains(v);
+                    }
+                    Result r = new Result();
+                    r.operation = "cachedContains";
+                    r.structure = subject;
+                    r.workload = workloadName;
+                    r.size = size;
+                    r.mode = "hitRate";
+                    r.unit = "%";
+                    r.samples = 1;
+                    r.score = 100 * t.getCache().getHitRate();
+                    results.add(r);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Counts compareTo calls per insert for every insert benchmark of a generic tree
+     * (VillagerStore, ConcurrentAVLTree and LockedAVLTree are skipped). Counts are
+     * deterministic, so they are taken once in this JVM rather than in every fork.
+     * @return one result per insert benchmark, in compares mode.
+     */
+    private List<Result> compareCounts() throws IOException {
+        List<Result> results = new ArrayList<>();
+        if (!operations.contains("insert")) {
+            return results;
+        }
+        List<Villager> base = Proj2.readVillagers(dataFile, Integer.MAX_VALUE);
+        for (int size : sizes) {
+            for (String workloadName : workloads) {
+                if (workloadName.equals("zipfian")) {
+                    continue;
+                }
+                Workload w = newWorkload(base, size, workloadName, seed);
+                for (String structure : structures) {
+                    if (!countsCompares(structure)) {
+                        continue;       // not a generic tree, so it cannot count comparisons
+                    }
+                    Result r = new Result();
+                    r.operation = "insert";
+                    r.structure = structure;
+                    r.workload = workloadName;
+                    r.size = size;
+                    r.mode = "compares";
+                    r.unit = "cmp/op";
+                    r.samples = 1;
+                    r.score = comparesPerInsert(structure, w.keys);
+                    results.add(r);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Counts AVLTree's rotations per insert, and times them as rotations per second, for
+     * every AVLTree insert benchmark; the sorted workload rotates on almost every insert.
+     * Counts are deterministic, so like compareTo counts they are taken once in this JVM,
+     * after warmup passes.
+     * @return two results per benchmark, in rotations mode: rot/op and rot/s.
+     */
+    private List<Result> rotationCounts() throws IOException {
+        List<Result> results = new ArrayList<>();
+        if (!operations.contains("insert") || !structures.contains("AVLTree")) {
+            return results;
+        }
+        List<Villager> base = Proj2.readVillagers(dataFile, Integer.MAX_VALUE);
+        for (int size : sizes) {
+            for (String workloadName : workloads) {
+                if (workloadName.equals("zipfian")) {
+                    continue;
+                }
+                Workload w = newWorkload(base, size, workloadName, seed);
+                long rotations = 0;
+                long nanos = 0;
+                for (int i = 0; i < QUICK_WARMUPS + QUICK_ITERATIONS; i++) {
+                    AVLTree<Villager> t = new AVLTree<>();
+                    TreeMetrics m = t.enableMetrics();
+                    long start = System.nanoTime();
+                    for (Villager v : w.keys) {
+                        t.insert(v);
+                    }
+                    long end = System.nanoTime();
+                    if (i >= QUICK_WARMUPS) {
+                        rotations += m.getRotations();
+                        nanos += end - start;
+                    }
+                }
+                for (String unit : List.of("rot/op", "rot/s")) {
+                    Result r = new Result();
+                    r.operation = "insert";
+                    r.structure = "AVLTree";
+                    r.workload = workloadName;
+                    r.size = size;
+                    r.mode = "rotations";
+                    r.unit = unit;
+                    r.samples = QUICK_ITERATIONS;
+                    r.score = unit.equals("rot/op") ? (double) rotations / ((long) QUICK_ITERATIONS * size)
+                            : rotations * 1e9 / nanos;
+                    results.add(r);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Villager wrapper that counts its compareTo calls.
+     */
+    static class CountedVillager implements Comparable<CountedVillager> {
+        static long compares;
+        final Villager villager;
+
+        CountedVillager(Villager villager) { this.villager = villager; }
+
+        @Override
+        public int compareTo(CountedVillager other) {
+            compares++;
+            return villager.compareTo(other.villager);
+        }
+    }
+
+    /**
+     * Returns whether comparesPerInsert can count a structure's comparisons, that is,
+     * whether it takes generic elements.
+     */
+    static boolean countsCompares(String structure) {
+        return structure.equals("PersistentAVLTree") || newSearchTree(structure) != null;
+    }
+
+    /**
+     * Inserts the keys, in order, into a fresh tree and counts the comparisons made.
+     * @param structure a structure for which countsCompares is true.
+     * @return the mean number of compareTo calls per insert.
+     */
+    static double comparesPerInsert(String structure, List<Villager> keys) {
+        List<CountedVillager> counted = new ArrayList<>(keys.size());
+        for (Villager v : keys) {
+            counted.add(new CountedVillager(v));
+        }
+        CountedVillager.compares = 0;
+        if (structure.equals("PersistentAVLTree")) {
+            PersistentAVLTree<CountedVillager> t = new PersistentAVLTree<>();
+            for (CountedVillager v : counted) {
+                t.insert(v);
+            }
+        } else {
+            SearchTree<CountedVillager> t = newSearchTree(structure);
+            if (t == null) {
+                throw new IllegalArgumentException("Cannot count comparisons of " + structure);
+            }
+            for (CountedVillager v : counted) {
+                t.insert(v);
+            }
+        }
+        return (double) CountedVillager.compares / keys.size();
+    }
+
+    /**
+     * Prints the results as a human readable table.
+     */
+    private static void printResults(List<Result> results, List<String> failures) {
+        System.out.printf("%-18s %-19s %-9s %9s %6s %16s %14s %8s%n",
+                "Operation", "Structure", "Workload", "Size", "Mode", "Score", "Error", "Units");
+        for (Result r : results) {
+            System.out.printf("%-18s %-19s %-9s %9d %6s %16.3f %14.3f %8s%n",
+                    r.operation, r.structure, r.workload, r.size, r.mode, r.score, r.error, r.unit);
+        }
+        for (String failure : failures) {
+            System.out.println("FAILED: " + failure);
+        }
+    }
+
+    /**
+     * Writes the results in CSV format.
+     */
+    static void writeCsv(List<Result> results, String fileName) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName))) {
+            writer.println("operation,structure,workload,size,mode,score,error,unit,samples");
+            for (Result r : results) {
+                writer.println(r.operation + "," + r.structure + "," + r.workload + "," + r.size + "," +
+                        r.mode + "," + r.score + "," + r.error + "," + r.unit + "," + r.samples);
+            }
+        }
+    }
+
+    /**
+     * Writes the results in JSON format, one object per benchmark and mode.
+     */
+    static void writeJson(List<Result> results, String fileName) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                writer.print("  {\"operation\": \"" + r.operation + "\", \"structure\": \"" + r.structure +
+                        "\", \"workload\": \"" + r.workload + "\", \"size\": " + r.size +
+                        ", \"mode\": \"" + r.mode + "\", \"score\": " + r.score + ", \"error\": " + r.error +
+                        ", \"unit\": \"" + r.unit + "\", \"samples\": " + r.samples + "}");
+                writer.println(i < results.size() - 1 ? "," : "");
+            }
+            writer.println("]");
+        }
+    }
+
+    /**
+     * Makes a result of averageNanos, in pass mode: the mean nanoseconds of one pass.
+     * @param size the number of villagers in the pass.
+     */
+    static Result passResult(String operation, String structure, String workload, int size, long nanos) {
+        Result r = new Result();
+        r.operation = operation;
+        r.structure = structure;
+        r.workload = workload;
+        r.size = size;
+        r.mode = "pass";
+        r.unit = "ns";
+        r.samples = QUICK_ITERATIONS;
+        r.score = nanos;
+        return r;
+    }
+
+    /**
+     * Warmed-up average time of one operation pass over a list of villagers, for quick
+     * comparisons such as Proj2's. Each pass uses a fresh tree.
+     * @param structure any structure runOnce accepts, such as RedBlackTree or GuardedBSTree.
+     * @param operation any operation runOnce accepts, such as contains or snapshotLoad.
+     * @param villagers the keys, used in list order for both building and lookups.
+     * @return the mean nanoseconds of one pass.
+     */
+    static long averageNanos(String structure, String operation, List<Villager> villagers) {
+        Workload w = new Workload(villagers, villagers);
+        for (int i = 0; i < QUICK_WARMUPS; i++) {
+            runOnce(structure, operation, w);
+        }
+        long total = 0;
+        for (int i = 0; i < QUICK_ITERATIONS; i++) {
+            total += runOnce(structure, operation, w)[0];
+        }
+        return total / QUICK_ITERATIONS;
+    }
+}
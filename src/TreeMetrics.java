@@ -0,0 +1,234 @@
+/**********************************************************************************************
+ * @file : TreeMetrics.java
+ * @description : Counters for the hot paths of a search tree: compareTo calls, rotations by
+ *                type, nodes visited per search (with a histogram of search depths) and
+ *                removes, plus the live height and size of the tree. Metrics are opt-in: a
+ *                tree keeps a null reference until enableMetrics() is called, so a tree
+ *                without them pays one null check per counted event, with no allocation and
+ *                no shared state. Each tree has its own counters, written only by the thread
+ *                that updates the tree (the trees are not thread-safe), so they are plain
+ *                fields; a reader on another thread, such as a JMX client, may see them a
+ *                little behind. snapshot() copies them into an immutable Snapshot.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// CONSTRUCTION: by AVLTree.enableMetrics( ) or BSTree.enableMetrics( )
+//
+// ******************PUBLIC OPERATIONS*********************
+// long getCompares( ), getRotations( ), getSearches( ), ... --> Read a counter
+// int getHeight( ), getSize( ) --> Read the live height and size of the tree
+// long[] getSearchDepthHistogram( ) --> Return the searches made at each depth
+// Snapshot snapshot( )   --> Return a copy of every counter and the tree's height and size
+// void reset( )          --> Set every counter back to zero
+// ObjectName register( name ) --> Register with the platform MBean server under a name
+// void unregister( )     --> Remove the registration
+// ******************ERRORS********************************
+// register and unregister throw JMException if the MBean server refuses them
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class TreeMetrics implements TreeMetricsMXBean {
+    /** Buckets in the search-depth histogram; the last one also counts every deeper search. */
+    public static final int DEPTH_BUCKETS = 64;
+
+    // Counters, incremented directly by the tree that owns them
+    long compares;
+    long leftSingleRotations;
+    long rightSingleRotations;
+    long leftDoubleRotations;
+    long rightDoubleRotations;
+    long searches;
+    long nodesVisited;
+    long removes;
+    private final long[] searchDepths = new long[DEPTH_BUCKETS];
+
+    // Read from the tree on demand
+    private final IntSupplier height;
+    private final IntSupplier size;
+
+    // The name this is registered under, or null if it is not
+    private ObjectName registered;
+
+    /**
+     * Creates zeroed counters for a tree.
+     * @param height returns the tree's current height.
+     * @param size returns the tree's current number of items.
+     */
+    TreeMetrics( IntSupplier height, IntSupplier size ) {
+        this.height = height;
+        this.size = size;
+    }
+
+    /**
+     * Records one search that visited depth nodes.
+     */
+    void search( int depth ) {
+        searches++;
+        nodesVisited += depth;
+        searchDepths[Math.min(depth, DEPTH_BUCKETS - 1)]++;
+    }
+
+    @Override
+    public long getCompares() { return compares; }
+
+    @Override
+    public long getLeftSingleRotations() { return leftSingleRotations; }
+
+    @Override
+    public long getRightSingleRotations() { return rightSingleRotations; }
+
+    @Override
+    public long getLeftDoubleRotations() { return leftDoubleRotations; }
+
+    @Override
+    public long getRightDoubleRotations() { return rightDoubleRotations; }
+
+    @Override
+    public long getRotations() {
+        return leftSingleRotations + rightSingleRotations + leftDoubleRotations + rightDoubleRotations;
+    }
+
+    @Override
+    public long getSearches() { return searches; }
+
+    @Override
+    public long getNodesVisited() { return nodesVisited; }
+
+    @Override
+    public double getMeanSearchDepth() {
+        return searches == 0 ? 0 : (double) nodesVisited / searches;
+    }
+
+    @Override
+    public long getRemoves() { return removes; }
+
+    @Override
+    public int getHeight() { return height.getAsInt(); }
+
+    @Override
+    public int getSize() { return size.getAsInt(); }
+
+    @Override
+    public long[] getSearchDepthHistogram() { return searchDepths.clone(); }
+
+    @Override
+    public void reset() {
+        compares = 0;
+        leftSingleRotations = 0;
+        rightSingleRotations = 0;
+        leftDoubleRotations = 0;
+        rightDoubleRotations = 0;
+        searches = 0;
+        nodesVisited = 0;
+        removes = 0;
+        Arrays.fill(searchDepths, 0);
+    }
+
+    /**
+     * Return a copy of every counter, with the tree's current height and size.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Register these metrics with the platform MBean server, as TreeMetrics:name=name,
+     * replacing any earlier registration of this object.
+     * @param name the name to register under, such as "villagers".
+     * @return the name registered.
+     */
+    public ObjectName register( String name ) throws JMException {
+        unregister();
+        ObjectName objectName = new ObjectName("TreeMetrics", "name", ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registered = objectName;
+        return objectName;
+    }
+
+    /**
+     * Remove the registration made by register(), if any.
+     */
+    public void unregister() throws JMException {
+        if (registered != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+            registered = null;
+        }
+    }
+
+    /**
+     * The counters of a tree at one moment. It does not change as the tree does.
+     */
+    public static final class Snapshot {
+        public final long compares;
+        public final long leftSingleRotations;
+        public final long rightSingleRotations;
+        public final long leftDoubleRotations;
+        public final long rightDoubleRotations;
+        public final long searches;
+        public final long nodesVisited;
+        public final long removes;
+        public final int height;
+        public final int size;
+        private final long[] searchDepths;
+
+        private Snapshot( TreeMetrics m ) {
+            compares = m.compares;
+            leftSingleRotations = m.leftSingleRotations;
+            rightSingleRotations = m.rightSingleRotations;
+            leftDoubleRotations = m.leftDoubleRotations;
+            rightDoubleRotations = m.rightDoubleRotations;
+            searches = m.searches;
+            nodesVisited = m.nodesVisited;
+            removes = m.removes;
+            height = m.getHeight();
+            size = m.getSize();
+            searchDepths = m.searchDepths.clone();
+        }
+
+        /** Number of rotations of every type; a double rotation counts once. */
+        public long rotations() {
+            return leftSingleRotations + rightSingleRotations + leftDoubleRotations + rightDoubleRotations;
+        }
+
+        /** Mean number of nodes visited per search, or 0 if there were none. */
+        public double meanSearchDepth() {
+            return searches == 0 ? 0 : (double) nodesVisited / searches;
+        }
+
+        /** searchDepthHistogram()[d] is the number of searches that visited d nodes. */
+        public long[] searchDepthHistogram() {
+            return searchDepths.clone();
+        }
+
+        /**
+         * Returns the counters on one line, with the histogram as depth:count pairs for
+         * the depths that occurred.
+         */
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            s.append("size=").append(size).append(" height=").append(height)
+                    .append(" compares=").append(compares)
+                    .append(" rotations=").append(rotations())
+                    .append(" (single L/R ").append(leftSingleRotations).append('/').append(rightSingleRotations)
+                    .append(", double L/R ").append(leftDoubleRotations).append('/').append(rightDoubleRotations)
+                    .append(") searches=").append(searches)
+                    .append(" meanDepth=").append(String.format("%.2f", meanSearchDepth()))
+                    .append(" removes=").append(removes)
+                    .append(" depths={");
+            String sep = "";
+            for (int d = 0; d < DEPTH_BUCKETS; d++) {
+                if (searchDepths[d] != 0) {
+                    s.append(sep).append(d).append(d == DEPTH_BUCKETS - 1 ? "+:" : ":").append(searchDepths[d]);
+                    sep = ", ";
+                }
+            }
+            return s.append('}').toString();
+        }
+    }
+}
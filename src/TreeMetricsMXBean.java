@@ -0,0 +1,52 @@
+/**********************************************************************************************
+ * @file : TreeMetricsMXBean.java
+ * @description : The management interface of TreeMetrics, so the counters of a tree can be
+ *                read from JConsole, VisualVM or any other JMX client once registered (see
+ *                TreeMetrics.register()).
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+
+public interface TreeMetricsMXBean {
+    /** Number of compareTo calls made by insert, contains and remove. */
+    long getCompares();
+
+    /** Number of single rotations with the left child (the subtree leaned left). */
+    long getLeftSingleRotations();
+
+    /** Number of single rotations with the right child (the subtree leaned right). */
+    long getRightSingleRotations();
+
+    /** Number of double rotations with the left child. */
+    long getLeftDoubleRotations();
+
+    /** Number of double rotations with the right child. */
+    long getRightDoubleRotations();
+
+    /** Number of rotations of every type; a double rotation counts once. */
+    long getRotations();
+
+    /** Number of contains calls. */
+    long getSearches();
+
+    /** Number of nodes visited by all contains calls. */
+    long getNodesVisited();
+
+    /** Mean number of nodes visited per contains call, or 0 before the first. */
+    double getMeanSearchDepth();
+
+    /** Number of items removed. */
+    long getRemoves();
+
+    /** Current height of the tree; -1 if it is empty. */
+    int getHeight();
+
+    /** Current number of items in the tree. */
+    int getSize();
+
+    /** searchDepthHistogram[d] is the number of contains calls that visited d nodes. */
+    long[] getSearchDepthHistogram();
+
+    /** Sets every counter back to zero. */
+    void reset();
+}
@@ -0,0 +1,388 @@
+/**********************************************************************************************
+ * @file : TreeSnapshot.java
+ * @description : Compact binary snapshot format for the search trees, so a tree can be
+ *                reloaded on startup with its exact shape instead of being rebuilt from
+ *                villagers.csv. A snapshot is the tree's nodes in pre-order, each one a flags
+ *                byte saying which children follow and then the element, written by a Codec.
+ *                Repeated strings (personalities, hobbies, songs) are written once, to a
+ *                dictionary at the end of the file, and referred to by number. The file is
+ *                versioned and ends with a CRC32 of everything before it. Loading maps the
+ *                file and checks the CRC, then reads it front to back once; see
+ *                AVLTree.save/load and BSTree.save/load.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ *********************************************************************************************/
+//
+// ******************PUBLIC OPERATIONS*********************
+// Codec VILLAGERS        --> Encodes a Villager as its name and three dictionary words
+// Writer: void node( flags ), writeVarint( v ), writeString( s ), writeWord( s ), finish( )
+// Reader: int count( ), int node( ), readVarint( ), readString( ), readWord( ), end( )
+// Writer.records( out ), Reader.records( buf ) --> Encode or decode standalone elements, such
+//                           as log records, with their words in place (there is no dictionary)
+// ******************ERRORS********************************
+// Reading throws IOException for a file that is not a snapshot, has another version, fails
+// its checksum, or is cut short
+//
+// ******************FILE LAYOUT***************************
+// header     magic "TSNP", version, item count (ints)
+// nodes      in pre-order: flags byte (LEFT | RIGHT: the children that follow), element
+// dictionary word count, then each word (varints and UTF-8, as written by writeString)
+// trailer    dictionary offset, CRC32 of every byte before the CRC (ints)
+// Numbers are big-endian; varints are unsigned LEB128. A snapshot is at most 2 GB.
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public final class TreeSnapshot {
+    private static final int MAGIC = 0x54534E50;        // "TSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+    private static final int TRAILER = 8;
+
+    /** Node flags: a left child follows, a right child follows. */
+    public static final int LEFT = 1, RIGHT = 2;
+
+    private TreeSnapshot() { }
+
+    /**
+     * Writes and reads the elements of a tree in a snapshot.
+     */
+    public interface Codec<T> {
+        void write( T x, Writer out ) throws IOException;
+        T read( Reader in ) throws IOException;
+    }
+
+    /**
+     * Villagers: the name as a string (names are unique, so there is nothing to share),
+     * then personality, hobby and favorite song as dictionary words. The song is stored by
+     * name and ranked again on loading, under the current SongRanking.
+     */
+    public static final Codec<Villager> VILLAGERS = new Codec<Villager>() {
+        @Override
+        public void write( Villager v, Writer out ) throws IOException {
+            out.writeString(v.getName());
+            out.writeWord(v.getPersonality());
+            out.writeWord(v.getHobby());
+            out.writeWord(v.getFavSong());
+        }
+
+        @Override
+        public Villager read( Reader in ) throws IOException {
+            return new Villager(in.readString(), in.readWord(), in.readWord(), in.readWord());
+        }
+    };
+
+    /**
+     * Writes a snapshot, front to back. It goes to a temporary file that replaces the
+     * target only once finish() has forced it to disk, so a failed save leaves any earlier snapshot
+     * in place. A records() writer has no file and no dictionary: it only encodes
+     * elements, writing each word in place.
+     */
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private final HashMap<String, Integer> ids;
+        private final ArrayList<String> words;
+        private boolean finished;
+
+        private Writer( OutputStream out ) {
+            target = null;
+            temp = null;
+            channel = null;
+            this.out = new DataOutputStream(out);
+            ids = null;
+            words = null;
+        }
+
+        private Writer( String file, int count ) throws IOException {
+            target = Paths.get(file);
+            temp = Paths.get(file + ".tmp");
+            channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            ids = new HashMap<>();
+            words = new ArrayList<>();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+        }
+
+        /**
+         * Start writing a snapshot of count items.
+         * @param file the path of the snapshot.
+         */
+        public static Writer create( String file, int count ) throws IOException {
+            return new Writer(file, count);
+        }
+
+        /**
+         * Return a writer that encodes elements straight to a stream, words in place.
+         */
+        public static Writer records( OutputStream out ) {
+            return new Writer(out);
+        }
+
+        /**
+         * Start the next node, in pre-order; its element is written next.
+         * @param flags LEFT and/or RIGHT, for the children that will follow it.
+         */
+        public void node( int flags ) throws IOException {
+            out.writeByte(flags);
+        }
+
+        /**
+         * Write a non-negative int in as few bytes as it needs, 7 bits per byte.
+         */
+        public void writeVarint( int v ) throws IOException {
+            while ((v & ~0x7F) != 0) {
+                out.writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+
+        /**
+         * Write a string in place, as its UTF-8 length and bytes; null is written as 0.
+         */
+        public void writeString( String s ) throws IOException {
+            if (s == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        /**
+         * Write a string that is likely to repeat as its number in the dictionary, adding
+         * it the first time; null is written as 0.
+         */
+        public void writeWord( String s ) throws IOException {
+            if (ids == null) {
+                writeString(s);
+                return;
+            }
+            if (s == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = words.size();
+                ids.put(s, id);
+                words.add(s);
+            }
+            writeVarint(id + 1);
+        }
+
+        /**
+         * Write the dictionary and the trailer, force them to disk, then move the snapshot
+         * into place; the move never replaces a snapshot with one that is not yet on disk.
+         */
+        public void finish( ) throws IOException {
+            int dictionary = out.size();
+            writeVarint(words.size());
+            for (String w : words) {
+                writeString(w);
+            }
+            out.writeInt(dictionary);
+            out.flush();
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IOException("snapshot " + target + " is larger than 2 GB");
+            }
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+            out.close();
+            finished = true;
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Close the file; if finish() was not called, the partial snapshot is deleted.
+         */
+        @Override
+        public void close( ) throws IOException {
+            if (!finished && target != null) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot from a memory-mapped file, front to back. A records() reader
+     * decodes elements from a buffer, words in place.
+     */
+    public static final class Reader {
+        private final String file;
+        private final ByteBuffer buf;
+        private final int count;
+        private final int dictionary;
+        private final String[] words;
+        private byte[] scratch = new byte[64];
+
+        private Reader( String file ) throws IOException {
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+                long length = channel.size();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException(file + " is larger than 2 GB");
+                }
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            int length = buf.capacity();
+            if (length < HEADER + TRAILER || buf.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a tree snapshot");
+            }
+            if (buf.getInt(4) != VERSION) {
+                throw new IOException(file + " has unsupported version " + buf.getInt(4));
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().limit(length - 4));
+            if ((int) crc.getValue() != buf.getInt(length - 4)) {
+                throw new IOException(file + " is damaged (checksum mismatch)");
+            }
+            count = buf.getInt(8);
+            dictionary = buf.getInt(length - TRAILER);
+            if (count < 0 || dictionary < HEADER || dictionary > length - TRAILER) {
+                throw new IOException(file + " is damaged (bad header)");
+            }
+            try {
+                buf.position(dictionary);
+                words = new String[readVarint()];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = readString();
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                throw new IOException(file + " is damaged (bad dictionary)");
+            }
+            buf.position(HEADER);
+        }
+
+        private Reader( ByteBuffer buf ) {
+            file = "record";
+            this.buf = buf;
+            count = 0;
+            dictionary = buf.limit();
+            words = null;
+        }
+
+        /**
+         * Open a snapshot and check its header and checksum.
+         * @param file the path of the snapshot.
+         */
+        public static Reader open( String file ) throws IOException {
+            return new Reader(file);
+        }
+
+        /**
+         * Return a reader that decodes elements from buf, from its position on, words in place.
+         */
+        public static Reader records( ByteBuffer buf ) {
+            return new Reader(buf);
+        }
+
+        /**
+         * Return the number of items in the snapshot.
+         */
+        public int count( ) {
+            return count;
+        }
+
+        /**
+         * Start reading the next node, in pre-order; its element is read next.
+         * @return its flags: LEFT and/or RIGHT, for the children that follow it.
+         */
+        public int node( ) throws IOException {
+            if (buf.position() >= dictionary) {
+                throw new IOException(file + " is damaged (fewer nodes than its shape needs)");
+            }
+            return buf.get();
+        }
+
+        /**
+         * Read an int written by writeVarint.
+         */
+        public int readVarint( ) {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buf.get();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+        }
+
+        /**
+         * Read a string written by writeString.
+         */
+        public String readString( ) {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buf.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Read a string written by writeWord.
+         */
+        public String readWord( ) throws IOException {
+            if (words == null) {
+                return readString();
+            }
+            int id = readVarint() - 1;
+            if (id < 0) {
+                return null;
+            }
+            if (id >= words.length) {
+                throw new IOException(file + " is damaged (word " + id + " is not in the dictionary)");
+            }
+            return words[id];
+        }
+
+        /**
+         * Check that every node has been read and the items were in strictly increasing
+         * order, as the tree they were saved from was.
+         * @param read the number of nodes read.
+         * @param ordered whether each item read in order was greater than the one before.
+         */
+        public void end( int read, boolean ordered ) throws IOException {
+            if (read != count || buf.position() != dictionary) {
+                throw new IOException(file + " is damaged (shape does not match its item count)");
+            }
+            if (!ordered) {
+                throw new IOException(file + " is out of order; was it saved under another ordering,"
+                        + " such as another song ranking?");
+            }
+        }
+    }
+}
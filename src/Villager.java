@@ -1,35 +1,30 @@
 /**********************************************************************************************
  * @file : Villager.java
  * @description : Animal Crossing: New Horizons villagers, sourced from "villagers.csv", sorted
- *                based on my personal opinion of their favorite song and other arbitrary
- *                factors (personality, hobby, name).
+ *                based on my personal opinion of their favorite song (see SongRanking) and
+ *                other arbitrary factors (personality, hobby, name).
  * @author : Ella Shipman
  * @date : September 25, 2025
  * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
  * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
  *********************************************************************************************/
 
+import java.util.Arrays;
+
 public class Villager implements Comparable <Villager> {
     //Name,Species,Gender,Personality,Hobby,Birthday,Catchphrase,Favorite Song,Style 1,Style 2,Color 1,Color 2,Wallpaper,Flooring,Furniture List,Filename,Unique Entry ID
     String name;
     String personality;
     String hobby;
-    String favSong;  int songRank;
-    //My opinion of K.K. Slider's ACNH discography: (best to worst)
-    final String[] finalKKSongRank = {"K.K. Cruisin\'", "Drivin\'", "K.K. Metal", "K.K. Milonga", "K.K. House",
-            "K.K. Gumbo", "K.K. Rock", "K.K. Western", "K.K. Jongara", "The K. Funk", "K.K. Mambo", "K.K. Salsa", "K.K. Condor",
-            "Soulful K.K.", "K.K. Parade", "K.K. Soul", "K.K. Groove", "Imperial K.K.", "K.K. Bossa", "Only Me",
-            "K.K. Blues", "Bubblegum K.K.", "Space K.K.", "Hypno K.K.", "Rockin\' K.K.", "Surfin\' K.K.",
-            "K.K. Ballad", "Comrade K.K.", "K.K. Folk", "K.K. Moody", "Lucky K.K.", "K.K. Sonata", "K.K. Dirge",
-            "K.K. Fusion", "K.K. Rockabilly", "Spring Blossoms", "K.K. Synth", "K.K. Flamenco", "K.K. Steppe",
-            "K.K. Safari", "K.K. Tango", "K.K. Étude", "K.K. Disco", "K.K. Island", "K.K. Swing", "K.K. Country",
-            "K.K. Jazz", "K.K. D&B", "K.K. Rally", "K.K. Aria", "K.K. Lament", "Agent K.K.", "Marine Song 2001",
-            "Steep Hill", "Forest Life", "Stale Cupcakes", "K.K. Stroll", "My Place", "Pondering", "K.K. Marathon",
-            "K.K. Adventure", "K.K. March", "Two Days Ago", "K.K. Reggae", "K.K. Oasis", "Animal City", "Aloha K.K.",
-            "K.K. Lullaby", "K.K. Technopop", "K.K. Faire", "Wandering", "Farewell", "K.K. Love Song", "K.K. Dixie",
-            "K.K. Ragtime", "To The Edge", "K.K. Casbah", "K.K. Calypso", "Café K.K.", "K.K. Bazaar",
-            "DJ K.K.", "Go K.K. Rider", "King K.K.", "Mr. K.K.", "K.K. Chorale", "Mountain Song",  "Neapolitan",
-            "I Love You", "K.K. Song"};
+    String favSong;  //favorite song, the ranking's own String if ranked, else interned
+    int songRank;    //rank of the favorite song in SongRanking.current(), -1 if unranked
+    long sortKey;    //song rank, personality and hobby packed in compareTo order, -1 if they don't fit
+
+    //Personalities and hobbies, in String order, so their indexes can be packed into sortKey
+    private static final String[] PERSONALITIES = {"Big Sister", "Cranky", "Jock", "Lazy", "Normal", "Peppy",
+            "Smug", "Snooty", "Uchi"};
+    private static final String[] HOBBIES = {"Education", "Fashion", "Fitness", "Music", "Nature", "Play",
+            "Playing"};
 
 
     //Default constructor
@@ -39,6 +34,7 @@ public class Villager implements Comparable <Villager> {
         hobby = null;
         favSong = null;
         songRank = -1;
+        sortKey = -1;
     }
 
     //Parametrized constructor
@@ -46,8 +42,7 @@ public class Villager implements Comparable <Villager> {
         this.name = name;
         this.personality = personality;
         this.hobby = hobby;
-        this.favSong = favSong;
-        songRank = evaluateSong(favSong);
+        setFavSong(favSong);
     }
 
     //Setter and getter for name
@@ -55,56 +50,81 @@ public class Villager implements Comparable <Villager> {
     public String getName(){ return name; }
 
     //Setter and getter for personality
-    public void setPersonality(String p){ personality = p; }
+    public void setPersonality(String p){ personality = p; sortKey = packKey(songRank, personality, hobby); }
     public String getPersonality(){ return personality; }
 
     //Setter and getter for hobby
-    public void setHobby(String h){ hobby = h; }
+    public void setHobby(String h){ hobby = h; sortKey = packKey(songRank, personality, hobby); }
     public String getHobby(){ return hobby; }
 
-    //Setter and getter for favSong
-    public void setFavSong(String fs){ favSong = fs; }
+    //Setter and getter for favSong. The song is kept as a shared String (the ranking's, or an interned
+    //one if unranked), so villagers do not each hold a copy, and its rank is looked up once here
+    public void setFavSong(String fs){
+        SongRanking ranking = SongRanking.current();
+        songRank = ranking.rankOf(fs);
+        favSong = songRank >= 0 ? ranking.songAt(songRank) : fs == null ? null : fs.intern();
+        sortKey = packKey(songRank, personality, hobby);
+    }
     public String getFavSong(){ return favSong; }
 
     //Getter for songRank
     public int getSongRank() { return songRank; }
 
-    //Returns the index of favSong in the finalKKSongRank list, otherwise returns -1
-    private int evaluateSong(String song) {
-        if (song.isEmpty()) { return -1; }      //case where song is null
-        int i = 0;
-        while (i < finalKKSongRank.length) {         //move through ranked list
-            if (finalKKSongRank[i].equals(song)) {
-                return i;                       //if found, return index of song
-            } else {
-                i++;
-            }
-        }
-        return -1;                              //otherwise, return -1
+    //Packs the inverted song rank (bits 32-61), personality (bits 16-31) and hobby (bits 0-15) into one
+    //long that orders like compareTo's first three fields. Returns -1 if the song is unranked or the
+    //personality or hobby is unknown, so those villagers take the field by field path.
+    static long packKey(int songRank, String personality, String hobby) {
+        if (songRank < 0 || personality == null || hobby == null) { return -1; }
+        int p = Arrays.binarySearch(PERSONALITIES, personality);
+        int h = Arrays.binarySearch(HOBBIES, hobby);
+        if (p < 0 || h < 0) { return -1; }
+        long rank = 0x3FFFFFFFL - songRank;       //a higher (worse) song rank sorts first
+        return (rank << 32) | ((long) p << 16) | h;
+    }
+
+    //Rebuilds a villager from its name and a key made by packKey (the reverse of packKey); the song is
+    //the one of that rank in SongRanking.current()
+    static Villager unpack(String name, long sortKey) {
+        Villager v = new Villager();
+        v.name = name;
+        v.personality = PERSONALITIES[(int) (sortKey >>> 16) & 0xFFFF];
+        v.hobby = HOBBIES[(int) sortKey & 0xFFFF];
+        v.songRank = (int) (0x3FFFFFFFL - (sortKey >>> 32));
+        v.favSong = SongRanking.current().songAt(v.songRank);
+        v.sortKey = sortKey;
+        return v;
     }
 
     //Compares this with Villager v. If this > v, return positive. If v < this, return negative. Otherwise, return 0.
-    //Based first on favSong, then personality, hobby, and name
+    //Based first on favSong, then personality, hobby, and name, so it is a total order: two villagers are
+    //equal only if all four fields are. To find or remove a villager by name alone, use the name index of
+    //IndexedVillagerTree (findByName, removeByName).
     @Override
     public int compareTo(Villager v) {
-        //case for removing a villager based on name only:
-        if (songRank == -1 || v.getSongRank() == -1) {
-            if (name.compareTo(v.getName()) == 0) { return 0; }
+        //Fast case (both keys packed, so both songs ranked): song rank, personality and hobby
+        //in a single long comparison, then name
+        if ((sortKey | v.sortKey) >= 0) {
+            if (sortKey != v.sortKey) {
+                return sortKey < v.sortKey ? -1 : 1;
+            }
+            return name.compareTo(v.name);
         }
-        //Typical case: song rank -> perosnality -> hobby -> name
-        if (songRank == v.getSongRank()) {
-            if (personality.compareTo(v.getPersonality()) == 0) {
-                if (hobby.compareTo(v.getHobby()) == 0) {
-                    if (name.compareTo(v.getName()) == 0) {
-                        return 0;
-                    }
-                    return name.compareTo(v.getName());
+        return compareFields(this, v);
+    }
+
+    //Compares two villagers field by field: song rank -> personality -> hobby -> name.
+    //Used when a sort key could not be packed; gives the same order as the packed key.
+    static int compareFields(Villager a, Villager v) {
+        if (a.songRank == v.songRank) {
+            if (a.personality.compareTo(v.personality) == 0) {
+                if (a.hobby.compareTo(v.hobby) == 0) {
+                    return a.name.compareTo(v.name);
                 }
-                return hobby.compareTo(v.getHobby());
+                return a.hobby.compareTo(v.hobby);
             }
-            return personality.compareTo(v.getPersonality());
+            return a.personality.compareTo(v.personality);
         } else {
-            if (songRank > v.getSongRank()) {           //finalKKSongRank is listed from best to worst (left -> right)
+            if (a.songRank > v.songRank) {           //SongRanking is listed from best to worst (left -> right)
                 return -1;
             } else {
                 return 1;
@@ -115,7 +135,7 @@ public class Villager implements Comparable <Villager> {
     //Returns string version of villager
     @Override
     public String toString() {
-        return (name + "'s favorite song is " +favSong + "! Fitting for a " + personality + " villager who likes " + hobby + ".");
+        return (name + "'s favorite song is " + getFavSong() + "! Fitting for a " + personality + " villager who likes " + hobby + ".");
     }
 
     //Returns whether this equals Villager v
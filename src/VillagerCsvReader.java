@@ -0,0 +1,304 @@
+/**********************************************************************************************
+ * @file : VillagerCsvReader.java
+ * @description : Streaming reader for villagers.csv. Bytes are scanned straight out of a
+ *                reusable buffer, and only the four columns a Villager needs (name,
+ *                personality, hobby and favorite song) are turned into Strings; the other
+ *                thirteen columns are skipped without being decoded. Quoted fields (with
+ *                commas, line breaks or "" escapes inside) and CRLF line ends are handled,
+ *                and empty or short rows are skipped rather than failing.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
+ * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with an InputStream, or with open( fileName ); the first row must be the
+// header, which locates the columns by name (Name, Personality, Hobby, Favorite Song)
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean hasNext( )     --> Return true if there is another villager
+// Villager next( )       --> Return the next villager
+// int getSkippedRows( )  --> Return the number of empty or short rows skipped so far
+// void close( )          --> Close the input
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class VillagerCsvReader implements Iterator<Villager>, Closeable {
+    // Projected columns, in Villager constructor order, and their header names
+    private static final int NAME = 0, PERSONALITY = 1, HOBBY = 2, SONG = 3;
+    private static final String[] HEADERS = {"Name", "Personality", "Hobby", "Favorite Song"};
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;        // next byte to scan
+    private int limit;      // end of the bytes read so far
+    private int mark;       // start of the field being scanned; kept when the buffer refills
+    private boolean eof;
+
+    // slotOf[column] is the projected slot of a column, or -1 if the column is skipped
+    private int[] slotOf;
+    private int lastColumn;     // highest projected column; shorter rows are skipped
+    private final String[] fields = new String[HEADERS.length];
+    private byte[] scratch = new byte[64];     // for unescaping quoted fields
+
+    private Villager next;
+    private int skippedRows;
+
+    /**
+     * Create a reader over a CSV stream and read its header.
+     * @param in the stream, positioned at the header row.
+     * @throws IOException if the stream cannot be read or the header lacks a needed column.
+     */
+    public VillagerCsvReader(InputStream in) throws IOException {
+        this.in = in;
+        readHeader();
+    }
+
+    /**
+     * Open a reader over a CSV file.
+     * @param fileName the path of the file.
+     * @return the reader, positioned at the first villager.
+     */
+    public static VillagerCsvReader open(String fileName) throws IOException {
+        InputStream in = new FileInputStream(fileName);
+        try {
+            return new VillagerCsvReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Return true if there is another villager.
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readVillager();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Return the next villager.
+     * @throws NoSuchElementException if there are no more villagers.
+     */
+    @Override
+    public Villager next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Villager v = next;
+        next = null;
+        return v;
+    }
+
+    /**
+     * Return the number of empty or short rows skipped so far.
+     */
+    public int getSkippedRows() {
+        return skippedRows;
+    }
+
+    /**
+     * Close the input.
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Read the header row, skipping a UTF-8 byte order mark, and locate the projected columns.
+     */
+    private void readHeader() throws IOException {
+        ensure(3);
+        if (limit - pos >= 3 && (buf[pos] & 0xFF) == 0xEF && (buf[pos + 1] & 0xFF) == 0xBB
+                && (buf[pos + 2] & 0xFF) == 0xBF) {
+            pos += 3;
+        }
+        List<String> header = new ArrayList<>();
+        boolean more = true;
+        while (more) {
+            more = scanField();
+            header.add(fieldString());
+        }
+
+        int[] columns = new int[HEADERS.length];
+        lastColumn = 0;
+        for (int slot = 0; slot < HEADERS.length; slot++) {
+            columns[slot] = header.indexOf(HEADERS[slot]);
+            if (columns[slot] < 0) {
+                throw new IOException("CSV header has no \"" + HEADERS[slot] + "\" column");
+            }
+            lastColumn = Math.max(lastColumn, columns[slot]);
+        }
+        slotOf = new int[lastColumn + 1];
+        Arrays.fill(slotOf, -1);
+        for (int slot = 0; slot < HEADERS.length; slot++) {
+            slotOf[columns[slot]] = slot;
+        }
+    }
+
+    /**
+     * Read rows until one holds a villager.
+     * @return the villager, or null at the end of the input.
+     */
+    private Villager readVillager() throws IOException {
+        while (true) {
+            ensure(1);
+            if (pos == limit) {
+                return null;        // end of input
+            }
+            int column = 0;
+            boolean more = true;
+            boolean empty = true;
+            while (more) {
+                more = scanField();
+                int slot = column < slotOf.length ? slotOf[column] : -1;
+                if (slot >= 0) {
+                    fields[slot] = fieldString();
+                }
+                empty &= !more && column == 0 && fieldEnd == fieldStart;
+                column++;
+            }
+            if (!empty && column > lastColumn) {
+                return new Villager(fields[NAME], fields[PERSONALITY], fields[HOBBY], fields[SONG]);
+            }
+            skippedRows++;
+        }
+    }
+
+    // Bounds of the last scanned field's content, and whether it holds "" escapes
+    private int fieldStart, fieldEnd;
+    private boolean escaped;
+
+    /**
+     * Scan one field, leaving its content bounds in fieldStart/fieldEnd.
+     * @return true if another field follows on the same row, false at the end of the row.
+     */
+    private boolean scanField() throws IOException {
+        mark = pos;
+        escaped = false;
+        if (ensure(1) && buf[pos] == '"') {
+            // quoted field: runs to the next quote that is not doubled
+            pos++;
+            while (true) {
+                if (!ensure(1)) {
+                    fieldStart = mark + 1;      // unterminated quote: take the rest of the input
+                    fieldEnd = pos;
+                    return false;
+                }
+                if (buf[pos] == '"') {
+                    if (!ensure(2) || buf[pos + 1] != '"') {
+                        break;
+                    }
+                    escaped = true;
+                    pos += 2;
+                } else {
+                    pos++;
+                }
+            }
+            fieldStart = mark + 1;
+            fieldEnd = pos;
+            pos++;      // closing quote
+            // anything between the closing quote and the delimiter is ignored
+            while (ensure(1) && buf[pos] != ',' && buf[pos] != '\n' && buf[pos] != '\r') {
+                pos++;
+            }
+        } else {
+            while (ensure(1) && buf[pos] != ',' && buf[pos] != '\n' && buf[pos] != '\r') {
+                pos++;
+            }
+            fieldStart = mark;
+            fieldEnd = pos;
+        }
+        return endField();
+    }
+
+    /**
+     * Consume the delimiter after a field.
+     * @return true if it was a comma, false if it was a line end or the end of input.
+     */
+    private boolean endField() throws IOException {
+        if (pos == limit) {
+            return false;
+        }
+        byte b = buf[pos++];
+        if (b == ',') {
+            return true;
+        }
+        if (b == '\r' && ensure(1) && buf[pos] == '\n') {
+            pos++;
+        }
+        return false;
+    }
+
+    /**
+     * Decode the last scanned field as UTF-8, undoing "" escapes.
+     */
+    private String fieldString() {
+        if (!escaped) {
+            return new String(buf, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < fieldEnd - fieldStart) {
+            scratch = new byte[fieldEnd - fieldStart];
+        }
+        int n = 0;
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            scratch[n++] = buf[i];
+            if (buf[i] == '"') {
+                i++;        // skip the second quote of the pair
+            }
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Make at least n bytes available from pos, refilling the buffer if needed. The bytes
+     * from mark on are kept, and shifted to the front of the buffer along with pos.
+     * @return true if n bytes are available, false if the input ends first.
+     */
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (eof) {
+                return false;
+            }
+            int keep = Math.min(mark, pos);
+            if (keep > 0) {
+                System.arraycopy(buf, keep, buf, 0, limit - keep);
+                limit -= keep;
+                pos -= keep;
+                mark -= keep;
+                fieldStart -= keep;
+                fieldEnd -= keep;
+            } else if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);       // one field longer than the buffer
+            }
+            int read = in.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,385 @@
+/**********************************************************************************************
+ * @file : VillagerGenerator.java
+ * @description : Synthetic villagers, as many as wanted, with the personalities, hobbies and
+ *                favorite songs of villagers.csv. The (personality, hobby) pairs are drawn
+ *                from their joint distribution in the sample (the two go together: Jocks
+ *                like Fitness) and the songs from theirs, independently. A generated dataset
+ *                is defined in sorted order: every (song, personality, hobby) cell gets its
+ *                expected share of the count (systematic sampling from a seeded offset, so
+ *                each share is within one of count * probability), and villager k of the
+ *                sorted order is in the cell holding position k, named by k in fixed-width
+ *                syllables ("Bababa", "Bababe", ...), so names are unique and ascend with k.
+ *                Any villager can therefore be made from its position alone, in O(log cells),
+ *                and every key order is a permutation of positions: nothing is kept per
+ *                villager. villagers() returns a dataset as a List that makes each villager
+ *                when it is read. The same count and seed give the same villagers in every
+ *                order, in every run, as long as the SongRanking stays the same.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
+ * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with from( sample ), the villagers whose distributions to follow
+//
+// USAGE: java VillagerGenerator <sample csv> <count> <order> <seed> <output csv>
+//
+// ******************PUBLIC OPERATIONS*********************
+// List villagers( count, order, seed ) --> Return a dataset, made lazily, in a key order
+// static List arrange( sorted, order, seed ) --> Return a view of a sorted list in a key order
+// static void writeCsv( villagers, file ) --> Write villagers as a CSV file VillagerCsvReader reads
+// ******************ERRORS********************************
+// IllegalArgumentException for an empty sample or a negative count; the lists returned are
+// read-only
+//
+// ******************KEY ORDERS****************************
+// RANDOM     a pseudo-random permutation (a Feistel network over the positions)
+// SORTED     ascending compareTo order; REVERSE, descending
+// PARTIAL    ascending, except that each run of PARTIAL_BLOCK keys is shuffled
+// CLUSTERED  CLUSTERS ranges of neighbouring keys, in random order, each shuffled
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+public class VillagerGenerator {
+    /** Key orders, see the list above. */
+    public enum Order { RANDOM, SORTED, REVERSE, PARTIAL, CLUSTERED }
+
+    /** Keys per shuffled run of the PARTIAL order. */
+    public static final int PARTIAL_BLOCK = 1000;
+
+    /** Ranges of neighbouring keys in the CLUSTERED order. */
+    public static final int CLUSTERS = 100;
+
+    /** Name syllables, in String order, so fixed-width names sort like their numbers. */
+    private static final String[] SYLLABLES;
+    static {
+        String consonants = "bdfghklmnprstvz";
+        String vowels = "aeiou";
+        SYLLABLES = new String[consonants.length() * vowels.length()];
+        int i = 0;
+        for (char c : consonants.toCharArray()) {
+            for (char v : vowels.toCharArray()) {
+                SYLLABLES[i++] = "" + c + v;
+            }
+        }
+    }
+
+    // The (song, personality, hobby) cells, in compareTo order, and the share of villagers in
+    // each and every cell before it
+    private final Cell[] cells;
+    private final double[] cumulative;
+
+    /**
+     * One combination of song, personality and hobby.
+     */
+    private static final class Cell {
+        final String personality;
+        final String hobby;
+        final String favSong;
+        final long sortKey;
+        final Villager prototype;
+
+        Cell( String personality, String hobby, String favSong ) {
+            this.personality = personality;
+            this.hobby = hobby;
+            this.favSong = favSong;
+            this.prototype = new Villager("", personality, hobby, favSong);
+            this.sortKey = prototype.sortKey;
+        }
+
+        /** A villager of this cell; from its packed key when it has one, which is cheaper. */
+        Villager make( String name ) {
+            if (sortKey >= 0) {
+                return Villager.unpack(name, sortKey);
+            }
+            return new Villager(name, personality, hobby, favSong);
+        }
+    }
+
+    private VillagerGenerator( Cell[] cells, double[] cumulative ) {
+        this.cells = cells;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Learn the distributions of personality and hobby (jointly) and favorite song from a
+     * sample, such as the villagers of villagers.csv.
+     * @param sample the villagers to follow.
+     * @return the generator.
+     */
+    public static VillagerGenerator from( Iterable<Villager> sample ) {
+        Map<List<String>, Integer> pairs = new HashMap<>();
+        Map<String, Integer> songs = new HashMap<>();
+        int total = 0;
+        for (Villager v : sample) {
+            pairs.merge(List.of(v.getPersonality(), v.getHobby()), 1, Integer::sum);
+            songs.merge(v.getFavSong(), 1, Integer::sum);
+            total++;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Cannot generate villagers from an empty sample");
+        }
+        List<Cell> cells = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (Map.Entry<List<String>, Integer> pair : pairs.entrySet()) {
+            for (Map.Entry<String, Integer> song : songs.entrySet()) {
+                cells.add(new Cell(pair.getKey().get(0), pair.getKey().get(1), song.getKey()));
+                weights.add((double) pair.getValue() * song.getValue());
+            }
+        }
+        Integer[] order = new Integer[cells.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> cells.get(a).prototype.compareTo(cells.get(b).prototype));
+        Cell[] sorted = new Cell[order.length];
+        double[] cumulative = new double[order.length];
+        double sum = 0;
+        double all = (double) total * total;
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = cells.get(order[i]);
+            sum += weights.get(order[i]) / all;
+            cumulative[i] = sum;
+        }
+        cumulative[order.length - 1] = 1.0;
+        return new VillagerGenerator(sorted, cumulative);
+    }
+
+    /**
+     * Return count generated villagers in a key order. Villagers are made as they are read,
+     * each read making a new (equal) object, so the list costs O(cells) memory whatever its
+     * size.
+     * @param count the number of villagers.
+     * @param order the key order.
+     * @param seed selects the dataset (with count) and the permutation of the order.
+     * @return a read-only list of the villagers.
+     */
+    public List<Villager> villagers( int count, Order order, long seed ) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Cannot generate " + count + " villagers");
+        }
+        return arrange(new Dataset(count, seed), order, seed);
+    }
+
+    /**
+     * Return a view of a sorted list in a key order. The view reads through to the list.
+     * @param sorted a list in ascending order.
+     * @param order the key order.
+     * @param seed selects the permutation, for the orders that shuffle.
+     * @return a read-only view.
+     */
+    public static <T> List<T> arrange( List<T> sorted, Order order, long seed ) {
+        if (order == Order.SORTED) {
+            return sorted;
+        }
+        return new Arranged<>(sorted, order, seed);
+    }
+
+    /**
+     * The villagers of one dataset, in sorted order.
+     */
+    private final class Dataset extends AbstractList<Villager> implements RandomAccess {
+        private final int count;
+        private final int width;       // syllables per name
+        private final int[] ends;      // ends[i] is the position after the last villager of cells[i]
+
+        Dataset( int count, long seed ) {
+            this.count = count;
+            int w = 2;
+            for (long names = (long) SYLLABLES.length * SYLLABLES.length; names < count; names *= SYLLABLES.length) {
+                w++;
+            }
+            width = w;
+            double offset = new SplittableRandom(seed).nextDouble();
+            ends = new int[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                ends[i] = (int) Math.min(count, (long) Math.floor(count * cumulative[i] + offset));
+            }
+            ends[cells.length - 1] = count;
+        }
+
+        @Override
+        public Villager get( int k ) {
+            if (k < 0 || k >= count) {
+                throw new IndexOutOfBoundsException("Villager " + k + " of " + count);
+            }
+            // the cell holding k is the first whose end is past k (empty cells end where
+            // the cell before them does, so ends can repeat)
+            int lo = 0;
+            int hi = ends.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ends[mid] > k) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return cells[lo].make(name(k));
+        }
+
+        @Override
+        public int size( ) {
+            return count;
+        }
+
+        /** The name of the villager at position k: k in base SYLLABLES.length, capitalized. */
+        private String name( int k ) {
+            char[] name = new char[2 * width];
+            for (int j = width - 1; j >= 0; j--) {
+                String s = SYLLABLES[k % SYLLABLES.length];
+                name[2 * j] = s.charAt(0);
+                name[2 * j + 1] = s.charAt(1);
+                k /= SYLLABLES.length;
+            }
+            name[0] = Character.toUpperCase(name[0]);
+            return new String(name);
+        }
+    }
+
+    /**
+     * A sorted list read in another key order, by mapping each index to a sorted position.
+     */
+    private static final class Arranged<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> sorted;
+        private final Order order;
+        private final long seed;
+        private final int n;
+        private final int clusterSize;     // keys per full cluster (CLUSTERED)
+        private final int fullClusters;
+
+        Arranged( List<T> sorted, Order order, long seed ) {
+            this.sorted = sorted;
+            this.order = order;
+            this.seed = seed;
+            this.n = sorted.size();
+            this.clusterSize = Math.max(1, (n + CLUSTERS - 1) / CLUSTERS);
+            this.fullClusters = n / clusterSize;
+        }
+
+        @Override
+        public T get( int k ) {
+            if (k < 0 || k >= n) {
+                throw new IndexOutOfBoundsException("Index " + k + " of " + n);
+            }
+            return sorted.get(position(k));
+        }
+
+        @Override
+        public int size( ) {
+            return n;
+        }
+
+        /** The sorted position of the key read at index k. */
+        private int position( int k ) {
+            switch (order) {
+                case REVERSE:
+                    return n - 1 - k;
+                case RANDOM:
+                    return (int) permute(k, n, seed);
+                case PARTIAL:
+                    return shuffleRun(k, PARTIAL_BLOCK);
+                case CLUSTERED: {
+                    if (k >= fullClusters * clusterSize) {
+                        return shuffleRun(k, clusterSize);      // the short cluster at the end
+                    }
+                    int cluster = (int) permute(k / clusterSize, fullClusters, seed);
+                    return cluster * clusterSize + (int) permute(k % clusterSize, clusterSize, mix(seed + cluster));
+                }
+                default:
+                    return k;
+            }
+        }
+
+        /** Shuffle k within its run of the given length, keeping the runs in place. */
+        private int shuffleRun( int k, int length ) {
+            int start = k / length * length;
+            int runLength = Math.min(length, n - start);
+            return start + (int) permute(k - start, runLength, mix(seed ^ ~(long) start));
+        }
+    }
+
+    /**
+     * A pseudo-random permutation of [0, size): a four-round Feistel network over the
+     * smallest even power of two that holds size, walking the cycle until it lands in range.
+     */
+    static long permute( long x, long size, long seed ) {
+        if (size <= 1) {
+            return x;
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(size - 1);
+        bits += bits & 1;
+        int half = bits / 2;
+        long mask = (1L << half) - 1;
+        do {
+            long left = x >>> half;
+            long right = x & mask;
+            for (int round = 0; round < 4; round++) {
+                long next = left ^ (mix(right ^ seed ^ (round * 0x9E3779B97F4A7C15L)) & mask);
+                left = right;
+                right = next;
+            }
+            x = (left << half) | right;
+        } while (x >= size);
+        return x;
+    }
+
+    /** SplitMix64's finalizer: a bijective mix of the bits of z. */
+    private static long mix( long z ) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Write villagers as a CSV file with the columns VillagerCsvReader needs.
+     * @param villagers the villagers, in the order to write them.
+     * @param file the path of the file.
+     */
+    public static void writeCsv( Iterable<Villager> villagers, String file ) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(Paths.get(file)))) {
+            w.print("Name,Personality,Hobby,Favorite Song\n");
+            for (Villager v : villagers) {
+                w.print(csvField(v.getName()) + "," + csvField(v.getPersonality()) + "," + csvField(v.getHobby())
+                        + "," + csvField(v.getFavSong()) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Returns a value as a CSV field, quoted if it holds a comma, a quote or a line break.
+     */
+    private static String csvField( String value ) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Writes a generated dataset to a CSV file.
+     */
+    public static void main( String[] args ) throws IOException {
+        if (args.length != 5) {
+            System.err.println("Usage: java VillagerGenerator <sample csv> <count> <order> <seed> <output csv>");
+            System.exit(1);
+        }
+        VillagerGenerator generator = from(Proj2.readVillagers(args[0], Integer.MAX_VALUE));
+        Order order = Order.valueOf(args[2].toUpperCase());
+        writeCsv(generator.villagers(Integer.parseInt(args[1]), order, Long.parseLong(args[3])), args[4]);
+    }
+}
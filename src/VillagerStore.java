@@ -0,0 +1,487 @@
+/**********************************************************************************************
+ * @file : VillagerStore.java
+ * @description : Off-heap Villager store. Villagers are kept as fixed-size records in a
+ *                memory-mapped file, with their names in a second mapped file, so a large
+ *                catalog puts no objects on the heap. The records double as the nodes of an
+ *                AVL tree index in Villager.compareTo order: children are referred to by
+ *                record offset, and the root and counts live in the file header, so reopening
+ *                a store reopens its index instead of rebuilding it.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ * @acknowledgement : Jessica Li's "Animal Crossing New Horizons Catalog", "villagers.csv" file.
+ * https://www.kaggle.com/datasets/jessicali9530/animal-crossing-new-horizons-nookplaza-dataset.
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with create( base, capacity ) for a new store, or open( base ) for an
+// existing one; the store lives in the files base.rec and base.names
+//
+// ******************PUBLIC OPERATIONS*********************
+// int add( v )           --> Insert v; return its record offset, or -1 if already present
+// boolean remove( v )    --> Remove v from the index; return true if v was present
+// boolean contains( v )  --> Return true if v is present
+// int find( v )          --> Return the record offset of v, or -1
+// Villager get( offset ) --> Return the villager stored at a record offset
+// Villager findMin( )    --> Return smallest villager
+// Villager findMax( )    --> Return largest villager
+// int size( )            --> Return number of villagers in the index
+// void force( )          --> Write changes through to disk
+// void close( )          --> Force, then close the files
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate; IllegalArgumentException for a villager whose
+// song is unranked or whose personality or hobby is unknown (it has no packed key)
+//
+// ******************FILE LAYOUT***************************
+// base.rec   header (32 bytes): magic, version, record count, index size, root offset
+//            then records (32 bytes each): sort key (long), left, right, height,
+//            name offset, name length (ints), padding
+// base.names UTF-8 name bytes, appended
+// Removed villagers leave their record and name behind; space is not reclaimed.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class VillagerStore implements Closeable {
+    private static final int MAGIC = 0x56535452;        // "VSTR"
+    private static final int VERSION = 1;
+
+    // Header fields
+    private static final int HEADER = 32;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORDS = 8;
+    private static final int H_SIZE = 12;
+    private static final int H_ROOT = 16;
+    private static final int H_NAME_BYTES = 20;
+
+    // Record fields
+    private static final int RECORD = 32;
+    private static final int R_KEY = 0;
+    private static final int R_LEFT = 8;
+    private static final int R_RIGHT = 12;
+    private static final int R_HEIGHT = 16;
+    private static final int R_NAME = 20;
+    private static final int R_NAME_LENGTH = 24;
+
+    /** Offset standing for "no record". */
+    private static final int NIL = -1;
+
+    private static final int ALLOWED_IMBALANCE = 1;
+
+    private final FileChannel recChannel;
+    private final FileChannel nameChannel;
+    private MappedByteBuffer rec;
+    private MappedByteBuffer names;
+
+    // Cached header fields
+    private int records;        // records ever written
+    private int size;           // villagers in the index
+    private int root;           // record offset of the index root
+    private int nameBytes;      // bytes used in the names file
+
+    /** Set by the internal insert/remove when the index changed. */
+    private int changed;
+
+    /**
+     * Open the files of a store and map them.
+     */
+    private VillagerStore( Path recPath, Path namePath, boolean create ) throws IOException {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        recChannel = FileChannel.open(recPath, options);
+        nameChannel = FileChannel.open(namePath, options);
+    }
+
+    /**
+     * Create a new, empty store.
+     * @param base the path of the store, without extension.
+     * @param capacity the number of villagers to make room for up front; the files grow as needed.
+     * @return the store.
+     */
+    public static VillagerStore create( String base, int capacity ) throws IOException {
+        VillagerStore store = new VillagerStore(Paths.get(base + ".rec"), Paths.get(base + ".names"), true);
+        capacity = Math.max(capacity, 16);
+        store.rec = store.recChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+        store.names = store.nameChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * 16);
+        store.rec.putInt(H_MAGIC, MAGIC);
+        store.rec.putInt(H_VERSION, VERSION);
+        store.root = NIL;
+        store.writeHeader();
+        return store;
+    }
+
+    /**
+     * Open an existing store, with its index as it was last written.
+     * @param base the path of the store, without extension.
+     * @return the store.
+     */
+    public static VillagerStore open( String base ) throws IOException {
+        VillagerStore store = new VillagerStore(Paths.get(base + ".rec"), Paths.get(base + ".names"), false);
+        store.rec = store.recChannel.map(FileChannel.MapMode.READ_WRITE, 0, store.recChannel.size());
+        store.names = store.nameChannel.map(FileChannel.MapMode.READ_WRITE, 0, store.nameChannel.size());
+        if (store.rec.capacity() < HEADER || store.rec.getInt(H_MAGIC) != MAGIC) {
+            store.close();
+            throw new IOException(base + ".rec is not a villager store");
+        }
+        if (store.rec.getInt(H_VERSION) != VERSION) {
+            store.close();
+            throw new IOException(base + ".rec has unsupported version " + store.rec.getInt(H_VERSION));
+        }
+        store.records = store.rec.getInt(H_RECORDS);
+        store.size = store.rec.getInt(H_SIZE);
+        store.root = store.rec.getInt(H_ROOT);
+        store.nameBytes = store.rec.getInt(H_NAME_BYTES);
+        return store;
+    }
+
+    /**
+     * Delete the files of a store.
+     * @param base the path of the store, without extension.
+     */
+    public static void delete( String base ) throws IOException {
+        Files.deleteIfExists(Paths.get(base + ".rec"));
+        Files.deleteIfExists(Paths.get(base + ".names"));
+    }
+
+    /**
+     * Insert into the store; duplicates are ignored.
+     * @param v the villager to insert.
+     * @return the record offset of v, or -1 if an equal villager was already present.
+     */
+    public int add( Villager v ) {
+        long key = keyOf(v);
+        byte[] name = v.getName().getBytes(StandardCharsets.UTF_8);
+        changed = NIL;
+        root = insert(key, name, root);
+        if (changed != NIL) {
+            size++;
+            writeHeader();
+        }
+        return changed;
+    }
+
+    /**
+     * Internal method to insert into a subtree.
+     * @return the new root of the subtree.
+     */
+    private int insert( long key, byte[] name, int t ) {
+        if (t == NIL) {
+            changed = newRecord(key, name);
+            return changed;
+        }
+        int cmp = compare(key, name, t);
+        if (cmp < 0) {
+            setLeft(t, insert(key, name, left(t)));
+        } else if (cmp > 0) {
+            setRight(t, insert(key, name, right(t)));
+        } else {
+            return t;       // duplicate
+        }
+        return balance(t);
+    }
+
+    /**
+     * Remove from the index. Nothing is done if v is not found.
+     * @param v the villager to remove.
+     * @return true if v was removed.
+     */
+    public boolean remove( Villager v ) {
+        long key = v.sortKey;
+        if (key < 0) {
+            return false;       // could never have been added
+        }
+        changed = NIL;
+        root = remove(key, v.getName().getBytes(StandardCharsets.UTF_8), root);
+        if (changed != NIL) {
+            size--;
+            writeHeader();
+        }
+        return changed != NIL;
+    }
+
+    /**
+     * Internal method to remove from a subtree. Unlike AVLTree.remove, a node with two
+     * children is replaced by relinking its successor record rather than copying the
+     * successor into it, so record offsets handed out by add() and find() stay valid.
+     * @return the new root of the subtree.
+     */
+    private int remove( long key, byte[] name, int t ) {
+        if (t == NIL) {
+            return t;
+        }
+        int cmp = compare(key, name, t);
+        if (cmp < 0) {
+            setLeft(t, remove(key, name, left(t)));
+        } else if (cmp > 0) {
+            setRight(t, remove(key, name, right(t)));
+        } else {
+            changed = t;
+            if (left(t) == NIL || right(t) == NIL) {
+                return left(t) != NIL ? left(t) : right(t);
+            }
+            int successor = findMin(right(t));
+            setRight(successor, removeMin(right(t)));
+            setLeft(successor, left(t));
+            return balance(successor);
+        }
+        return balance(t);
+    }
+
+    /**
+     * Unlink the smallest record of a subtree.
+     * @return the new root of the subtree.
+     */
+    private int removeMin( int t ) {
+        if (left(t) == NIL) {
+            return right(t);
+        }
+        setLeft(t, removeMin(left(t)));
+        return balance(t);
+    }
+
+    /**
+     * Find a villager in the store.
+     * @param v the villager to search for.
+     * @return true if v is found.
+     */
+    public boolean contains( Villager v ) {
+        return find(v) != NIL;
+    }
+
+    /**
+     * Find the record of a villager.
+     * @param v the villager to search for.
+     * @return the record offset of v, or -1 if not found.
+     */
+    public int find( Villager v ) {
+        long key = v.sortKey;
+        if (key < 0) {
+            return NIL;
+        }
+        byte[] name = v.getName().getBytes(StandardCharsets.UTF_8);
+        int t = root;
+        while (t != NIL) {
+            int cmp = compare(key, name, t);
+            if (cmp == 0) {
+                return t;
+            }
+            t = cmp < 0 ? left(t) : right(t);
+        }
+        return NIL;
+    }
+
+    /**
+     * Read the villager stored at a record offset.
+     * @param offset a record offset returned by add() or find().
+     * @return a new Villager holding the record's fields.
+     */
+    public Villager get( int offset ) {
+        if (offset < HEADER || offset >= HEADER + records * RECORD || (offset - HEADER) % RECORD != 0) {
+            throw new IllegalArgumentException("Not a record offset: " + offset);
+        }
+        byte[] name = new byte[rec.getInt(offset + R_NAME_LENGTH)];
+        names.get(rec.getInt(offset + R_NAME), name);
+        return Villager.unpack(new String(name, StandardCharsets.UTF_8), rec.getLong(offset + R_KEY));
+    }
+
+    /**
+     * Find the smallest villager in the store.
+     */
+    public Villager findMin( ) {
+        if (size == 0)
+            throw new UnderflowException( );
+        return get(findMin(root));
+    }
+
+    /**
+     * Internal method to find the smallest record of a subtree.
+     */
+    private int findMin( int t ) {
+        while (left(t) != NIL) {
+            t = left(t);
+        }
+        return t;
+    }
+
+    /**
+     * Find the largest villager in the store.
+     */
+    public Villager findMax( ) {
+        if (size == 0)
+            throw new UnderflowException( );
+        int t = root;
+        while (right(t) != NIL) {
+            t = right(t);
+        }
+        return get(t);
+    }
+
+    /**
+     * Return the number of villagers in the index.
+     */
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Write all changes through to disk.
+     */
+    public void force( ) {
+        rec.force();
+        names.force();
+    }
+
+    /**
+     * Force all changes to disk and close the files.
+     */
+    @Override
+    public void close( ) throws IOException {
+        force();
+        recChannel.close();
+        nameChannel.close();
+    }
+
+    /**
+     * Return the packed key of a villager, which the store requires.
+     */
+    private static long keyOf( Villager v ) {
+        if (v.sortKey < 0) {
+            throw new IllegalArgumentException("Villager has no packed sort key: " + v);
+        }
+        return v.sortKey;
+    }
+
+    /**
+     * Compare a probe (key, UTF-8 name) with a record, in Villager.compareTo order.
+     * UTF-8 bytes compare like the String for all names in the Basic Multilingual Plane.
+     * @return negative, zero or positive as the probe is less than, equal to or greater than the record.
+     */
+    private int compare( long key, byte[] name, int t ) {
+        long recordKey = rec.getLong(t + R_KEY);
+        if (key != recordKey) {
+            return key < recordKey ? -1 : 1;
+        }
+        int offset = rec.getInt(t + R_NAME);
+        int length = rec.getInt(t + R_NAME_LENGTH);
+        int n = Math.min(name.length, length);
+        for (int i = 0; i < n; i++) {
+            int a = name[i] & 0xFF;
+            int b = names.get(offset + i) & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return name.length - length;
+    }
+
+    /**
+     * Append a leaf record (and its name), growing the files if needed.
+     * @return the offset of the new record.
+     */
+    private int newRecord( long key, byte[] name ) {
+        int t = HEADER + records * RECORD;
+        try {
+            if (t + RECORD > rec.capacity()) {
+                rec = recChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + 2L * (rec.capacity() - HEADER));
+            }
+            if (nameBytes + name.length > names.capacity()) {
+                names = nameChannel.map(FileChannel.MapMode.READ_WRITE, 0, 2L * names.capacity() + name.length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        names.put(nameBytes, name);
+        rec.putLong(t + R_KEY, key);
+        rec.putInt(t + R_LEFT, NIL);
+        rec.putInt(t + R_RIGHT, NIL);
+        rec.putInt(t + R_HEIGHT, 0);
+        rec.putInt(t + R_NAME, nameBytes);
+        rec.putInt(t + R_NAME_LENGTH, name.length);
+        nameBytes += name.length;
+        records++;
+        return t;
+    }
+
+    /**
+     * Write the cached header fields to the records file.
+     */
+    private void writeHeader( ) {
+        rec.putInt(H_RECORDS, records);
+        rec.putInt(H_SIZE, size);
+        rec.putInt(H_ROOT, root);
+        rec.putInt(H_NAME_BYTES, nameBytes);
+    }
+
+    // Record field accessors
+    private int left( int t ) { return rec.getInt(t + R_LEFT); }
+    private int right( int t ) { return rec.getInt(t + R_RIGHT); }
+    private void setLeft( int t, int child ) { rec.putInt(t + R_LEFT, child); }
+    private void setRight( int t, int child ) { rec.putInt(t + R_RIGHT, child); }
+
+    /**
+     * Return the height of record t, or -1, if NIL.
+     */
+    private int height( int t ) {
+        return t == NIL ? -1 : rec.getInt(t + R_HEIGHT);
+    }
+
+    private void updateHeight( int t ) {
+        rec.putInt(t + R_HEIGHT, Math.max(height(left(t)), height(right(t))) + 1);
+    }
+
+    /**
+     * Rebalance the subtree rooted at t, which is either balanced or within one of being balanced.
+     * @return the new root of the subtree.
+     */
+    private int balance( int t ) {
+        int l = left(t);
+        int r = right(t);
+        if (height(l) - height(r) > ALLOWED_IMBALANCE) {
+            if (height(left(l)) < height(right(l))) {
+                setLeft(t, rotateWithRightChild(l));
+            }
+            return rotateWithLeftChild(t);
+        } else if (height(r) - height(l) > ALLOWED_IMBALANCE) {
+            if (height(right(r)) < height(left(r))) {
+                setRight(t, rotateWithLeftChild(r));
+            }
+            return rotateWithRightChild(t);
+        }
+        updateHeight(t);
+        return t;
+    }
+
+    /**
+     * Rotate record k2 with its left child.
+     * @return the new root of the subtree.
+     */
+    private int rotateWithLeftChild( int k2 ) {
+        int k1 = left(k2);
+        setLeft(k2, right(k1));
+        setRight(k1, k2);
+        updateHeight(k2);
+        updateHeight(k1);
+        return k1;
+    }
+
+    /**
+     * Rotate record k1 with its right child.
+     * @return the new root of the subtree.
+     */
+    private int rotateWithRightChild( int k1 ) {
+        int k2 = right(k1);
+        setRight(k1, left(k2));
+        setLeft(k2, k1);
+        updateHeight(k1);
+        updateHeight(k2);
+        return k2;
+    }
+}
@@ -0,0 +1,484 @@
+/**********************************************************************************************
+ * @file : WAVLTree.java
+ * @description : WAVL (weak AVL) Tree class, a rank-balanced tree. Each node keeps a rank
+ *                instead of a height, and a child's rank is always 1 or 2 below its parent's
+ *                (a missing child has rank -1, so a leaf has rank 0). Built by inserts alone
+ *                it is exactly an AVL tree, but a remove only relaxes the ranks instead of
+ *                restoring AVL heights, so it needs at most two rotations per remove (an
+ *                AVL tree may rotate at every level) and is never deeper than a red-black
+ *                tree.
+ * @author : Ella Shipman
+ * @date : October 18, 2025
+ * @acknowledgement : Haeupler, Sen and Tarjan, "Rank-Balanced Trees", ACM Transactions on
+ * Algorithms 11(4), 2015.
+ *********************************************************************************************/
+//
+// CONSTRUCTION: with no initializer
+//
+// ******************PUBLIC OPERATIONS*********************
+// boolean insert( x )    --> Insert x; return false if already present
+// boolean remove( x )    --> Remove x; return true if x was present
+// boolean contains( x )  --> Return true if x is present
+// Comparable findMin( )  --> Return smallest item
+// Comparable findMax( )  --> Return largest item
+// int size( )            --> Return number of items
+// boolean isEmpty( )     --> Return true if empty; else false
+// void makeEmpty( )      --> Remove all items
+// void printTree( )      --> Print tree in sorted order
+// Iterator iterator( )   --> Return an iterator over the items in sorted order
+// int height( )          --> Return the height of the tree
+// void checkBalance( )   --> Print a message if a rank rule is broken
+// ******************ERRORS********************************
+// Throws UnderflowException as appropriate
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements a WAVL tree.
+ * Note that all "matching" is based on the compareTo method.
+ */
+public class WAVLTree<AnyType extends Comparable<? super AnyType>> implements SearchTree<AnyType> {
+    /** The tree root. */
+    private WavlNode<AnyType> root;
+
+    /** Number of items in the tree. */
+    private int size;
+
+    /**
+     * Construct the tree.
+     */
+    public WAVLTree( ) {
+        root = null;
+    }
+
+    /**
+     * Insert into the tree; duplicates are ignored.
+     * @param x the item to insert.
+     * @return true if x was inserted, false if an equal item was already present.
+     */
+    @Override
+    public boolean insert( AnyType x ) {
+        int before = size;
+        root = insert( x, root );
+        return size > before;
+    }
+
+    /**
+     * Internal method to insert into a subtree. A new leaf may leave its parent with a
+     * child of equal rank (a 0-child), which is fixed on the way back up.
+     * @param x the item to insert.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> insert( AnyType x, WavlNode<AnyType> t ) {
+        if (t == null) {
+            size++;
+            return new WavlNode<AnyType>(x);
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = insert(x, t.left);
+            if (rank(t.left) == t.rank) {
+                return fixLeftZeroChild(t);
+            }
+        } else if (cmp < 0) {
+            t.right = insert(x, t.right);
+            if (rank(t.right) == t.rank) {
+                return fixRightZeroChild(t);
+            }
+        }
+        // else x is already in the tree; do nothing
+        return t;
+    }
+
+    /**
+     * Fix a left child with the same rank as t. If the sibling is a 1-child, promoting t
+     * is enough (and may move the problem up to t's parent); otherwise a single or double
+     * rotation ends it.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> fixLeftZeroChild( WavlNode<AnyType> t ) {
+        if (t.rank - rank(t.right) == 1) {
+            t.rank++;
+            return t;
+        }
+        WavlNode<AnyType> x = t.left;
+        if (x.rank - rank(x.right) == 2) {
+            x = rotateWithLeftChild(t);
+            t.rank--;
+            return x;
+        }
+        WavlNode<AnyType> y = x.right;
+        t.left = rotateWithRightChild(x);
+        rotateWithLeftChild(t);
+        y.rank++;
+        x.rank--;
+        t.rank--;
+        return y;
+    }
+
+    /**
+     * Symmetric with fixLeftZeroChild.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> fixRightZeroChild( WavlNode<AnyType> t ) {
+        if (t.rank - rank(t.left) == 1) {
+            t.rank++;
+            return t;
+        }
+        WavlNode<AnyType> x = t.right;
+        if (x.rank - rank(x.left) == 2) {
+            x = rotateWithRightChild(t);
+            t.rank--;
+            return x;
+        }
+        WavlNode<AnyType> y = x.left;
+        t.right = rotateWithLeftChild(x);
+        rotateWithRightChild(t);
+        y.rank++;
+        x.rank--;
+        t.rank--;
+        return y;
+    }
+
+    /**
+     * Remove from the tree. Nothing is done if x is not found.
+     * @param x the item to remove.
+     * @return true if x was removed, false if it was not in the tree.
+     */
+    @Override
+    public boolean remove( AnyType x ) {
+        int before = size;
+        root = remove( x, root );
+        return size < before;
+    }
+
+    /**
+     * Internal method to remove from a subtree.
+     * @param x the item to remove.
+     * @param t the node that roots the subtree.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> remove( AnyType x, WavlNode<AnyType> t ) {
+        if (t == null) {
+            return null;    // Item not found; do nothing
+        }
+        int cmp = t.element.compareTo(x);
+        if (cmp > 0) {
+            t.left = remove(x, t.left);
+        } else if (cmp < 0) {
+            t.right = remove(x, t.right);
+        } else if (t.left != null && t.right != null) {
+            // case: two children -> replace x with the minimum of the right subtree
+            t.element = findMin(t.right).element;
+            t.right = removeMin(t.right);
+        } else {
+            // case: at most one child, which is a leaf -> it takes t's place
+            size--;
+            return (t.left != null) ? t.left : t.right;
+        }
+        return fixAfterRemove(t);
+    }
+
+    /**
+     * Internal method to remove the smallest item of a subtree.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> removeMin( WavlNode<AnyType> t ) {
+        if (t.left == null) {
+            size--;
+            return t.right;
+        }
+        t.left = removeMin(t.left);
+        return fixAfterRemove(t);
+    }
+
+    /**
+     * Restore the rank rules at t after a remove below it: a leaf of rank 1 is demoted,
+     * and a child 3 ranks below t is fixed by demotions (which may move the problem up to
+     * t's parent) or by a single or double rotation, which ends it.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> fixAfterRemove( WavlNode<AnyType> t ) {
+        if (t.left == null && t.right == null) {
+            t.rank = 0;
+            return t;
+        }
+        if (t.rank - rank(t.left) == 3) {
+            return fixLeftThreeChild(t);
+        }
+        if (t.rank - rank(t.right) == 3) {
+            return fixRightThreeChild(t);
+        }
+        return t;
+    }
+
+    /**
+     * Fix a left child 3 ranks below t.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> fixLeftThreeChild( WavlNode<AnyType> t ) {
+        WavlNode<AnyType> y = t.right;
+        if (t.rank - y.rank == 2) {
+            t.rank--;
+            return t;
+        }
+        if (y.rank - rank(y.left) == 2 && y.rank - rank(y.right) == 2) {
+            t.rank--;
+            y.rank--;
+            return t;
+        }
+        if (y.rank - rank(y.right) == 1) {
+            rotateWithRightChild(t);
+            y.rank++;
+            t.rank--;
+            if (t.left == null && t.right == null) {
+                t.rank--;
+            }
+            return y;
+        }
+        WavlNode<AnyType> w = y.left;
+        t.right = rotateWithLeftChild(y);
+        rotateWithRightChild(t);
+        w.rank += 2;
+        y.rank--;
+        t.rank -= 2;
+        return w;
+    }
+
+    /**
+     * Symmetric with fixLeftThreeChild.
+     * @return the new root of the subtree.
+     */
+    private WavlNode<AnyType> fixRightThreeChild( WavlNode<AnyType> t ) {
+        WavlNode<AnyType> y = t.left;
+        if (t.rank - y.rank == 2) {
+            t.rank--;
+            return t;
+        }
+        if (y.rank - rank(y.left) == 2 && y.rank - rank(y.right) == 2) {
+            t.rank--;
+            y.rank--;
+            return t;
+        }
+        if (y.rank - rank(y.left) == 1) {
+            rotateWithLeftChild(t);
+            y.rank++;
+            t.rank--;
+            if (t.left == null && t.right == null) {
+                t.rank--;
+            }
+            return y;
+        }
+        WavlNode<AnyType> w = y.right;
+        t.left = rotateWithRightChild(y);
+        rotateWithLeftChild(t);
+        w.rank += 2;
+        y.rank--;
+        t.rank -= 2;
+        return w;
+    }
+
+    /**
+     * Find an item in the tree.
+     * @param x the item to search for.
+     * @return true if x is found.
+     */
+    @Override
+    public boolean contains( AnyType x ) {
+        WavlNode<AnyType> t = root;
+        while (t != null) {
+            int cmp = t.element.compareTo(x);
+            if (cmp == 0) {
+                return true;
+            }
+            t = cmp > 0 ? t.left : t.right;
+        }
+        return false;
+    }
+
+    /**
+     * Find the smallest item in the tree.
+     * @return smallest item.
+     */
+    @Override
+    public AnyType findMin( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        return findMin( root ).element;
+    }
+
+    /**
+     * Internal method to find the smallest item in a subtree.
+     * @param t the node that roots the tree.
+     * @return node containing the smallest item.
+     */
+    private WavlNode<AnyType> findMin( WavlNode<AnyType> t ) {
+        while (t.left != null) {
+            t = t.left;
+        }
+        return t;
+    }
+
+    /**
+     * Find the largest item in the tree.
+     * @return the largest item.
+     */
+    @Override
+    public AnyType findMax( ) {
+        if( isEmpty( ) )
+            throw new UnderflowException( );
+        WavlNode<AnyType> t = root;
+        while (t.right != null) {
+            t = t.right;
+        }
+        return t.element;
+    }
+
+    /**
+     * Return the number of items in the tree.
+     */
+    @Override
+    public int size( ) {
+        return size;
+    }
+
+    /**
+     * Return the height of the tree; -1 if it is empty. The root's rank is only an
+     * upper bound once items have been removed, so the height is measured.
+     */
+    public int height( ) {
+        return height( root );
+    }
+
+    private int height( WavlNode<AnyType> t ) {
+        return t == null ? -1 : 1 + Math.max(height(t.left), height(t.right));
+    }
+
+    /**
+     * Make the tree logically empty.
+     */
+    @Override
+    public void makeEmpty( ) {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Test if the tree is logically empty.
+     * @return true if empty, false otherwise.
+     */
+    @Override
+    public boolean isEmpty( ) {
+        return root == null;
+    }
+
+    /**
+     * Print the tree contents in sorted order.
+     */
+    @Override
+    public void printTree( ) {
+        if( isEmpty( ) )
+            System.out.println( "Empty tree" );
+        else
+            for (AnyType x : this)
+                System.out.print(x.toString() + "\n");
+    }
+
+    /**
+     * Return an iterator over the items in sorted order, produced lazily from an explicit
+     * stack. The tree must not be changed while it is being iterated.
+     */
+    @Override
+    public Iterator<AnyType> iterator( ) {
+        ArrayDeque<WavlNode<AnyType>> stack = new ArrayDeque<>();
+        for (WavlNode<AnyType> t = root; t != null; t = t.left) {
+            stack.push(t);
+        }
+        return new Iterator<AnyType>() {
+            @Override
+            public boolean hasNext( ) {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public AnyType next( ) {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                WavlNode<AnyType> t = stack.pop();
+                for (WavlNode<AnyType> p = t.right; p != null; p = p.left) {
+                    stack.push(p);
+                }
+                return t.element;
+            }
+        };
+    }
+
+    /**
+     * Verifies the rank rules: every child is 1 or 2 ranks below its parent, and every
+     * leaf has rank 0.
+     */
+    public void checkBalance( ) {
+        checkBalance( root );
+    }
+
+    private void checkBalance( WavlNode<AnyType> t ) {
+        if (t == null) {
+            return;
+        }
+        int dl = t.rank - rank(t.left);
+        int dr = t.rank - rank(t.right);
+        if (dl < 1 || dl > 2 || dr < 1 || dr > 2) {
+            System.out.println("OOPS!! rank differences " + dl + " and " + dr);
+        }
+        if (t.left == null && t.right == null && t.rank != 0) {
+            System.out.println("OOPS!! leaf of rank " + t.rank);
+        }
+        checkBalance(t.left);
+        checkBalance(t.right);
+    }
+
+    /**
+     * Return the rank of node t or -1 if null.
+     */
+    private int rank( WavlNode<AnyType> t ) {
+        return t == null ? -1 : t.rank;
+    }
+
+    /**
+     * Rotate binary tree node with left child. Ranks are left to the caller.
+     * Return the new root.
+     */
+    private WavlNode<AnyType> rotateWithLeftChild( WavlNode<AnyType> k2 ) {
+        WavlNode<AnyType> k1 = k2.left;
+        k2.left = k1.right;
+        k1.right = k2;
+        return k1;
+    }
+
+    /**
+     * Rotate binary tree node with right child. Ranks are left to the caller.
+     * Return the new root.
+     */
+    private WavlNode<AnyType> rotateWithRightChild( WavlNode<AnyType> k1 ) {
+        WavlNode<AnyType> k2 = k1.right;
+        k1.right = k2.left;
+        k2.left = k1;
+        return k2;
+    }
+
+    private static class WavlNode<AnyType> {
+        WavlNode( AnyType theElement ) {
+            element = theElement;
+            rank    = 0;
+        }
+
+        AnyType            element;      // The data in the node
+        WavlNode<AnyType>  left;         // Left child
+        WavlNode<AnyType>  right;        // Right child
+        int                rank;         // Rank; 1 or 2 above each child's
+    }
+}